@@ -0,0 +1,376 @@
+package de.tichawa.cis.config;
+
+import de.tichawa.cis.config.ldstd.LDSTD;
+import de.tichawa.cis.config.mxcis.MXCIS;
+import de.tichawa.cis.config.vdcis.VDCIS;
+import de.tichawa.cis.config.vhcis.VHCIS;
+import de.tichawa.cis.config.vscis.VSCIS;
+import de.tichawa.cis.config.vtcis.VTCIS;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Kalkulation ohne Oberfläche: liest Spezifikationen (gleiche Schlüssel wie CIS.setSpec in den MaskControllern)
+// aus einer CSV- oder JSON-Lines-Datei und schreibt TiViKey, Preise und Stückliste je Zeile in eine Ausgabedatei.
+// Die Spalte bzw. der Schlüssel "CIS" bestimmt die Familie (VSCIS, VHCIS, VTCIS, VDCIS, MXCIS, LDSTD).
+// Aufruf: Headless --batch <input.csv|input.jsonl> <output.csv> [threads]
+public class BatchPricer
+{
+  public static final String FAMILY_KEY = "CIS";
+  private static final Map<String, Supplier<CIS>> FAMILIES = new LinkedHashMap<>();
+
+  static
+  {
+    FAMILIES.put("VSCIS", VSCIS::new);
+    FAMILIES.put("VHCIS", VHCIS::new);
+    FAMILIES.put("VTCIS", VTCIS::new);
+    FAMILIES.put("VDCIS", VDCIS::new);
+    FAMILIES.put("MXCIS", MXCIS::new);
+    FAMILIES.put("LDSTD", LDSTD::new);
+  }
+
+  private final int threads;
+
+  public BatchPricer(int threads)
+  {
+    this.threads = threads;
+  }
+
+  public static void main(String[] args) throws IOException
+  {
+    if(args.length < 2)
+    {
+      System.err.println("Usage: --batch <input.csv|input.jsonl> <output.csv> [threads]");
+      return;
+    }
+
+    Settings.loadProperties();
+    int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+    int count = new BatchPricer(threads).run(Paths.get(args[0]), Paths.get(args[1]));
+    System.out.println(count + " configurations priced");
+  }
+
+  public static CIS createCIS(String family)
+  {
+    Supplier<CIS> supplier = FAMILIES.get(family == null ? null : family.toUpperCase());
+    if(supplier == null)
+    {
+      throw new CISException("Unknown CIS family: " + family);
+    }
+    return supplier.get();
+  }
+
+  // Familie aus der Spalte CIS, alle anderen nicht leeren Werte als Spezifikation
+  public static CIS createCIS(Map<String, String> values)
+  {
+    CIS cis = createCIS(values.get(FAMILY_KEY));
+    values.forEach((key, value) ->
+    {
+      if(!key.equals(FAMILY_KEY) && !value.isEmpty())
+      {
+        cis.setSpec(key, Integer.parseInt(value));
+      }
+    });
+    return cis;
+  }
+
+  public int run(Path input, Path output) throws IOException
+  {
+    return run(input, output, "Line\tCIS\tTiViKey\tPrice (1 pc)\tPrice (5 pcs)\tPrice (10 pcs)\tPrice (25 pcs)\tParts", BatchPricer::price);
+  }
+
+  // Gemeinsamer Ablauf für andere Auswertungen je Konfiguration (z.B. ImpactReport), pricer liefert die Ausgabezeile
+  int run(Path input, Path output, String header, BiFunction<Integer, Map<String, String>, String> pricer) throws IOException
+  {
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    ArrayDeque<Future<String>> pending = new ArrayDeque<>();
+    int count = 0;
+
+    try(Stream<String> lines = Files.lines(input, StandardCharsets.UTF_8);
+        BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8))
+    {
+      writer.write(header);
+      writer.newLine();
+
+      Iterator<Map<String, String>> specs = isJson(input) ? parseJsonLines(lines) : parseCsv(lines);
+      while(specs.hasNext())
+      {
+        int line = ++count;
+        try
+        {
+          Map<String, String> spec = specs.next();
+          pending.add(executor.submit(() -> pricer.apply(line, spec)));
+        }
+        catch(IllegalArgumentException ex)
+        {
+          //Ein fehlerhafter Datensatz bricht den Lauf nicht ab, Spalte CIS bleibt leer
+          pending.add(CompletableFuture.completedFuture(line + "\t\tERROR: " + ex.getMessage()));
+        }
+
+        //Keep the output in input order without holding the whole file in memory
+        if(pending.size() >= threads * 4)
+        {
+          write(writer, pending.poll());
+        }
+      }
+
+      while(!pending.isEmpty())
+      {
+        write(writer, pending.poll());
+      }
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+
+    return count;
+  }
+
+  private static void write(BufferedWriter writer, Future<String> result) throws IOException
+  {
+    try
+    {
+      writer.write(result.get());
+      writer.newLine();
+    }
+    catch(InterruptedException ex)
+    {
+      Thread.currentThread().interrupt();
+      throw new IOException(ex);
+    }
+    catch(ExecutionException ex)
+    {
+      throw new IOException(ex.getCause());
+    }
+  }
+
+  public static String price(int line, Map<String, String> values)
+  {
+    String family = values.get(FAMILY_KEY);
+    try
+    {
+      CalculationResult calculation = createCIS(values).calculate();
+
+      Double[] totals = calculation.getTotalPrices();
+      StringBuilder result = new StringBuilder()
+              .append(line).append("\t")
+              .append(family).append("\t")
+              .append(calculation.getTiViKey());
+      for(Double total : totals)
+      {
+        result.append("\t").append(String.format(calculation.getLocale(), "%.2f", total));
+      }
+
+      result.append("\t").append(Stream.concat(calculation.getElectConfig().entrySet().stream(), calculation.getMechaConfig().entrySet().stream())
+              .map(entry -> entry.getValue() + " x " + String.format("%05d", entry.getKey()) + " " + calculation.getKey(entry.getKey()))
+              .collect(Collectors.joining(", ")));
+
+      return result.toString();
+    }
+    catch(RuntimeException ex)
+    {
+      return line + "\t" + family + "\tERROR: " + (ex.getMessage() == null ? ex.getClass().getSimpleName() : ex.getMessage());
+    }
+  }
+
+  private static boolean isJson(Path input)
+  {
+    String name = input.getFileName().toString().toLowerCase();
+    return name.endsWith(".jsonl") || name.endsWith(".json");
+  }
+
+  private static Iterator<Map<String, String>> parseCsv(Stream<String> lines)
+  {
+    Iterator<String> it = lines.filter(line -> !line.trim().isEmpty()).iterator();
+    if(!it.hasNext())
+    {
+      return Collections.emptyIterator();
+    }
+
+    String header = it.next();
+    String separator = header.contains("\t") ? "\t" : header.contains(";") ? ";" : ",";
+    String[] keys = unquote(header.split(separator));
+
+    return new Iterator<Map<String, String>>()
+    {
+      @Override
+      public boolean hasNext()
+      {
+        return it.hasNext();
+      }
+
+      @Override
+      public Map<String, String> next()
+      {
+        String[] fields = unquote(it.next().split(separator, -1));
+        Map<String, String> spec = new HashMap<>();
+        for(int i = 0; i < keys.length && i < fields.length; i++)
+        {
+          spec.put(keys[i], fields[i]);
+        }
+        return spec;
+      }
+    };
+  }
+
+  private static String[] unquote(String[] fields)
+  {
+    for(int i = 0; i < fields.length; i++)
+    {
+      String field = fields[i].trim();
+      if(field.length() > 1 && field.startsWith("\"") && field.endsWith("\""))
+      {
+        field = field.substring(1, field.length() - 1);
+      }
+      fields[i] = field;
+    }
+    return fields;
+  }
+
+  // Die Zeile wird erst in next() übersetzt, ein Fehler betrifft nur diesen Datensatz
+  private static Iterator<Map<String, String>> parseJsonLines(Stream<String> lines)
+  {
+    Iterator<String> it = lines.map(String::trim)
+            .filter(line -> !line.isEmpty())
+            .iterator();
+
+    return new Iterator<Map<String, String>>()
+    {
+      @Override
+      public boolean hasNext()
+      {
+        return it.hasNext();
+      }
+
+      @Override
+      public Map<String, String> next()
+      {
+        return parseJsonObject(it.next());
+      }
+    };
+  }
+
+  // Flaches JSON-Objekt mit Zeichenketten, Zahlen und true/false als Werten
+  public static Map<String, String> parseJsonObject(String json)
+  {
+    try
+    {
+      return readJsonObject(json);
+    }
+    catch(IndexOutOfBoundsException ex)
+    {
+      throw new IllegalArgumentException("Unexpected end of line: " + json);
+    }
+  }
+
+  private static Map<String, String> readJsonObject(String json)
+  {
+    Map<String, String> values = new HashMap<>();
+    int[] pos = {skipWhitespace(json, 0)};
+    expect(json, pos, '{');
+
+    while(true)
+    {
+      pos[0] = skipWhitespace(json, pos[0]);
+      if(json.charAt(pos[0]) == '}')
+      {
+        return values;
+      }
+
+      String key = readString(json, pos);
+      pos[0] = skipWhitespace(json, pos[0]);
+      expect(json, pos, ':');
+      pos[0] = skipWhitespace(json, pos[0]);
+
+      String value;
+      if(json.charAt(pos[0]) == '"')
+      {
+        value = readString(json, pos);
+      }
+      else
+      {
+        int start = pos[0];
+        while(pos[0] < json.length() && ",} \t".indexOf(json.charAt(pos[0])) < 0)
+        {
+          pos[0]++;
+        }
+        value = json.substring(start, pos[0]);
+        value = value.equals("true") ? "1" : value.equals("false") ? "0" : value.equals("null") ? "" : value;
+      }
+      values.put(key, value);
+
+      pos[0] = skipWhitespace(json, pos[0]);
+      if(json.charAt(pos[0]) == ',')
+      {
+        pos[0]++;
+      }
+    }
+  }
+
+  private static int skipWhitespace(String json, int pos)
+  {
+    while(pos < json.length() && Character.isWhitespace(json.charAt(pos)))
+    {
+      pos++;
+    }
+    return pos;
+  }
+
+  private static void expect(String json, int[] pos, char c)
+  {
+    if(json.charAt(pos[0]) != c)
+    {
+      throw new IllegalArgumentException("Expected '" + c + "' at " + pos[0] + ": " + json);
+    }
+    pos[0]++;
+  }
+
+  private static String readString(String json, int[] pos)
+  {
+    expect(json, pos, '"');
+    StringBuilder value = new StringBuilder();
+    while(json.charAt(pos[0]) != '"')
+    {
+      char c = json.charAt(pos[0]++);
+      if(c == '\\')
+      {
+        c = json.charAt(pos[0]++);
+        if(c == 'u')
+        {
+          c = (char) Integer.parseInt(json.substring(pos[0], pos[0] + 4), 16);
+          pos[0] += 4;
+        }
+        else if(c == 't')
+        {
+          c = '\t';
+        }
+        else if(c == 'n')
+        {
+          c = '\n';
+        }
+      }
+      value.append(c);
+    }
+    pos[0]++;
+    return value.toString();
+  }
+}
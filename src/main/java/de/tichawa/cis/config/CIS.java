@@ -1,7 +1,6 @@
 package de.tichawa.cis.config;
 
 import de.tichawa.cis.config.mxcis.MXCIS;
-import de.tichawa.util.MathEval;
 import de.tichawa.util.Tuple;
 
 import java.io.BufferedReader;
@@ -11,21 +10,20 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.function.IntSupplier;
+import java.util.stream.IntStream;
 
 // Alle allgemeine CIS Funktionen
-public abstract class CIS
+public abstract class CIS implements Cloneable
 {
 
   public final String cisName;
 
   protected HashMap<String, Integer> spec;
-  protected HashMap<String, Integer[]> sensChipTab;
-  protected HashMap<String, Integer[]> sensBoardTab;
-  protected HashMap<String, Integer[]> adcBoardTab;
   protected HashMap<Integer, Integer> electConfig;
   protected HashMap<Integer, Integer> mechaConfig;
-  protected HashMap<Integer, Double[]> prices;
-  protected HashMap<Integer, String> idToKey;
+  protected PriceTable prices;
   protected Double[] electSums;
   protected Double[] mechaSums;
   protected Double[] totalPrices;
@@ -44,6 +42,42 @@ public abstract class CIS
     return Character.toString((char) (65 + x));
   }
 
+  // Kabel und Ports im Format der Datenblätter, z.B. "   Port A:   00000   - 00863   Rot"
+  protected String renderPorts(PortAssignment assignment)
+  {
+    StringBuilder printOut = new StringBuilder();
+    for(PortAssignment.Cable cable : assignment.getCables())
+    {
+      printOut.append("Camera Link ").append(cable.getNumber()).append(":\n");
+      for(PortAssignment.Port port : cable.getPorts())
+      {
+        printOut.append("   Port ").append(getPortName(port.getIndex())).append(":   ");
+        appendPixel(printOut, port.getFirstPixel()).append("   - ");
+        appendPixel(printOut, port.getLastPixel());
+        if(port.getColour() != null)
+        {
+          printOut.append("   ").append(getString(port.getColour().getKey()));
+        }
+        printOut.append("\n");
+      }
+    }
+    return printOut.toString();
+  }
+
+  // Wie String.format("%05d", pixel), ohne für jeden Port einen Formatter anzulegen
+  protected static StringBuilder appendPixel(StringBuilder printOut, int pixel)
+  {
+    if(pixel < 0 || pixel > 99999)
+    {
+      return printOut.append(String.format("%05d", pixel));
+    }
+    for(int digit = 10000; digit > 1 && pixel < digit; digit /= 10)
+    {
+      printOut.append('0');
+    }
+    return printOut.append(pixel);
+  }
+
   public CIS()
   {
     maxRateForHalfMode = new HashMap<>();
@@ -60,16 +94,21 @@ public abstract class CIS
     String fullName = this.getClass().getName();
     cisName = fullName.substring(fullName.lastIndexOf('.') + 1);
 
-    sensChipTab = readConfigTable("/de/tichawa/cis/config/sensChips.csv");
-    sensBoardTab = readConfigTable("/de/tichawa/cis/config/sensBoards.csv");
-    adcBoardTab = readConfigTable("/de/tichawa/cis/config/adcBoards.csv");
-
     spec = new HashMap<>();
   }
 
   public abstract String getCLCalc(int numOfPix);
 
-  public abstract String getTiViKey();
+  // Camera-Link-Belegung (siehe CameraLinkLayout), null wenn es keine gibt
+  public abstract PortAssignment getPortAssignment(int numOfPix);
+
+  public String getTiViKey()
+  {
+    return getTiViKey(getMechaVersion());
+  }
+
+  // Mit der Version aus Calculation.csv, die CalculationContext nur einmal je Kalkulation liest
+  protected abstract String getTiViKey(String mechaVersion);
 
   public String getBlKey()
   {
@@ -104,11 +143,7 @@ public abstract class CIS
 
     try
     {
-      String version = Files.lines(Launcher.tableHome.resolve("ldstd/Calculation.csv"))
-              .map(line -> line.split("\t"))
-              .filter(line -> line[0].equals("VERSION"))
-              .map(line -> line[1])
-              .findAny().orElse("2.0");
+      String version = TableCache.getCalculation("ldstd").getVersion();
 
       key += "_" + version + "_";
     }
@@ -130,12 +165,7 @@ public abstract class CIS
   {
     try
     {
-      int x = (int) Files.lines(Launcher.tableHome.resolve(getClass().getSimpleName() + "/Mechanics.csv"))
-              .limit(1)
-              .map(line -> line.split("\t"))
-              .flatMap(line -> Arrays.stream(line))
-              .filter(field -> field.startsWith("NL"))
-              .count();
+      int x = TableCache.getMechanics(getClass().getSimpleName()).getNLCount();
 
       if(getSpec("LDSTD") != null)
       {
@@ -154,11 +184,11 @@ public abstract class CIS
     locale = l;
   }
 
-  protected final HashMap<String, Integer[]> readConfigTable(String path)
+  protected static Map<String, Integer[]> readConfigTable(String path)
   {
     HashMap<String, Integer[]> map = new HashMap<>();
 
-    try(BufferedReader reader = new BufferedReader(new InputStreamReader(getClass().getResourceAsStream(path), StandardCharsets.UTF_8)))
+    try(BufferedReader reader = new BufferedReader(new InputStreamReader(CIS.class.getResourceAsStream(path), StandardCharsets.UTF_8)))
     {
       String line;
 
@@ -180,37 +210,22 @@ public abstract class CIS
       throw new CISException("Error in table " + path);
     }
 
-    return map;
+    return Collections.unmodifiableMap(map);
   }
 
-  public Integer[] getADC(String name)
+  public SensorCatalogue.Adc getADC(String name)
   {
-    if(adcBoardTab.containsKey(name))
-    {
-      return adcBoardTab.get(name);
-    }
-
-    return null;
+    return SensorCatalogue.get().getAdc(name);
   }
 
-  public Integer[] getSensBoard(String name)
+  public SensorCatalogue.Board getSensBoard(String name)
   {
-    if(sensBoardTab.containsKey(name))
-    {
-      return sensBoardTab.get(name);
-    }
-
-    return null;
+    return SensorCatalogue.get().getBoard(name);
   }
 
-  public Integer[] getSensChip(String name)
+  public SensorCatalogue.Chip getSensChip(String name)
   {
-    if(sensChipTab.containsKey(name))
-    {
-      return sensChipTab.get(name);
-    }
-
-    return null;
+    return SensorCatalogue.get().getChip(name);
   }
 
   public final void setSpec(String key, int value)
@@ -233,116 +248,136 @@ public abstract class CIS
     return Math.round(Math.pow(10.0, digits) * value) / Math.pow(10.0, digits);
   }
 
-  public boolean calculate()
+  // Kalkuliert auf einer Kopie, damit mehrere Kalkulationen gleichzeitig laufen können
+  public CalculationResult calculate()
   {
-    mechaSums = new Double[5];
-    electSums = new Double[5];
-    totalPrices = new Double[4];
-    mechaConfig = new HashMap<>();
-    electConfig = new HashMap<>();
-    prices = new HashMap<>();
-    idToKey = new HashMap<>();
+    return calculate(null, null);
+  }
+
+  // Mit RowMemo werden nur die Zeilen neu ausgewertet, deren Eingaben sich seit dem letzten Aufruf geändert haben
+  CalculationResult calculate(RowMemo electMemo, RowMemo mechaMemo)
+  {
+    return calculate(electMemo, mechaMemo, null);
+  }
 
+  // Mit changedKeys entscheidet der DependencyIndex, welche Zeilen gegenüber dem Stand im RowMemo neu ausgewertet werden
+  CalculationResult calculate(RowMemo electMemo, RowMemo mechaMemo, Collection<String> changedKeys)
+  {
+    return calculate(electMemo, mechaMemo, changedKeys, null);
+  }
+
+  // Mit einer anderen Preisliste, z.B. dem Stand vor dem letzten FERIX-Update (siehe ImpactReport)
+  CalculationResult calculate(PriceTable prices)
+  {
+    return calculate(null, null, null, prices);
+  }
+
+  // Unter der Lesesperre des TableCache, ein TableWatcher tauscht die Tabellen nicht mitten in der Kalkulation aus.
+  // Eine Konfiguration, die das Interface nicht zulässt, wird vorher ohne Tabellenzugriff abgelehnt.
+  private CalculationResult calculate(RowMemo electMemo, RowMemo mechaMemo, Collection<String> changedKeys, PriceTable prices)
+  {
+    Lock lock = TableCache.readLock();
+    lock.lock();
     try
     {
-      Files.lines(Launcher.tableHome.resolve("Prices.csv"))
-              .map(line -> line.split("\t"))
-              .filter(line -> isInteger(line[0]))
-              .forEach(line ->
-              {
-                int artnum = Integer.parseInt(line[0].replace("X", ""));
-                Double[] values = new Double[Math.max(line.length - 2, 5)];
-                for(int x = 2; x < Math.max(line.length, 6); x++)
-                {
-                  try
-                  {
-                    values[x - 2] = Double.parseDouble(line[x]);
-                  }
-                  catch(NumberFormatException | ArrayIndexOutOfBoundsException ex)
-                  {
-                    values[x - 2] = null;
-                  }
-                }
-                idToKey.put(artnum, line[1]);
-                prices.put(artnum, values);
-              });
+      CIS snapshot = copy();
+      snapshot.checkFeasibility();
+      snapshot.compute(electMemo, mechaMemo, changedKeys, prices);
+      return new CalculationResult(snapshot);
     }
-    catch(IOException ex)
+    finally
     {
-      throw new CISException("Error in Prices.csv");
+      lock.unlock();
     }
+  }
 
-    //Electronics
-    int sensPerFpga;
-
-    if(getSpec("res_cp2") != null && getSpec("res_cp2") > 600)
+  protected CIS copy()
+  {
+    try
     {
-      sensPerFpga = 1;
+      CIS copy = (CIS) super.clone();
+      copy.spec = new HashMap<>(spec);
+      return copy;
     }
-    else if((getSpec("VDCIS") != null && getSpec("Color") > 2) || (getSpec("VDCIS") == null && getSpec("Color") > 1))
+    catch(CloneNotSupportedException e)
     {
-      //FULL (RGB)
-      sensPerFpga = 2;
+      throw new IllegalStateException(e);
     }
-    else if(getSpec("res_cp2") != null && maxRateForHalfMode.get(getSpec("res_cp2")) != null && (getSpec("Selected line rate") / 1000.0) <= maxRateForHalfMode.get(getSpec("res_cp2")))
+  }
+
+  private void compute(RowMemo electMemo, RowMemo mechaMemo, Collection<String> changedKeys, PriceTable priceTable)
+  {
+    mechaSums = new Double[5];
+    electSums = new Double[5];
+    totalPrices = new Double[4];
+    mechaConfig = new HashMap<>();
+    electConfig = new HashMap<>();
+
+    try
     {
-      //HALF
-      sensPerFpga = 4;
+      prices = priceTable == null ? TableCache.getPrices() : priceTable;
     }
-    else
+    catch(IOException ex)
     {
-      //FULL
-      sensPerFpga = 2;
+      throw new CISException("Error in Prices.csv");
     }
 
+    //Electronics
+    int sensPerFpga = getSensPerFpga();
     setSpec("MODE", sensPerFpga);
 
     double lengthPerSens = BASE_LENGTH * sensPerFpga;
     numFPGA = (int) Math.ceil(getSpec("sw_cp") / lengthPerSens);
+    CalculationContext context = new CalculationContext(this);
+
+    double[] frame = createFrame();
 
+    Set<String> fpgaKeys = Collections.emptySet();
     try
     {
       // Einlesen der Elektronik-Tabelle
-      Files.lines(Launcher.tableHome.resolve(getClass().getSimpleName() + "/Electronics.csv"))
-              .skip(1)
-              .map(line -> line.split("\t"))
-              .filter(line -> line[0].length() > 0)
-              .map(line -> new Tuple<>(line, (int) (getAmount(line) * getElectFactor(line[3])
-              * MathEval.evaluate(line[4 + getSpec("sw_index")]
-                  .replace(" ", "")
-                  .replace("L", "" + getSpec("LEDLines"))
-                  .replace("F", "" + numFPGA)
-                  .replace("S", "" + getSpec("sw_cp") / BASE_LENGTH)
-                  .replace("N", "" + getSpec("sw_cp"))))))
+      ElectronicsTable electTable = TableCache.getElectronics(getClass().getSimpleName());
+      List<ElectronicsTable.Row> electRows = electTable.getRows();
+      fpgaKeys = electTable.getDependencies().getFpgaKeys();
+      if(electMemo != null)
+      {
+        electMemo.prepare(electRows, changedKeys == null ? null : electTable.getDependencies().getRows(changedKeys));
+      }
+      int swIndex = getSpec("sw_index");
+      IntStream.range(0, electRows.size())
+              .mapToObj(i ->
+              {
+                ElectronicsTable.Row row = electRows.get(i);
+                Formula formula = row.getFormula(swIndex);
+                frame[Formula.FPGAS] = numFPGA;
+                IntSupplier amount = () -> (int) (getAmount(row.getCondition(), context) * getElectFactor(row.getFactor())
+                        * formula.evaluate(frame));
+                return new Tuple<>(row, electMemo == null ? amount.getAsInt()
+                        : electMemo.get(i, context.getFeatures() & row.getCondition().getMask(), swIndex, frame, row.getVariables(swIndex), amount));
+              })
               .filter(data -> data.getV() > 0)
               .forEach(data ->
               {
-                String[] line = data.getU();
+                ElectronicsTable.Row row = data.getU();
                 int amount = data.getV();
-                electConfig.put(Integer.parseInt(line[1]), amount);
+                electConfig.put(row.getItemNo(), amount);
 
-                if(prices.containsKey(Integer.parseInt(line[1])))
+                int item = prices.indexOf(row.getItemNo());
+                if(item >= 0)
                 {
-                  Double[] pricelist = prices.get(Integer.parseInt(line[1]));
-                  if(pricelist.length < 4)
-                  {
-                    pricelist = new Double[]
-                    {
-                      0.0, 0.0, 0.0, 0.0, 1.0
-                    };
-                  }
-
+                  //Leere Werte stehen als 0.0 in der Tabelle und werden übersprungen
                   for(int x = 0; x < electSums.length; x++)
                   {
-                    if(pricelist[x] != null && pricelist[x] != 0)
+                    double value = prices.get(item, x);
+                    if(value != 0)
                     {
-                      if(x < 4)
+                      if(x < PriceTable.FACTOR)
                       {
                         if(electSums[x] == null)
                         {
                           electSums[x] = 0.0;
                         }
-                        electSums[x] += pricelist[x] * amount;
+                        electSums[x] += value * amount;
                       }
                       else
                       {
@@ -350,13 +385,13 @@ public abstract class CIS
                         {
                           electSums[x] = 100.0;
                         }
-                        electSums[x] = Math.min(electSums[x], pricelist[x]);
+                        electSums[x] = Math.min(electSums[x], value);
                       }
                     }
                   }
                 }
 
-                if(line[2].contains("FPGA"))
+                if(row.getCondition().contains("FPGA"))
                 {
                   numFPGA += amount;
                 }
@@ -376,36 +411,47 @@ public abstract class CIS
     try
     {
       int index = getSpec("LDSTD") == null ? getSpec("Internal Light Source") : getSpec("sw_index");
-      Files.lines(Launcher.tableHome.resolve(getClass().getSimpleName() + "/Mechanics.csv"))
-              .skip(1)
-              .map(line -> line.split("\t"))
-              .filter(line -> line[0].length() > 0)
-              .filter(line -> line[3 + getSpec("sw_index")].length() > 0)
-              .map(line -> {
-                return new Tuple<>(line, getAmount(line) * getMechaFactor(line[3 + countNLs() + index]));
-                        })
+      int swIndex = getSpec("sw_index");
+      int column = context.getNLCount() + index;
+      frame[Formula.FPGAS] = numFPGA;
+      MechanicsTable mechaTable = TableCache.getMechanics(getClass().getSimpleName());
+      List<MechanicsTable.Row> mechaRows = mechaTable.getRows();
+      if(mechaMemo != null)
+      {
+        mechaMemo.prepare(mechaRows, changedKeys == null ? null : mechaTable.getDependencies().withFpgaKeys(fpgaKeys).getRows(changedKeys));
+      }
+      IntStream.range(0, mechaRows.size())
+              .filter(i -> mechaRows.get(i).hasItem(swIndex))
+              .mapToObj(i ->
+              {
+                MechanicsTable.Row row = mechaRows.get(i);
+                Formula factor = row.getFactor(column);
+                IntSupplier amount = () -> getAmount(row.getCondition(), context) * (int) factor.evaluate(frame);
+                return new Tuple<>(row, mechaMemo == null ? amount.getAsInt()
+                        : mechaMemo.get(i, context.getFeatures() & row.getCondition().getMask(), column, frame, factor.getVariables(), amount));
+              })
               .filter(data -> data.getV() > 0)
               .forEach(data ->
               {
-                String[] line = data.getU();
+                MechanicsTable.Row row = data.getU();
                 int amount = data.getV();
-                mechaConfig.put(Integer.parseInt(line[3 + getSpec("sw_index")].replace("X", "")), amount);
+                mechaConfig.put(row.getItemNo(swIndex), amount);
 
-                if(prices.containsKey(Integer.parseInt(line[3 + getSpec("sw_index")].replace("X", ""))))
+                int item = prices.indexOf(row.getItemNo(swIndex));
+                if(item >= 0)
                 {
-                  Double[] pricelist = prices.get(Integer.parseInt(line[3 + getSpec("sw_index")]));
-
                   for(int x = 0; x < mechaSums.length; x++)
                   {
-                    if(pricelist[x] != null && pricelist[x] != 0)
+                    double value = prices.get(item, x);
+                    if(value != 0)
                     {
-                      if(x < 4)
+                      if(x < PriceTable.FACTOR)
                       {
                         if(mechaSums[x] == null)
                         {
                           mechaSums[x] = 0.0;
                         }
-                        mechaSums[x] += pricelist[x] * amount;
+                        mechaSums[x] += value * amount;
                       }
                       else
                       {
@@ -413,7 +459,7 @@ public abstract class CIS
                         {
                           mechaSums[x] = 1.0;
                         }
-                        mechaSums[x] *= pricelist[x];
+                        mechaSums[x] *= value;
                       }
                     }
                   }
@@ -432,10 +478,313 @@ public abstract class CIS
 
     if(getSpec("LDSTD") == null)
     {
-      setSpec("numOfPix", calcNumOfPix());
+      setSpec("numOfPix", getNumOfPix());
     }
+  }
 
-    return true;
+  // Variablen der Formeln ohne FPGAS, das setzt compute() je Zeile
+  double[] createFrame()
+  {
+    double[] frame = new double[Formula.FRAME_SIZE];
+    frame[Formula.LED_LINES] = getLEDLines();
+    frame[Formula.SENSORS] = getSpec("sw_cp") / BASE_LENGTH;
+    frame[Formula.SCAN_WIDTH] = getSpec("sw_cp");
+    return frame;
+  }
+
+  //Masken ohne Lichtzeilen setzen "LEDLines" nicht
+  int getLEDLines()
+  {
+    Integer ledLines = getSpec("LEDLines");
+    return ledLines == null ? 0 : ledLines;
+  }
+
+  private int getSensPerFpga()
+  {
+    if(getSpec("res_cp2") != null && getSpec("res_cp2") > 600)
+    {
+      return 1;
+    }
+    else if((getSpec("VDCIS") != null && getSpec("Color") > 2) || (getSpec("VDCIS") == null && getSpec("Color") > 1))
+    {
+      //FULL (RGB)
+      return 2;
+    }
+    else if(getSpec("res_cp2") != null && maxRateForHalfMode.get(getSpec("res_cp2")) != null && (getSpec("Selected line rate") / 1000.0) <= maxRateForHalfMode.get(getSpec("res_cp2")))
+    {
+      //HALF
+      return 4;
+    }
+    else
+    {
+      //FULL
+      return 2;
+    }
+  }
+
+  // Preise, Gewicht, Leistung und FPGAs für alle Scanbreiten der Familie (ScanWidthSweep.getScanWidths) bei sonst gleicher Spezifikation.
+  // Jede Zeile der Elektronik-/Mechaniktabelle wird nur einmal angefasst und für alle Scanbreiten-Spalten ausgewertet.
+  public ScanWidthSweep sweepScanWidths()
+  {
+    Lock lock = TableCache.readLock();
+    lock.lock();
+    try
+    {
+      return copy().sweep(ScanWidthSweep.getScanWidths(getClass().getSimpleName()));
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  // Wie compute() und createCalculationSheet(), aber je Scanbreite nur die Summen. Leere Summen stehen als NaN,
+  // eine Scanbreite ohne Preis (in calculate() MissingConfigTables) oder ohne passendes Interface bekommt NaN als Preis.
+  private ScanWidthSweep sweep(int[] widths)
+  {
+    int n = widths.length;
+    int[] swIndices = new int[n];
+    boolean[] feasible = new boolean[n];
+    for(int w = 0; w < n; w++)
+    {
+      swIndices[w] = ScanWidthSweep.getSWIndex(getClass().getSimpleName(), widths[w]);
+      setSpec("sw_cp", widths[w]);
+      setSpec("sw_index", swIndices[w]);
+      feasible[w] = isFeasible(getFeasibility(), getSpec("Selected line rate"));
+    }
+
+    PriceTable priceTable;
+    Map<String, Integer> calcMap;
+    try
+    {
+      priceTable = TableCache.getPrices();
+      calcMap = TableCache.getCalculation(getClass().getSimpleName()).getConstants();
+    }
+    catch(IOException ex)
+    {
+      throw new CISException(getString("MissingConfigTables"));
+    }
+
+    int sensPerFpga = getSensPerFpga();
+    setSpec("MODE", sensPerFpga);
+    CalculationContext context = new CalculationContext(this);
+
+    int[] fpgas = new int[n];
+    double[][] frames = new double[n][Formula.FRAME_SIZE];
+    for(int w = 0; w < n; w++)
+    {
+      fpgas[w] = (int) Math.ceil(widths[w] / (double) (BASE_LENGTH * sensPerFpga));
+      frames[w][Formula.LED_LINES] = getLEDLines();
+      frames[w][Formula.SENSORS] = widths[w] / BASE_LENGTH;
+      frames[w][Formula.SCAN_WIDTH] = widths[w];
+    }
+
+    double[][] electSums = new double[n][PriceTable.FACTOR + 1];
+    double[][] mechaSums = new double[n][PriceTable.FACTOR + 1];
+    for(int w = 0; w < n; w++)
+    {
+      Arrays.fill(electSums[w], Double.NaN);
+      Arrays.fill(mechaSums[w], Double.NaN);
+    }
+
+    try
+    {
+      for(ElectronicsTable.Row row : TableCache.getElectronics(getClass().getSimpleName()).getRows())
+      {
+        int factor = getAmount(row.getCondition(), context) * getElectFactor(row.getFactor());
+        if(factor == 0)
+        {
+          continue;
+        }
+        int item = priceTable.indexOf(row.getItemNo());
+        boolean fpga = row.getCondition().contains("FPGA");
+        for(int w = 0; w < n; w++)
+        {
+          frames[w][Formula.FPGAS] = fpgas[w];
+          int amount = (int) (factor * row.getFormula(swIndices[w]).evaluate(frames[w]));
+          if(amount > 0)
+          {
+            addPrices(electSums[w], priceTable, item, amount, false);
+            if(fpga)
+            {
+              fpgas[w] += amount;
+            }
+          }
+        }
+      }
+    }
+    catch(IOException e)
+    {
+      throw new CISException("Error in Electronics.csv");
+    }
+
+    try
+    {
+      MechanicsTable mechaTable = TableCache.getMechanics(getClass().getSimpleName());
+      int nlCount = context.getNLCount();
+      boolean ldstd = getSpec("LDSTD") != null;
+      for(int w = 0; w < n; w++)
+      {
+        frames[w][Formula.FPGAS] = fpgas[w];
+      }
+      for(MechanicsTable.Row row : mechaTable.getRows())
+      {
+        int amount = getAmount(row.getCondition(), context);
+        for(int w = 0; w < n && amount > 0; w++)
+        {
+          if(row.hasItem(swIndices[w]))
+          {
+            int column = nlCount + (ldstd ? swIndices[w] : getSpec("Internal Light Source"));
+            int rowAmount = amount * (int) row.getFactor(column).evaluate(frames[w]);
+            if(rowAmount > 0)
+            {
+              addPrices(mechaSums[w], priceTable, priceTable.indexOf(row.getItemNo(swIndices[w])), rowAmount, true);
+            }
+          }
+        }
+      }
+    }
+    catch(IOException e)
+    {
+      throw new CISException("Error in Mechanics.csv");
+    }
+
+    double surcharge = getSurcharge(calcMap);
+    int addition = calcMap.get("LIZENZ");
+    double[][] prices = new double[4][n];
+    double[] weights = new double[n];
+    double[] power = new double[n];
+    for(int w = 0; w < n; w++)
+    {
+      double[] basePrices = getBasePrices(calcMap, electSums[w][PriceTable.PRICE], electSums[w][PriceTable.TIME], mechaSums[w][PriceTable.PRICE], widths[w]);
+      for(int x = 0; x < prices.length; x++)
+      {
+        prices[x][w] = feasible[w] ? basePrices[x] * (1 + surcharge) + addition : Double.NaN;
+      }
+      weights[w] = (Double.isNaN(electSums[w][PriceTable.WEIGHT]) ? 0.0 : electSums[w][PriceTable.WEIGHT])
+              + (Double.isNaN(mechaSums[w][PriceTable.WEIGHT]) ? 0.0 : mechaSums[w][PriceTable.WEIGHT]);
+      power[w] = Double.isNaN(electSums[w][PriceTable.POWER]) ? 0.0 : electSums[w][PriceTable.POWER];
+    }
+    return new ScanWidthSweep(widths, prices, weights, power, fpgas, feasible);
+  }
+
+  // Abschnitte der Zeilenfrequenz von minRate bis maxRate (Hz), in denen MODE, TiViKey, Taps und Machbarkeit gleich bleiben, mit Preisen.
+  // Die Grenzen werden aus den Schwellen berechnet (MODE, Interface, getLineRateStepEnd der Familie), kalkuliert wird einmal je Abschnitt.
+  public LineRateSweep sweepLineRates(int minRate, int maxRate)
+  {
+    Lock lock = TableCache.readLock();
+    lock.lock();
+    try
+    {
+      return copy().sweep(minRate, maxRate);
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  private LineRateSweep sweep(int minRate, int maxRate)
+  {
+    LineRateSweep sweep = new LineRateSweep();
+    Feasibility feasibility = getFeasibility();
+    Integer halfMode = getSpec("res_cp2") == null ? null : maxRateForHalfMode.get(getSpec("res_cp2"));
+    String mechaVersion = getMechaVersion();
+
+    int lineRate = minRate;
+    while(lineRate <= maxRate)
+    {
+      setSpec("Selected line rate", lineRate);
+      int end = Math.max(lineRate, getLineRateStepEnd());
+      if(halfMode != null && lineRate / 1000.0 <= halfMode)
+      {
+        end = Math.min(end, halfMode * 1000);
+      }
+      if(feasibility.getLimit() != Feasibility.Limit.NONE && feasibility.isFeasible(lineRate))
+      {
+        end = Math.min(end, feasibility.getMaxLineRate());
+      }
+      end = Math.min(end, maxRate);
+
+      int mode = getSensPerFpga();
+      String key = getTiViKey(mechaVersion);
+      boolean feasible = isFeasible(feasibility, lineRate);
+      int taps = 0;
+      double[] totals = new double[4];
+      Arrays.fill(totals, Double.NaN);
+      if(feasible)
+      {
+        CIS snapshot = copy();
+        snapshot.compute(null, null, null, null);
+        CalculationResult result = new CalculationResult(snapshot);
+        totals = getTotals(result);
+        try
+        {
+          PortAssignment assignment = result.getPortAssignment();
+          taps = assignment == null ? 0 : assignment.getTaps();
+        }
+        catch(CISException | ArithmeticException e)
+        {
+          //Keine Belegung, z.B. 0 Taps bei sehr kleiner Zeilenfrequenz
+          taps = 0;
+        }
+      }
+      sweep.add(lineRate, end, mode, key, taps, feasible, totals);
+
+      if(end == Integer.MAX_VALUE)
+      {
+        break;
+      }
+      lineRate = end + 1;
+    }
+    return sweep;
+  }
+
+  //NaN ohne Preis (MissingConfigTables)
+  private static double[] getTotals(CalculationResult result)
+  {
+    double[] totals = new double[4];
+    try
+    {
+      Double[] totalPrices = result.getTotalPrices();
+      for(int x = 0; x < totals.length; x++)
+      {
+        totals[x] = totalPrices[x];
+      }
+    }
+    catch(CISException e)
+    {
+      Arrays.fill(totals, Double.NaN);
+    }
+    return totals;
+  }
+
+  // Wie in compute(): Summen je Spalte, Faktor als Minimum (Elektronik, Start 100) bzw. Produkt (Mechanik, Start 1)
+  private static void addPrices(double[] sums, PriceTable priceTable, int item, int amount, boolean mechanics)
+  {
+    if(item < 0)
+    {
+      return;
+    }
+    for(int x = 0; x < sums.length; x++)
+    {
+      double value = priceTable.get(item, x);
+      if(value != 0)
+      {
+        if(x < PriceTable.FACTOR)
+        {
+          sums[x] = (Double.isNaN(sums[x]) ? 0.0 : sums[x]) + value * amount;
+        }
+        else if(mechanics)
+        {
+          sums[x] = (Double.isNaN(sums[x]) ? 1.0 : sums[x]) * value;
+        }
+        else
+        {
+          sums[x] = Math.min(Double.isNaN(sums[x]) ? 100.0 : sums[x], value);
+        }
+      }
+    }
   }
 
   public String getVersion()
@@ -447,11 +796,7 @@ public abstract class CIS
   {
     try
     {
-      return "_" + Files.lines(Launcher.tableHome.resolve(getClass().getSimpleName() + "/Calculation.csv"))
-              .map(line -> line.split("\t"))
-              .filter(line -> line[0].equals("VERSION"))
-              .map(line -> line[1])
-              .findAny().orElse("2.0") + "_";
+      return "_" + TableCache.getCalculation(getClass().getSimpleName()).getVersion() + "_";
     }
     catch(IOException e)
     {
@@ -466,16 +811,21 @@ public abstract class CIS
 
   @SuppressWarnings("fallthrough")
   public String createPrntOut()
+  {
+    String[] dataSheet = createDataSheet();
+    return dataSheet == null ? null : String.join("\n\t\n", dataSheet);
+  }
+
+  // Kopf, technische Daten und Interface-Konfiguration des Datenblatts
+  public String[] createDataSheet()
   {
     if(getSpec("LDSTD") != null)
     {
-      return createBlPrntOut();
+      return createBlDataSheet();
     }
 
     String key = getTiViKey();
-    String printout = key;
-    printout += "\n\t\n";
-    printout += getSpec("sw_cp") + " mm, Trigger: " + (getSpec("External Trigger") == 0 ? "CC1" : "extern (RS422)");
+    String printout = getSpec("sw_cp") + " mm, Trigger: " + (getSpec("External Trigger") == 0 ? "CC1" : "extern (RS422)");
 
     if(key.contains("MXCIS"))
     {
@@ -648,7 +998,7 @@ public abstract class CIS
       printout += getString("scan distance") + ": ~ 10 mm " + getString("exactseetypesign") + "\n";
       printout += getString("DepthofField") + ": ~ +/- " + dof[dof.length - (getSpec("Resolution") + 1)] + " mm\n" + getString("line width") + ": ~ 1 mm\n";
       printout += getString("case length") + ": ~ " + (getSpec("sw_cp") + 288) + " mm\n";
-      if(getSpec("LEDLines") < 2)
+      if(getLEDLines() < 2)
       {
         printout += getString("alucase_mxcis") + "\n";
       }
@@ -756,23 +1106,20 @@ public abstract class CIS
         return null;
       }
 
-      printout += "\n\t\n";
-      printout += clCalc;
+      return new String[]{key, printout, clCalc};
     }
     else
     {
-      printout += "\n\t\n";
-      printout += "Pixel Clock: 40MHz\n";
-      printout += getString("numofpix") + numOfPix + "\n";
+      String clConfig = "Pixel Clock: 40MHz\n";
+      clConfig += getString("numofpix") + numOfPix + "\n";
+      return new String[]{key, printout, clConfig};
     }
-    return printout;
   }
 
-  private String createBlPrntOut()
+  private String[] createBlDataSheet()
   {
-    String printout = getTiViKey();
-    printout += "\n\t\n";
-    printout += getString("suitedfor") + getSpec("sw_cp") + getString("mm CIS scan width") + "\n";
+    String key = getTiViKey();
+    String printout = getString("suitedfor") + getSpec("sw_cp") + getString("mm CIS scan width") + "\n";
 
     String color = "";
 
@@ -808,17 +1155,16 @@ public abstract class CIS
     }
 
     printout += getString("Color:") + color + "\n";
-    printout += "\n\t\n";
-    printout += getString("line width") + ": ~ 1 mm\n";
-    printout += getString("case length") + ": ~ " + (getSpec("sw_cp") + 100) + " mm\n";
-    printout += getString("Aluminium case profile: 53x50mm (HxT) with bondedmxled") + "\n";
-    printout += getString("glass pane, see drawing") + "\n";
-    printout += getString("shading") + "\n";
-    printout += getString("powersource") + "(24 +/- 1) VDC\n";
-    printout += getString("Needed power:") + (((electSums[2] == null) ? 0.0 : (Math.round(10.0 * electSums[2]) / 10.0)) + " A").replace(" 0 A", " ???") + " +/- 20%\n";
-    printout += getString("weight") + ": ~ " + (Math.round((((electSums[3] == null) ? 0.0 : electSums[3]) + ((mechaSums[3] == null) ? 0.0 : mechaSums[3])) * 10) / 10.0 + " kg").replace(" 0 kg", " ???") + "\n";
-
-    return printout;
+    String details = getString("line width") + ": ~ 1 mm\n";
+    details += getString("case length") + ": ~ " + (getSpec("sw_cp") + 100) + " mm\n";
+    details += getString("Aluminium case profile: 53x50mm (HxT) with bondedmxled") + "\n";
+    details += getString("glass pane, see drawing") + "\n";
+    details += getString("shading") + "\n";
+    details += getString("powersource") + "(24 +/- 1) VDC\n";
+    details += getString("Needed power:") + (((electSums[2] == null) ? 0.0 : (Math.round(10.0 * electSums[2]) / 10.0)) + " A").replace(" 0 A", " ???") + " +/- 20%\n";
+    details += getString("weight") + ": ~ " + (Math.round((((electSums[3] == null) ? 0.0 : electSums[3]) + ((mechaSums[3] == null) ? 0.0 : mechaSums[3])) * 10) / 10.0 + " kg").replace(" 0 kg", " ???") + "\n";
+
+    return new String[]{key, printout, details};
   }
 
   public Double[] getMechaSums()
@@ -831,110 +1177,14 @@ public abstract class CIS
     return electSums;
   }
 
-  private int getAmount(String[] row)
+  public Double[] getTotalPrices()
   {
-    boolean proceed;
-    String key = getTiViKey();
-    String[] multiplier = row[2].split("&");
-
-    boolean invert;
-    for(String m : multiplier)
-    {
-      invert = m.startsWith("!");
-      m = (invert ? m.substring(1) : m);
-
-      switch(m)
-      {
-        case "": //No code
-        case "FPGA": //Notifier for FPGA parts, ignore and proceed
-          proceed = !invert; //!invert ^ invert == true
-          break;
-        case "RGB": //Color coding
-        case "AM":
-        case "BL":
-        case "GR":
-        case "IR":
-        case "YE":
-        case "WH":
-          proceed = getSpec("Internal Light Source") > 0 && (key.split("_")[4].contains(m) || (getSpec("MXCIS") != null && key.split("_")[5].contains(m)));
-          break;
-        case "MONO": //Monochrome only
-          proceed = !getTiViKey().contains("RGB");
-          break;
-        case "25dpi": //Specific resolution
-        case "50dpi":
-        case "75dpi":
-        case "100dpi":
-        case "150dpi":
-        case "200dpi":
-        case "300dpi":
-        case "400dpi":
-        case "600dpi":
-        case "1200dpi":
-        case "2400dpi":
-          proceed = m.equals(getSpec("res_cp") + "dpi");
-          break;
-        case "GIGE": //GigE only
-          proceed = getSpec("Interface") != null && getSpec("Interface") == 1;
-          break;
-        case "CL": //CameraLink only
-          proceed = getSpec("Interface") != null && spec.get("Interface") == 0;
-          break;
-        case "COAX": //At least one coaxial light
-          proceed = key.split("_")[4].endsWith("C") || (getSpec("MXCIS") != null && key.split("_")[5].endsWith("C"));
-          break;
-        case "DIFF":
-          proceed = !(key.split("_")[4].endsWith("C") || (getSpec("MXCIS") != null && key.split("_")[5].endsWith("C"))) //No coaxial light
-                  || (key.split("_")[4].startsWith("2") || (getSpec("MXCIS") != null && key.split("_")[5].startsWith("2"))); //Twosided => at least one diffuse (2XX oder 2XXC)
-          break;
-        case "NOCO": //Specific cooling
-        case "FAIR":
-        case "PAIR":
-        case "LICO":
-          proceed = key.contains(m);
-          break;
-        case "default": //Default cooling
-          proceed = !key.contains("NOCO") && !key.contains("FAIR") && !key.contains("PAIR") && !key.contains("LICO");
-          break;
-        case "NOEXT": //No external trigger
-          proceed = getSpec("External Trigger") == 0;
-          break;
-        case "EXT": //With external trigger
-          proceed = getSpec("External Trigger") == 1;
-          break;
-        case "L": //MODE: LOW (MXCIS only)
-          proceed = getSpec("MXCIS") != null && getSpec("MODE") == 4;
-          break;
-        case "H": //Mode: HIGH (MXCIS only)
-          proceed = getSpec("MXCIS") != null && getSpec("MODE") == 2;
-          break;
-        default: //Unknown modifier
-          proceed = invert; //invert ^ invert == false
-          break;
-      }
-
-      proceed = invert ^ proceed;
-
-      if(!proceed)
-      {
-        return 0;
-      }
-    }
-
-    return 1;
+    return totalPrices;
   }
 
-  private int getMechaFactor(String factor)
+  private int getAmount(Condition condition, CalculationContext context)
   {
-    if(isInteger(factor))
-    {
-      return Integer.parseInt(factor);
-    }
-    else
-    {
-      String ev = factor.replace("F", "" + numFPGA).replace("S", "" + getSpec("sw_cp") / BASE_LENGTH).replace("N", "" + getSpec("sw_cp")).replace(" ", "").replace("L", "" + getSpec("LEDLines"));
-      return (int) MathEval.evaluate(ev);
-    }
+    return condition.matches(context.getFeatures()) ? 1 : 0;
   }
 
   private int getElectFactor(String factor)
@@ -945,12 +1195,12 @@ public abstract class CIS
     }
     else if(factor.equals("L"))
     {
-      return getSpec("LEDLines");
+      return getLEDLines();
     }
     else if(factor.contains("=="))
     {
       String[] splitted = factor.split("==");
-      if(splitted[0].equals("L") && isInteger(splitted[1]) && getSpec("LEDLines") == Integer.parseInt(splitted[1]))
+      if(splitted[0].equals("L") && isInteger(splitted[1]) && getLEDLines() == Integer.parseInt(splitted[1]))
       {
         return 1;
       }
@@ -958,7 +1208,7 @@ public abstract class CIS
     else if(factor.contains(">"))
     {
       String[] splitted = factor.split(">");
-      if(splitted[0].equals("L") && isInteger(splitted[1]) && getSpec("LEDLines") > Integer.parseInt(splitted[1]))
+      if(splitted[0].equals("L") && isInteger(splitted[1]) && getLEDLines() > Integer.parseInt(splitted[1]))
       {
         return 1;
       }
@@ -966,7 +1216,7 @@ public abstract class CIS
     else if(factor.contains("<"))
     {
       String[] splitted = factor.split("<");
-      if(splitted[0].equals("L") && isInteger(splitted[1]) && getSpec("LEDLines") < Integer.parseInt(splitted[1]))
+      if(splitted[0].equals("L") && isInteger(splitted[1]) && getLEDLines() < Integer.parseInt(splitted[1]))
       {
         return 1;
       }
@@ -987,158 +1237,72 @@ public abstract class CIS
 
   public String createCalculation()
   {
-    String printout = getTiViKey() + "\n\t\n";
-    StringBuilder electOutput = new StringBuilder(getString("Electronics")).append(":").append("\n\n");
-    StringBuilder mechaOutput = new StringBuilder(getString("Mechanics")).append(":").append("\n\n");
-    StringBuilder totalOutput = new StringBuilder(getString("Totals")).append(":").append("\n\n");
-
-    electOutput.append(getString("Component")).append("\t")
-            .append(getString("Item no.")).append("\t")
-            .append(getString("Amount")).append("\t")
-            .append(getString("Price/pc (EUR)")).append("\t")
-            .append(getString("Weight/pc (kg)")).append("\t")
-            .append(getString("Time/pc (h)")).append("\t")
-            .append(getString("Power/pc (A)")).append("\n");
-
-    mechaOutput.append(getString("Component")).append("\t")
-            .append(getString("Item no.")).append("\t")
-            .append(getString("Amount")).append("\t")
-            .append(getString("Price/pc (EUR)")).append("\t")
-            .append(getString("Weight/pc (kg)")).append("\n");
-
-    getElectConfig().forEach((id, value) ->
-    {
-      String key = idToKey.get(id);
-
-      electOutput.append(key).append("\t")
-          .append(String.format("%05d", id)).append("\t")
-          .append(value).append("\t")
-          .append(String.format(getLocale(), "%.2f", (prices.get(id) == null ? 0.0 : prices.get(id)[0]))).append("\t")
-          .append(String.format(getLocale(), "%.2f", (prices.get(id) == null ? 0.0 : prices.get(id)[3]))).append("\t")
-          .append(String.format(getLocale(), "%.2f", (prices.get(id) == null ? 0.0 : prices.get(id)[1]))).append("\t")
-          .append(String.format(getLocale(), "%.2f", (prices.get(id) == null ? 0.0 : prices.get(id)[2]))).append("\n");
-    });
-    electOutput.append("\n\t\n").append(getString("Totals")).append("\t")
-            .append(" \t")
-            .append("0\t")
-            .append(String.format(getLocale(), "%.2f", electSums[0])).append("\t")
-            .append(String.format(getLocale(), "%.2f", electSums[3])).append("\t")
-            .append(String.format(getLocale(), "%.2f", electSums[1])).append("\t")
-            .append(String.format(getLocale(), "%.2f", electSums[2] == null ? 0.0 : electSums[2])).append("\n");
-
-    getMechaConfig().forEach((id, value) ->
-    {
-      String key = idToKey.get(id);
-
-      mechaOutput.append(key).append("\t")
-          .append(String.format("%05d", id)).append("\t")
-          .append(value).append("\t")
-          .append(String.format(getLocale(), "%.2f", (prices.get(id) == null ? 0.0 : prices.get(id)[0]))).append("\t")
-          .append(String.format(getLocale(), "%.2f", (prices.get(id) == null ? 0.0 : prices.get(id)[3]))).append("\n");
-    });
-    mechaOutput.append("\n\t\n").append(getString("Totals")).append("\t")
-            .append(" \t")
-            .append("0\t")
-            .append(String.format(getLocale(), "%.2f", mechaSums[0])).append("\t")
-            .append(String.format(getLocale(), "%.2f", mechaSums[3] == null ? 0.0 : mechaSums[3])).append("\n");
-
-    HashMap<String, Integer> calcMap = new HashMap<>();
+    return createCalculationSheet().format();
+  }
 
+  public CalculationSheet createCalculationSheet()
+  {
+    String key = getTiViKey();
+    String[] headers = {getString("Component"), getString("Item no."), getString("Amount"), getString("Price/pc (EUR)"),
+      getString("Weight/pc (kg)"), getString("Time/pc (h)"), getString("Power/pc (A)")};
+    String[] titles = {getString("Electronics"), getString("Mechanics"), getString("Totals")};
+
+    List<CalculationSheet.Item> electronics = new ArrayList<>();
+    getElectConfig().forEach((id, value) -> electronics.add(new CalculationSheet.Item(prices.getKey(id), id, value,
+            getPrice(id, PriceTable.PRICE), getPrice(id, PriceTable.WEIGHT), getPrice(id, PriceTable.TIME), getPrice(id, PriceTable.POWER))));
+    CalculationSheet.Item electTotals = new CalculationSheet.Item(getString("Totals"), null, 0,
+            electSums[0], electSums[3], electSums[1], electSums[2] == null ? 0.0 : electSums[2]);
+
+    List<CalculationSheet.Item> mechanics = new ArrayList<>();
+    getMechaConfig().forEach((id, value) -> mechanics.add(new CalculationSheet.Item(prices.getKey(id), id, value,
+            getPrice(id, PriceTable.PRICE), getPrice(id, PriceTable.WEIGHT), null, null)));
+    CalculationSheet.Item mechaTotals = new CalculationSheet.Item(getString("Totals"), null, 0, mechaSums[0], mechaSums[3] == null ? 0.0 : mechaSums[3], null, null);
+
+    List<CalculationSheet.Cost> costs = new ArrayList<>();
+    List<CalculationSheet.Tier> tiers = new ArrayList<>();
     try
     {
-      Files.lines(Launcher.tableHome.resolve(getClass().getSimpleName() + "/Calculation.csv"))
-              .map(line -> line.split("\t"))
-              .forEach(line ->
-              {
-                try
-                {
-                  calcMap.put(line[0], Integer.parseInt(line[1]));
-                }
-                catch(NumberFormatException ignored)
-                {
-                }
-              });
+      Map<String, Integer> calcMap = TableCache.getCalculation(getClass().getSimpleName()).getConstants();
 
-      totalOutput.append(getString("calcfor10")).append("\t \t \t \t ").append("\n");
-      totalOutput.append(getString("Electronics")).append(":\t \t \t")
-              .append(String.format(getLocale(), "%.2f", electSums[0])).append("\t \n");
-      totalPrices[2] = electSums[0];
-      totalOutput.append(getString("Overhead Electronics")).append(" (").append(calcMap.get("A_ELEKTRONIK")).append("%):\t \t \t")
-              .append(String.format(getLocale(), "%.2f", electSums[0] * (calcMap.get("A_ELEKTRONIK") / 100.0))).append("\t \n");
-      totalPrices[2] += electSums[0] * (calcMap.get("A_ELEKTRONIK") / 100.0);
-      totalOutput.append(getString("Testing")).append(":\t \t \t")
-              .append(String.format(getLocale(), "%.2f", electSums[1] * calcMap.get("STUNDENSATZ"))).append("\t \n");
-      totalPrices[2] += electSums[1] * calcMap.get("STUNDENSATZ");
+      costs.add(new CalculationSheet.Cost(getString("Electronics") + ":", null, electSums[0]));
+      costs.add(new CalculationSheet.Cost(getString("Overhead Electronics") + " (" + calcMap.get("A_ELEKTRONIK") + "%):", null, electSums[0] * (calcMap.get("A_ELEKTRONIK") / 100.0)));
+      costs.add(new CalculationSheet.Cost(getString("Testing") + ":", null, electSums[1] * calcMap.get("STUNDENSATZ")));
       if(getSpec("Interface") != null && getSpec("Interface") == 1)
       {
-        totalOutput.append(getString("Overhead GigE")).append(" (").append(calcMap.get("Z_GIGE")).append("%):\t \t \t")
-                .append(String.format(getLocale(), "%.2f", electSums[0] * calcMap.get("Z_GIGE") / 100.0)).append("\t \n");
-        totalPrices[2] += electSums[0] * (calcMap.get("Z_GIGE") / 100.0);
+        costs.add(new CalculationSheet.Cost(getString("Overhead GigE") + " (" + calcMap.get("Z_GIGE") + "%):", null, electSums[0] * calcMap.get("Z_GIGE") / 100.0));
       }
-      totalOutput.append(getString("Mechanics")).append(":\t \t \t")
-              .append(String.format(getLocale(), "%.2f", mechaSums[0])).append("\t \n");
-      totalPrices[2] += mechaSums[0];
-      totalOutput.append(getString("Overhead Mechanics")).append(" (").append(calcMap.get("A_MECHANIK")).append("%):\t \t \t")
-              .append(String.format(getLocale(), "%.2f", mechaSums[0] * (calcMap.get("A_MECHANIK") / 100.0))).append("\t \n");
-      totalPrices[2] += mechaSums[0] * (calcMap.get("A_MECHANIK") / 100.0);
-      totalOutput.append(getString("Assembly")).append(":\t \t ")
-              .append(calcMap.get("MONTAGE_BASIS") + calcMap.get("MONTAGE_PLUS") * (getSpec("sw_cp") / BASE_LENGTH)).append(" h\t")
-              .append(String.format(getLocale(), "%.2f", (double) (calcMap.get("MONTAGE_BASIS") + calcMap.get("MONTAGE_PLUS") * (spec.get("sw_cp") / BASE_LENGTH)) * calcMap.get("STUNDENSATZ"))).append("\t \n");
-      totalPrices[2] += (calcMap.get("MONTAGE_BASIS") + calcMap.get("MONTAGE_PLUS") * (spec.get("sw_cp") / BASE_LENGTH)) * calcMap.get("STUNDENSATZ");
+      costs.add(new CalculationSheet.Cost(getString("Mechanics") + ":", null, mechaSums[0]));
+      costs.add(new CalculationSheet.Cost(getString("Overhead Mechanics") + " (" + calcMap.get("A_MECHANIK") + "%):", null, mechaSums[0] * (calcMap.get("A_MECHANIK") / 100.0)));
+      int hours = getAssemblyHours(calcMap, getSpec("sw_cp"));
+      costs.add(new CalculationSheet.Cost(getString("Assembly") + ":", hours, (double) hours * calcMap.get("STUNDENSATZ")));
 
       int addition = 0;
       double surcharge = 0.0;
 
-      totalPrices[0] = totalPrices[2] * calcMap.get("F_1") / 100.0;
-      totalPrices[1] = totalPrices[2] * calcMap.get("F_5") / 100.0;
-      totalPrices[2] = totalPrices[2] * calcMap.get("F_10") / 100.0;
-      totalPrices[3] = totalPrices[2] * calcMap.get("F_25") / 100.0;
-      totalOutput.append(" \t(1 ").append(getString("pc")).append(")\t")
-              .append("(5 ").append(getString("pcs")).append(")\t")
-              .append("(10 ").append(getString("pcs")).append(")\t")
-              .append("(25 ").append(getString("pcs")).append(")\n");
+      double[] basePrices = getBasePrices(calcMap, electSums[0], electSums[1], mechaSums[0], getSpec("sw_cp"));
+      for(int x = 0; x < totalPrices.length; x++)
+      {
+        totalPrices[x] = basePrices[x];
+      }
+      tiers.add(new CalculationSheet.Tier(getString("Price/pc") + ":", totalPrices[0], totalPrices[1], totalPrices[2], totalPrices[3]));
 
-      String format = "%.2f";
       double value = calcMap.get("Z_TRANSPORT") / 100.0;
-      totalOutput.append(getString("Price/pc")).append(":\t")
-              .append(String.format(getLocale(), format, totalPrices[0])).append("\t")
-              .append(String.format(getLocale(), format, totalPrices[1])).append("\t")
-              .append(String.format(getLocale(), format, totalPrices[2])).append("\t")
-              .append(String.format(getLocale(), format, totalPrices[3])).append("\n");
-      totalOutput.append(getString("Surcharge Transport")).append(" (").append(value).append("%):\t")
-              .append(String.format(getLocale(), format, totalPrices[0] * value)).append("\t")
-              .append(String.format(getLocale(), format, totalPrices[1] * value)).append("\t")
-              .append(String.format(getLocale(), format, totalPrices[2] * value)).append("\t")
-              .append(String.format(getLocale(), format, totalPrices[3] * value)).append("\n");
+      tiers.add(surcharge(getString("Surcharge Transport") + " (" + value + "%):", value));
       surcharge += value;
 
       if(getSpec("LDSTD") == null)
       {
         value = calcMap.get(getDpiCode()) / 100.0;
-        totalOutput.append(getString("Surcharge DPI/Switchable")).append(" (").append(calcMap.get(getDpiCode())).append("%):\t")
-                .append(String.format(getLocale(), format, totalPrices[0] * value)).append("\t")
-                .append(String.format(getLocale(), format, totalPrices[1] * value)).append("\t")
-                .append(String.format(getLocale(), format, totalPrices[2] * value)).append("\t")
-                .append(String.format(getLocale(), format, totalPrices[3] * value)).append("\n");
+        tiers.add(surcharge(getString("Surcharge DPI/Switchable") + " (" + calcMap.get(getDpiCode()) + "%):", value));
         surcharge += value;
       }
 
-      format = "%.2f";
       value = calcMap.get("LIZENZ");
-      totalOutput.append(getString("Licence")).append(":\t")
-              .append(String.format(getLocale(), format, value)).append("\t")
-              .append(String.format(getLocale(), format, value)).append("\t")
-              .append(String.format(getLocale(), format, value)).append("\t")
-              .append(String.format(getLocale(), format, value)).append("\n");
+      tiers.add(new CalculationSheet.Tier(getString("Licence") + ":", value, value, value, value));
       addition += value;
 
-      format = "%.2f";
       value = calcMap.get("Z_DISCONT") / 100.0;
-      totalOutput.append(getString("Discount Surcharge")).append(" (").append(value).append("%):\t")
-              .append(String.format(getLocale(), format, totalPrices[0] * value)).append("\t")
-              .append(String.format(getLocale(), format, totalPrices[1] * value)).append("\t")
-              .append(String.format(getLocale(), format, totalPrices[2] * value)).append("\t")
-              .append(String.format(getLocale(), format, totalPrices[3] * value)).append("\n");
+      tiers.add(surcharge(getString("Discount Surcharge") + " (" + value + "%):", value));
       surcharge += value;
 
       totalPrices[0] *= 1 + surcharge;
@@ -1151,24 +1315,72 @@ public abstract class CIS
       totalPrices[2] += addition;
       totalPrices[3] += addition;
 
-      totalOutput.append(getString("Totals")).append(" (EUR):").append("\t")
-              .append(String.format(getLocale(), format, totalPrices[0])).append("\t")
-              .append(String.format(getLocale(), format, totalPrices[1])).append("\t")
-              .append(String.format(getLocale(), format, totalPrices[2])).append("\t")
-              .append(String.format(getLocale(), format, totalPrices[3])).append("\n");
+      tiers.add(new CalculationSheet.Tier(getString("Totals") + " (EUR):", totalPrices[0], totalPrices[1], totalPrices[2], totalPrices[3]));
     }
     catch(NullPointerException | IndexOutOfBoundsException | NumberFormatException | IOException e)
     {
       throw new CISException(getString("MissingConfigTables"));
     }
 
-    printout += electOutput.toString();
-    printout += "\n\t\n";
-    printout += mechaOutput.toString();
-    printout += "\n\t\n";
-    printout += totalOutput.toString();
+    String[] tierHeaders = {"(1 " + getString("pc") + ")", "(5 " + getString("pcs") + ")", "(10 " + getString("pcs") + ")", "(25 " + getString("pcs") + ")"};
+    return new CalculationSheet(key, getLocale(), headers, titles, electronics, electTotals, mechanics, mechaTotals,
+            getString("calcfor10"), costs, tierHeaders, tiers);
+  }
+
+  private static int getAssemblyHours(Map<String, Integer> calcMap, int swCp)
+  {
+    return calcMap.get("MONTAGE_BASIS") + calcMap.get("MONTAGE_PLUS") * (swCp / BASE_LENGTH);
+  }
+
+  // Preis/Stk. je Staffel (1, 5, 10, 25 Stk.) vor Zuschlägen und Lizenz
+  private double[] getBasePrices(Map<String, Integer> calcMap, double electPrice, double electTime, double mechaPrice, int swCp)
+  {
+    double price = electPrice;
+    price += electPrice * (calcMap.get("A_ELEKTRONIK") / 100.0);
+    price += electTime * calcMap.get("STUNDENSATZ");
+    if(getSpec("Interface") != null && getSpec("Interface") == 1)
+    {
+      price += electPrice * (calcMap.get("Z_GIGE") / 100.0);
+    }
+    price += mechaPrice;
+    price += mechaPrice * (calcMap.get("A_MECHANIK") / 100.0);
+    price += getAssemblyHours(calcMap, swCp) * calcMap.get("STUNDENSATZ");
+
+    double[] basePrices = new double[4];
+    basePrices[0] = price * calcMap.get("F_1") / 100.0;
+    basePrices[1] = price * calcMap.get("F_5") / 100.0;
+    basePrices[2] = price * calcMap.get("F_10") / 100.0;
+    //Wie bisher auf den Preis für 10 Stk.
+    basePrices[3] = basePrices[2] * calcMap.get("F_25") / 100.0;
+    return basePrices;
+  }
 
-    return printout;
+  // Summe der Zuschläge in Prozent (Transport, DPI, Discount)
+  private double getSurcharge(Map<String, Integer> calcMap)
+  {
+    double surcharge = calcMap.get("Z_TRANSPORT") / 100.0;
+    if(getSpec("LDSTD") == null)
+    {
+      surcharge += calcMap.get(getDpiCode()) / 100.0;
+    }
+    return surcharge + calcMap.get("Z_DISCONT") / 100.0;
+  }
+
+  // 0.0 für Teile ohne Preis, null für leere Werte
+  private Double getPrice(int itemNo, int column)
+  {
+    int item = prices.indexOf(itemNo);
+    if(item < 0)
+    {
+      return 0.0;
+    }
+    return prices.isMissing(item, column) ? null : prices.get(item, column);
+  }
+
+  // Zuschlag in Prozent auf den Preis/Stk. jeder Staffel
+  private CalculationSheet.Tier surcharge(String name, double value)
+  {
+    return new CalculationSheet.Tier(name, totalPrices[0] * value, totalPrices[1] * value, totalPrices[2] * value, totalPrices[3] * value);
   }
 
   public Locale getLocale()
@@ -1190,37 +1402,98 @@ public abstract class CIS
 
   public String getKey(int id)
   {
-    return idToKey.get(id);
+    return prices.getKey(id);
   }
 
-  private int calcNumOfPix()
+  // Pixel je Zeile, nur aus Spezifikation und SensorCatalogue
+  public int getNumOfPix()
   {
     int numOfPix;
     int sensBoards = getSpec("sw_cp") / BASE_LENGTH;
 
     if(getSpec("MXCIS") != null)
     {
-      numOfPix = ((MXCIS) this).getBoard(getSpec("res_cp"))[0] * (getSpec("sw_cp") / BASE_LENGTH) * ((MXCIS) this).getChip(getSpec("res_cp2"))[3] / getSpec("Binning");
+      numOfPix = ((MXCIS) this).getBoard(getSpec("res_cp")).getChips() * (getSpec("sw_cp") / BASE_LENGTH) * ((MXCIS) this).getChip(getSpec("res_cp2")).getPixels() / getSpec("Binning");
     }
     else if(getSpec("VHCIS") != null)
     {
-      numOfPix = (int) (getSensBoard("SMARDOUB")[0] * sensBoards * 0.72 * getSpec("res_cp2"));
+      numOfPix = (int) (getSensBoard("SMARDOUB").getChips() * sensBoards * 0.72 * getSpec("res_cp2"));
     }
     else if(getSpec("VTCIS") != null)
     {
-      numOfPix = (int) (getSensBoard("SMARDOUB")[0] * sensBoards * 0.72 * getSpec("res_cp2"));
+      numOfPix = (int) (getSensBoard("SMARDOUB").getChips() * sensBoards * 0.72 * getSpec("res_cp2"));
     }
     else
     {
-      numOfPix = (int) (getSensBoard("SMARAGD")[0] * sensBoards * 0.72 * getSpec("res_cp2"));
+      numOfPix = (int) (getSensBoard("SMARAGD").getChips() * sensBoards * 0.72 * getSpec("res_cp2"));
     }
 
-    if((getSpec("Color") * numOfPix * getSpec("Selected line rate") / 1000000 > 80 && getSpec("Interface") == 1))
+    return numOfPix;
+  }
+
+  // Die Masken setzen die Spezifikation nach und nach, getFeasibility() und SensorTiming.of() brauchen diese Angaben
+  public boolean hasFeasibilitySpecs()
+  {
+    if(getSpec("LDSTD") != null)
     {
-      throw new CISException(getString("GIGEERROR") + (getSpec("Color") * numOfPix * getSpec("Selected line rate") / 1000000) + " MByte");
+      return true;
     }
+    for(String key : new String[]{"sw_cp", "res_cp", "res_cp2", "Color", "Interface", "Selected line rate"})
+    {
+      if(getSpec(key) == null)
+      {
+        return false;
+      }
+    }
+    return true;
+  }
 
-    return numOfPix;
+  // Größte Zeilenfrequenz, die das Interface zulässt: GigE bis 80 MByte/s, Camera Link je Familie (Taps, Flash).
+  // Ohne Tabellen, damit Masken und Stapelläufe unmögliche Konfigurationen vor der Kalkulation erkennen.
+  public Feasibility getFeasibility()
+  {
+    if(getSpec("LDSTD") != null)
+    {
+      return Feasibility.UNLIMITED;
+    }
+
+    int numOfPix = getNumOfPix();
+    if(getSpec("Interface") == 1)
+    {
+      //Wie bisher: ganzzahlige MByte/s über 80 sind zu viel
+      long pixels = (long) getSpec("Color") * numOfPix;
+      int maxLineRate = pixels <= 0 ? Integer.MAX_VALUE : (int) Math.min(Integer.MAX_VALUE, (81 * 1000000L - 1) / pixels);
+      return new Feasibility(maxLineRate, Feasibility.Limit.GIGE, getString("GIGEERROR") + (pixels * getSpec("Selected line rate") / 1000000) + " MByte");
+    }
+    return getCameraLinkFeasibility(numOfPix);
+  }
+
+  // Ohne Grenze, wenn die Familie keine hat
+  protected Feasibility getCameraLinkFeasibility(int numOfPix)
+  {
+    return Feasibility.UNLIMITED;
+  }
+
+  // Dieselbe Meldung wie sonst erst am Ende der Kalkulation oder im Datenblatt
+  public void checkFeasibility()
+  {
+    Feasibility feasibility = getFeasibility();
+    if(!isFeasible(feasibility, getSpec("Selected line rate")))
+    {
+      throw new CISException(feasibility.getMessage());
+    }
+  }
+
+  //Ohne Grenze auch ohne "Selected line rate" (LDSTD)
+  private static boolean isFeasible(Feasibility feasibility, Integer lineRate)
+  {
+    return feasibility.getLimit() == Feasibility.Limit.NONE || feasibility.isFeasible(lineRate);
+  }
+
+  // Größte Zeilenfrequenz ab "Selected line rate", bis zu der Taps und TiViKey der Familie gleich bleiben (MODE und Interface-Grenze prüft CIS)
+  protected int getLineRateStepEnd()
+  {
+    return Integer.MAX_VALUE;
   }
 
   public int getNumFPGA()
@@ -1228,18 +1501,75 @@ public abstract class CIS
     return numFPGA;
   }
 
+  // Welche Zeilen der Elektronik-/Mechaniktabelle von einem Eintrag der Spezifikation abhängen
+  public DependencyIndex getElectronicsDependencies()
+  {
+    try
+    {
+      return TableCache.getElectronics(getClass().getSimpleName()).getDependencies();
+    }
+    catch(IOException e)
+    {
+      throw new CISException("Error in Electronics.csv");
+    }
+  }
+
+  public DependencyIndex getMechanicsDependencies()
+  {
+    try
+    {
+      return TableCache.getMechanics(getClass().getSimpleName()).getDependencies()
+              .withFpgaKeys(getElectronicsDependencies().getFpgaKeys());
+    }
+    catch(IOException e)
+    {
+      throw new CISException("Error in Mechanics.csv");
+    }
+  }
+
+  // Artikelnummern, deren Menge sich ändern kann, wenn der Eintrag geändert wird
+  public Set<Integer> getAffectedParts(String key)
+  {
+    Set<Integer> parts = new TreeSet<>();
+    try
+    {
+      List<ElectronicsTable.Row> electRows = TableCache.getElectronics(getClass().getSimpleName()).getRows();
+      getElectronicsDependencies().getRows(key).stream()
+              .map(i -> electRows.get(i).getItemNo())
+              .filter(itemNo -> itemNo >= 0)
+              .forEach(parts::add);
+
+      Integer swIndex = getSpec("sw_index");
+      List<MechanicsTable.Row> mechaRows = TableCache.getMechanics(getClass().getSimpleName()).getRows();
+      getMechanicsDependencies().getRows(key).stream()
+              .mapToObj(mechaRows::get)
+              .filter(row -> swIndex != null && row.hasItem(swIndex))
+              .map(row -> row.getItemNo(swIndex))
+              .filter(itemNo -> itemNo >= 0)
+              .forEach(parts::add);
+    }
+    catch(IOException e)
+    {
+      throw new CISException("Error in Electronics.csv/Mechanics.csv");
+    }
+    return parts;
+  }
+
   public double getMinFreq(String key)
   {
     boolean coax = key.contains("C_");
     return 100 * electSums[4]
             * mechaSums[4]
-            * (coax ? 1 : getSpec("LEDLines"))
+            * (coax ? 1 : getLEDLines())
             * getGeometry(coax)
             * getSensitivity() / (1.5 * (key.contains("RGB") ? 3 : 1));
   }
 
   public abstract double getGeometry(boolean coax);
 
+  // Maximale Zeilenfrequenz in kHz für die aktuelle Spezifikation
+  public abstract double getMaxLineRate();
+
   public double getSensitivity()
   {
     if(getSpec("MXCIS") != null)
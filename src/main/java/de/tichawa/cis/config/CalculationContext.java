@@ -0,0 +1,124 @@
+package de.tichawa.cis.config;
+
+// Einmal pro Kalkulation ermittelte Werte, damit die Schleifen über die Tabellen ohne Dateizugriffe auskommen
+public class CalculationContext
+{
+  private final String key;
+  private final String[] keyParts;
+  private final int nlCount;
+  private final long features;
+
+  public CalculationContext(CIS cis)
+  {
+    this.key = cis.getTiViKey(cis.getMechaVersion());
+    this.keyParts = key.split("_");
+    this.nlCount = cis.countNLs();
+    this.features = computeFeatures(cis);
+  }
+
+  // Merkmalsvektor für Condition.matches()
+  private long computeFeatures(CIS cis)
+  {
+    long features = 0;
+    boolean mxcis = cis.getSpec("MXCIS") != null;
+    String light = keyParts.length > 4 ? keyParts[4] : "";
+    String secondLight = mxcis && keyParts.length > 5 ? keyParts[5] : "";
+
+    Integer lightSource = cis.getSpec("Internal Light Source");
+    for(int i = 0; i < Condition.COLORS.length; i++)
+    {
+      String color = Condition.COLORS[i];
+      if(lightSource != null && lightSource > 0 && (light.contains(color) || secondLight.contains(color)))
+      {
+        features |= Condition.color(i);
+      }
+    }
+
+    if(!key.contains("RGB"))
+    {
+      features |= Condition.MONO;
+    }
+
+    for(int i = 0; i < Condition.RESOLUTIONS.length; i++)
+    {
+      if(Condition.RESOLUTIONS[i].equals(cis.getSpec("res_cp") + "dpi"))
+      {
+        features |= Condition.resolution(i);
+      }
+    }
+
+    Integer iface = cis.getSpec("Interface");
+    if(iface != null && iface == 1)
+    {
+      features |= Condition.GIGE;
+    }
+    if(iface != null && iface == 0)
+    {
+      features |= Condition.CL;
+    }
+
+    boolean coax = light.endsWith("C") || secondLight.endsWith("C");
+    if(coax)
+    {
+      features |= Condition.COAX;
+    }
+    if(!coax || light.startsWith("2") || secondLight.startsWith("2")) //Twosided => at least one diffuse (2XX oder 2XXC)
+    {
+      features |= Condition.DIFF;
+    }
+
+    boolean defaultCooling = true;
+    for(int i = 0; i < Condition.COOLINGS.length; i++)
+    {
+      if(key.contains(Condition.COOLINGS[i]))
+      {
+        features |= Condition.cooling(i);
+        defaultCooling = false;
+      }
+    }
+    if(defaultCooling)
+    {
+      features |= Condition.DEFAULT_COOLING;
+    }
+
+    Integer trigger = cis.getSpec("External Trigger");
+    if(trigger != null && trigger == 0)
+    {
+      features |= Condition.NOEXT;
+    }
+    if(trigger != null && trigger == 1)
+    {
+      features |= Condition.EXT;
+    }
+
+    Integer mode = cis.getSpec("MODE");
+    if(mxcis && mode != null && mode == 4)
+    {
+      features |= Condition.LOW;
+    }
+    if(mxcis && mode != null && mode == 2)
+    {
+      features |= Condition.HIGH;
+    }
+
+    //Ohne "LEDLines" keine Lichtzeile, wie in den Formeln
+    features |= Condition.ledLines(cis.getLEDLines());
+
+    return features;
+  }
+
+  public String getKey()
+  {
+    return key;
+  }
+
+  public int getNLCount()
+  {
+    return nlCount;
+  }
+
+  public long getFeatures()
+  {
+    return features;
+  }
+}
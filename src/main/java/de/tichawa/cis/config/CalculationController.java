@@ -1,10 +1,13 @@
 package de.tichawa.cis.config;
 
 import java.net.*;
-import java.text.*;
+import java.nio.file.*;
 import java.util.*;
+import java.util.function.*;
+import javafx.application.*;
 import javafx.beans.property.*;
 import javafx.collections.*;
+import javafx.concurrent.*;
 import javafx.fxml.*;
 import javafx.geometry.*;
 import javafx.print.*;
@@ -20,7 +23,8 @@ import javafx.stage.*;
 public class CalculationController implements Initializable
 {
   
-  protected CIS CIS_DATA;
+  protected CalculationResult CIS_DATA;
+  private long recalculation;
   
   @FXML
   private Label Header;
@@ -49,11 +53,53 @@ public class CalculationController implements Initializable
     
   }
   
-  public void passData(CIS data)
+  public void passData(CalculationResult data)
   {
     this.CIS_DATA = data;
     
     load();
+    watchTables();
+  }
+  
+  // Nach neu eingelesenen Tabellen neu kalkulieren, bis das Fenster geschlossen wird
+  private void watchTables()
+  {
+    Consumer<Set<Path>> listener = paths ->
+    {
+      if(paths.stream().anyMatch(path -> path.startsWith(Settings.tableHome)))
+      {
+        //Fenster und Ergebnis nur auf dem FX Thread lesen, kalkuliert wird im Hintergrund mit der Kopie im Ergebnis
+        Platform.runLater(() ->
+        {
+          CalculationResult current = CIS_DATA;
+          long request = ++recalculation;
+          Task<CalculationResult> task = new Task<CalculationResult>()
+          {
+            @Override
+            protected CalculationResult call()
+            {
+              return current.recalculate();
+            }
+          };
+          task.setOnSucceeded(e ->
+          {
+            //Inzwischen geschlossen oder schon wieder neu eingelesen
+            if(request != recalculation || !Header.getScene().getWindow().isShowing())
+            {
+              return;
+            }
+            CIS_DATA = task.getValue();
+            load();
+          });
+          task.setOnFailed(e -> task.getException().printStackTrace());
+          Thread thread = new Thread(task, "Recalculation");
+          thread.setDaemon(true);
+          thread.start();
+        });
+      }
+    };
+    TableWatcher.addListener(listener);
+    Header.getScene().getWindow().addEventHandler(WindowEvent.WINDOW_HIDDEN, event -> TableWatcher.removeListener(listener));
   }
   
   @SuppressWarnings("unchecked")
@@ -67,13 +113,15 @@ public class CalculationController implements Initializable
       File.setText(ResourceBundle.getBundle("de.tichawa.cis.config.Bundle", CIS_DATA.getLocale()).getString("File"));
       Print.setText(ResourceBundle.getBundle("de.tichawa.cis.config.Bundle", CIS_DATA.getLocale()).getString("Print"));
       
-      NumberFormat f = NumberFormat.getInstance(CIS_DATA.getLocale());
-      String[] calcText = CIS_DATA.createCalculation().split("\n\t\n");
+      CalculationSheet sheet = CIS_DATA.getCalculationSheet();
       
-      Header.setText(calcText[0]);
+      Header.setText(sheet.getTiViKey());
       
-      String electData = calcText[1].substring(calcText[1].indexOf("\n\n") + 2);
-      String[] headers = electData.split("\n")[0].split("\t");
+      String[] headers = new String[7];
+      for(int i = 0; i < headers.length; i++)
+      {
+        headers[i] = sheet.getHeader(i);
+      }
       TableColumn<CalcLine, String> electNameCol = new TableColumn<>(headers[0]);
       electNameCol.setMinWidth(300.0);
       electNameCol.setMaxWidth(300.0);
@@ -110,18 +158,15 @@ public class CalculationController implements Initializable
       
       ObservableList<CalcLine> electDataList = FXCollections.observableArrayList();
       
-      electData = electData.substring(electData.indexOf("\n") + 1);
-      for(String row : electData.split("\n"))
+      for(CalculationSheet.Item item : sheet.getElectronics())
       {
-        String[] data = row.split("\t");
-        electDataList.add(new CalcLine(data[0], data[1], f.parse(data[2]).intValue(), f.parse(data[3]).doubleValue(), f.parse(data[4]).doubleValue(), f.parse(data[5]).doubleValue(), f.parse(data[6]).doubleValue()));
+        electDataList.add(new CalcLine(item));
       }
       
       Electronics.setItems(electDataList);
       Electronics.getColumns().clear();
       Electronics.getColumns().addAll(electNameCol, electIdCol, electAmountCol, electPriceCol, electWeightCol, electTimeCol, electPowerCol);
       
-      String eTotalData = calcText[2];
       TableColumn<CalcLine, String> eTotalNameCol = new TableColumn<>(headers[0]);
       eTotalNameCol.setCellValueFactory(cellData -> cellData.getValue().getName());
       eTotalNameCol.setMinWidth(300.0);
@@ -155,13 +200,11 @@ public class CalculationController implements Initializable
       eTotalPowerCol.setMinWidth(150.0);
       eTotalPowerCol.setMaxWidth(150.0);
       
-      String[] eData = eTotalData.split("\t");
       ElectSubTotals.getItems().clear();
-      ElectSubTotals.getItems().add(new CalcLine(eData[0], eData[1], f.parse(eData[2]).intValue(), f.parse(eData[3]).doubleValue(), f.parse(eData[4]).doubleValue(), f.parse(eData[5]).doubleValue(), f.parse(eData[6]).doubleValue()));
+      ElectSubTotals.getItems().add(new CalcLine(sheet.getElectTotals()));
       ElectSubTotals.getColumns().clear();
       ElectSubTotals.getColumns().addAll(eTotalNameCol, eTotalIdCol, eTotalAmountCol, eTotalPriceCol, eTotalWeightCol, eTotalTimeCol, eTotalPowerCol);
       
-      String mechaData = calcText[3].substring(calcText[3].indexOf("\n\n") + 2);
       TableColumn<CalcLine, String> mechaNameCol = new TableColumn<>(headers[0]);
       mechaNameCol.setCellValueFactory(cellData -> cellData.getValue().getName());
       mechaNameCol.setMinWidth(300.0);
@@ -188,18 +231,15 @@ public class CalculationController implements Initializable
       
       ObservableList<CalcLine> mechaDataList = FXCollections.observableArrayList();
       
-      mechaData = mechaData.substring(mechaData.indexOf("\n") + 1);
-      for(String row : mechaData.split("\n"))
+      for(CalculationSheet.Item item : sheet.getMechanics())
       {
-        String[] data = row.split("\t");
-        mechaDataList.add(new CalcLine(data[0], data[1], f.parse(data[2]).intValue(), f.parse(data[3]).doubleValue(), f.parse(data[4]).doubleValue(), 0.0, 0.0));
+        mechaDataList.add(new CalcLine(item));
       }
       
       Mechanics.setItems(mechaDataList);
       Mechanics.getColumns().clear();
       Mechanics.getColumns().addAll(mechaNameCol, mechaIdCol, mechaAmountCol, mechaPriceCol, mechaWeightCol);
       
-      String mTotalData = calcText[4];
       TableColumn<CalcLine, String> mTotalNameCol = new TableColumn<>(headers[0]);
       mTotalNameCol.setCellValueFactory(cellData -> cellData.getValue().getName());
       mTotalNameCol.setMinWidth(300.0);
@@ -223,13 +263,11 @@ public class CalculationController implements Initializable
       mTotalWeightCol.setMinWidth(200.0);
       mTotalWeightCol.setMaxWidth(200.0);
       
-      String[] mData = mTotalData.split("\t");
       MechaSubTotals.getItems().clear();
-      MechaSubTotals.getItems().add(new CalcLine(mData[0], mData[1], f.parse(mData[2]).intValue(), f.parse(mData[3]).doubleValue(), f.parse(mData[4]).doubleValue(), 0.0, 0.0));
+      MechaSubTotals.getItems().add(new CalcLine(sheet.getMechaTotals()));
       MechaSubTotals.getColumns().clear();
       MechaSubTotals.getColumns().addAll(mTotalNameCol, mTotalIdCol, mTotalAmountCol, mTotalPriceCol, mTotalWeightCol);
       
-      String totalData = calcText[5].substring(calcText[5].indexOf("\n\n") + 2);
       TableColumn<PriceLine, String> totalNameCol = new TableColumn<>(headers[0]);
       totalNameCol.setCellValueFactory(cellData -> cellData.getValue().getName());
       totalNameCol.setMinWidth(300.0);
@@ -253,11 +291,15 @@ public class CalculationController implements Initializable
       
       ObservableList<PriceLine> totalDataList = FXCollections.observableArrayList();
       
-      totalData = totalData.substring(totalData.indexOf("\n") + 1);
-      for(String row : totalData.split("\n"))
+      totalDataList.add(new PriceLine(sheet.getCostTitle(), " ", " ", " ", " "));
+      for(CalculationSheet.Cost cost : sheet.getCosts())
+      {
+        totalDataList.add(new PriceLine(cost.getName(), " ", cost.getHours() == null ? " " : " " + cost.getHours() + " h", format(cost.getPrice()), " "));
+      }
+      totalDataList.add(new PriceLine(" ", sheet.getTierHeader(0), sheet.getTierHeader(1), sheet.getTierHeader(2), sheet.getTierHeader(3)));
+      for(CalculationSheet.Tier tier : sheet.getTiers())
       {
-        String[] data = row.split("\t");
-        totalDataList.add(new PriceLine(data[0], data[1], data[2], data[3], data[4]));
+        totalDataList.add(new PriceLine(tier.getName(), format(tier.getPrice(0)), format(tier.getPrice(1)), format(tier.getPrice(2)), format(tier.getPrice(3))));
       }
       
       Totals.setRowFactory(row -> new TableRow<PriceLine>()
@@ -311,11 +353,16 @@ public class CalculationController implements Initializable
       alert.setHeaderText(e.getMessage());
       alert.show();
     }
-    catch(ParseException | NullPointerException e)
+    catch(NullPointerException e)
     {
     }
   }
   
+  private String format(double value)
+  {
+    return String.format(CIS_DATA.getLocale(), "%.2f", value);
+  }
+  
   public void print()
   {
     String calc = CIS_DATA.getVersionHeader() + "\n\t\n" + CIS_DATA.createCalculation();
@@ -409,6 +456,12 @@ public class CalculationController implements Initializable
     private final SimpleDoubleProperty time;
     private final SimpleDoubleProperty power;
     
+    public CalcLine(CalculationSheet.Item item)
+    {
+      this(item.getName(), item.getId() == null ? " " : String.format("%05d", item.getId()), item.getAmount(), item.getPrice(), item.getWeight(),
+              item.getTime() == null ? 0.0 : item.getTime(), item.getPower() == null ? 0.0 : item.getPower());
+    }
+    
     public CalcLine(String name, String id, int amount, double price, double weight, double time, double power)
     {
       this.name = new SimpleStringProperty(name);
@@ -528,11 +581,11 @@ public class CalculationController implements Initializable
   {
     if(CIS_DATA.getLocale().toString().equals("de_DE"))
     {
-      CIS_DATA.setLocale(new Locale("en", "US"));
+      CIS.setLocale(new Locale("en", "US"));
     }
     else if(CIS_DATA.getLocale().toString().equals("en_US"))
     {
-      CIS_DATA.setLocale(new Locale("de", "DE"));
+      CIS.setLocale(new Locale("de", "DE"));
     }
     
     load();
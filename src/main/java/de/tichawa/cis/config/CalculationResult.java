@@ -0,0 +1,178 @@
+package de.tichawa.cis.config;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+
+// Ergebnis einer Kalkulation. Hält eine eigene Kopie des CIS, die Maske kann danach weiter verändert werden.
+public final class CalculationResult
+{
+  private final CIS snapshot;
+  private final String tiViKey;
+  private final Map<Integer, Integer> electConfig;
+  private final Map<Integer, Integer> mechaConfig;
+  private final Double[] electSums;
+  private final Double[] mechaSums;
+  private final Double[] totalPrices;
+  private final Integer numOfPix;
+  private final Integer mode;
+  private final int numFPGA;
+  private CalculationSheet sheet;
+
+  CalculationResult(CIS snapshot)
+  {
+    this.snapshot = snapshot;
+    this.tiViKey = snapshot.getTiViKey();
+    this.electConfig = Collections.unmodifiableMap(snapshot.getElectConfig());
+    this.mechaConfig = Collections.unmodifiableMap(snapshot.getMechaConfig());
+    this.electSums = snapshot.getElectSums().clone();
+    this.mechaSums = snapshot.getMechaSums().clone();
+    this.numOfPix = snapshot.getSpec("numOfPix");
+    this.mode = snapshot.getSpec("MODE");
+    this.numFPGA = snapshot.getNumFPGA();
+
+    Double[] totals;
+    try
+    {
+      sheet = snapshot.createCalculationSheet();
+      totals = snapshot.getTotalPrices().clone();
+    }
+    catch(CISException e)
+    {
+      //Missing Calculation.csv, reported when the totals are requested
+      totals = null;
+    }
+    this.totalPrices = totals;
+  }
+
+  // Dieselbe Konfiguration mit den aktuellen Tabellen, z.B. nachdem der TableWatcher sie neu eingelesen hat
+  public CalculationResult recalculate()
+  {
+    return snapshot.calculate();
+  }
+
+  public String getCisName()
+  {
+    return snapshot.cisName;
+  }
+
+  public String getTiViKey()
+  {
+    return tiViKey;
+  }
+
+  public Map<Integer, Integer> getElectConfig()
+  {
+    return electConfig;
+  }
+
+  public Map<Integer, Integer> getMechaConfig()
+  {
+    return mechaConfig;
+  }
+
+  public Double[] getElectSums()
+  {
+    return electSums.clone();
+  }
+
+  public Double[] getMechaSums()
+  {
+    return mechaSums.clone();
+  }
+
+  public Double[] getTotalPrices()
+  {
+    if(totalPrices == null)
+    {
+      throw new CISException(snapshot.getString("MissingConfigTables"));
+    }
+    return totalPrices.clone();
+  }
+
+  // null bei GigE oder wenn die Familie kein Camera Link hat. MXCIS schreibt dabei MODE und Binning in die Kopie.
+  public PortAssignment getPortAssignment()
+  {
+    synchronized(snapshot)
+    {
+      return numOfPix == null || snapshot.getSpec("Interface") == null || snapshot.getSpec("Interface") != 0 ? null : snapshot.getPortAssignment(numOfPix);
+    }
+  }
+
+  public Integer getNumOfPix()
+  {
+    return numOfPix;
+  }
+
+  public Integer getMode()
+  {
+    return mode;
+  }
+
+  public int getNumFPGA()
+  {
+    return numFPGA;
+  }
+
+  public Integer getSpec(String key)
+  {
+    synchronized(snapshot)
+    {
+      return snapshot.getSpec(key);
+    }
+  }
+
+  public String getKey(int id)
+  {
+    return snapshot.getKey(id);
+  }
+
+  public Locale getLocale()
+  {
+    return snapshot.getLocale();
+  }
+
+  public String getVersionHeader()
+  {
+    return snapshot.getVersionHeader();
+  }
+
+  public String getString(String key)
+  {
+    return snapshot.getString(key);
+  }
+
+  // Bezeichnungen in der aktuellen Sprache, nach einem Sprachwechsel wird das Blatt neu aufgebaut
+  public CalculationSheet getCalculationSheet()
+  {
+    synchronized(snapshot)
+    {
+      if(sheet == null || !sheet.getLocale().equals(snapshot.getLocale()))
+      {
+        sheet = snapshot.createCalculationSheet();
+      }
+      return sheet;
+    }
+  }
+
+  public String createCalculation()
+  {
+    return getCalculationSheet().format();
+  }
+
+  public String[] createDataSheet()
+  {
+    synchronized(snapshot)
+    {
+      return snapshot.createDataSheet();
+    }
+  }
+
+  public String createPrntOut()
+  {
+    synchronized(snapshot)
+    {
+      return snapshot.createPrntOut();
+    }
+  }
+}
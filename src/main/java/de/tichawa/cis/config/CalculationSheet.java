@@ -0,0 +1,282 @@
+package de.tichawa.cis.config;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+// Kalkulation als Daten: Stückliste mit Zwischensummen, Kosten für 10 Stück und die Preisstaffel.
+// Der Text für Druck und Export entsteht erst in format().
+public final class CalculationSheet
+{
+  public static final int[] QUANTITIES = {1, 5, 10, 25};
+
+  private final String tiViKey;
+  private final Locale locale;
+  private final String[] headers;
+  private final String[] titles;
+  private final List<Item> electronics;
+  private final Item electTotals;
+  private final List<Item> mechanics;
+  private final Item mechaTotals;
+  private final String costTitle;
+  private final List<Cost> costs;
+  private final String[] tierHeaders;
+  private final List<Tier> tiers;
+
+  CalculationSheet(String tiViKey, Locale locale, String[] headers, String[] titles, List<Item> electronics, Item electTotals, List<Item> mechanics, Item mechaTotals,
+          String costTitle, List<Cost> costs, String[] tierHeaders, List<Tier> tiers)
+  {
+    this.tiViKey = tiViKey;
+    this.locale = locale;
+    this.headers = headers;
+    this.titles = titles;
+    this.electronics = Collections.unmodifiableList(electronics);
+    this.electTotals = electTotals;
+    this.mechanics = Collections.unmodifiableList(mechanics);
+    this.mechaTotals = mechaTotals;
+    this.costTitle = costTitle;
+    this.costs = Collections.unmodifiableList(costs);
+    this.tierHeaders = tierHeaders;
+    this.tiers = Collections.unmodifiableList(tiers);
+  }
+
+  public String getTiViKey()
+  {
+    return tiViKey;
+  }
+
+  public Locale getLocale()
+  {
+    return locale;
+  }
+
+  // Komponente, Artikelnummer, Menge, Preis, Gewicht, Zeit, Strom
+  public String getHeader(int column)
+  {
+    return headers[column];
+  }
+
+  public List<Item> getElectronics()
+  {
+    return electronics;
+  }
+
+  public Item getElectTotals()
+  {
+    return electTotals;
+  }
+
+  public List<Item> getMechanics()
+  {
+    return mechanics;
+  }
+
+  public Item getMechaTotals()
+  {
+    return mechaTotals;
+  }
+
+  public String getCostTitle()
+  {
+    return costTitle;
+  }
+
+  // Kosten für 10 Stück
+  public List<Cost> getCosts()
+  {
+    return costs;
+  }
+
+  public String getTierHeader(int tier)
+  {
+    return tierHeaders[tier];
+  }
+
+  // Preis/Stk., Zuschläge, Lizenz und zuletzt die Endpreise
+  public List<Tier> getTiers()
+  {
+    return tiers;
+  }
+
+  public Tier getTotals()
+  {
+    return tiers.get(tiers.size() - 1);
+  }
+
+  public String format()
+  {
+    StringBuilder printout = new StringBuilder(tiViKey).append("\n\t\n");
+
+    printout.append(titles[0]).append(":").append("\n\n");
+    printout.append(String.join("\t", headers)).append("\n");
+    for(Item item : electronics)
+    {
+      formatItem(printout, item, 7);
+    }
+    printout.append("\n\t\n");
+    formatItem(printout, electTotals, 7);
+    printout.append("\n\t\n");
+
+    printout.append(titles[1]).append(":").append("\n\n");
+    printout.append(String.join("\t", headers[0], headers[1], headers[2], headers[3], headers[4])).append("\n");
+    for(Item item : mechanics)
+    {
+      formatItem(printout, item, 5);
+    }
+    printout.append("\n\t\n");
+    formatItem(printout, mechaTotals, 5);
+    printout.append("\n\t\n");
+
+    printout.append(titles[2]).append(":").append("\n\n");
+    printout.append(costTitle).append("\t \t \t \t ").append("\n");
+    for(Cost cost : costs)
+    {
+      printout.append(cost.getName()).append("\t \t ")
+              .append(cost.getHours() == null ? "" : cost.getHours() + " h").append("\t")
+              .append(String.format(locale, "%.2f", cost.getPrice())).append("\t \n");
+    }
+    printout.append(" ");
+    for(String tierHeader : tierHeaders)
+    {
+      printout.append("\t").append(tierHeader);
+    }
+    printout.append("\n");
+    for(Tier tier : tiers)
+    {
+      printout.append(tier.getName());
+      for(int i = 0; i < QUANTITIES.length; i++)
+      {
+        printout.append("\t").append(String.format(locale, "%.2f", tier.getPrice(i)));
+      }
+      printout.append("\n");
+    }
+
+    return printout.toString();
+  }
+
+  private void formatItem(StringBuilder printout, Item item, int columns)
+  {
+    printout.append(item.getName()).append("\t")
+            .append(item.getId() == null ? " " : String.format("%05d", item.getId())).append("\t")
+            .append(item.getAmount()).append("\t")
+            .append(String.format(locale, "%.2f", item.getPrice())).append("\t")
+            .append(String.format(locale, "%.2f", item.getWeight()));
+    if(columns > 5)
+    {
+      printout.append("\t").append(String.format(locale, "%.2f", item.getTime()))
+              .append("\t").append(String.format(locale, "%.2f", item.getPower()));
+    }
+    printout.append("\n");
+  }
+
+  // Zeile der Stückliste, bei den Summen ohne Artikelnummer
+  public static final class Item
+  {
+    private final String name;
+    private final Integer id;
+    private final int amount;
+    private final Double price;
+    private final Double weight;
+    private final Double time;
+    private final Double power;
+
+    Item(String name, Integer id, int amount, Double price, Double weight, Double time, Double power)
+    {
+      this.name = name;
+      this.id = id;
+      this.amount = amount;
+      this.price = price;
+      this.weight = weight;
+      this.time = time;
+      this.power = power;
+    }
+
+    public String getName()
+    {
+      return name;
+    }
+
+    public Integer getId()
+    {
+      return id;
+    }
+
+    public int getAmount()
+    {
+      return amount;
+    }
+
+    public Double getPrice()
+    {
+      return price;
+    }
+
+    public Double getWeight()
+    {
+      return weight;
+    }
+
+    public Double getTime()
+    {
+      return time;
+    }
+
+    public Double getPower()
+    {
+      return power;
+    }
+  }
+
+  // Kostenposition, bei der Montage mit Stunden
+  public static final class Cost
+  {
+    private final String name;
+    private final Integer hours;
+    private final double price;
+
+    Cost(String name, Integer hours, double price)
+    {
+      this.name = name;
+      this.hours = hours;
+      this.price = price;
+    }
+
+    public String getName()
+    {
+      return name;
+    }
+
+    public Integer getHours()
+    {
+      return hours;
+    }
+
+    public double getPrice()
+    {
+      return price;
+    }
+  }
+
+  // Betrag je Staffel, Reihenfolge wie QUANTITIES
+  public static final class Tier
+  {
+    private final String name;
+    private final double[] prices;
+
+    Tier(String name, double... prices)
+    {
+      this.name = name;
+      this.prices = prices;
+    }
+
+    public String getName()
+    {
+      return name;
+    }
+
+    public double getPrice(int tier)
+    {
+      return prices[tier];
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package de.tichawa.cis.config;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Calculation.csv: Konstanten für die Kalkulation (Aufschläge, Stundensatz, VERSION, ...)
+public class CalculationTable
+{
+  private final Map<String, Integer> constants;
+  private final String version;
+
+  public CalculationTable(Path path) throws IOException
+  {
+    HashMap<String, Integer> constants = new HashMap<>();
+    String[] version = new String[1];
+
+    try(Stream<String> lines = Files.lines(path))
+    {
+      lines.map(line -> line.split("\t"))
+              .filter(line -> line.length > 1)
+              .forEach(line ->
+              {
+                if(line[0].equals("VERSION") && version[0] == null)
+                {
+                  version[0] = line[1];
+                }
+
+                try
+                {
+                  constants.put(line[0], Integer.parseInt(line[1]));
+                }
+                catch(NumberFormatException ignored)
+                {
+                }
+              });
+    }
+
+    this.constants = Collections.unmodifiableMap(constants);
+    this.version = version[0] == null ? "2.0" : version[0];
+  }
+
+  CalculationTable(Map<String, Integer> constants, String version)
+  {
+    this.constants = Collections.unmodifiableMap(constants);
+    this.version = version;
+  }
+
+  void write(DataOutput out) throws IOException
+  {
+    TableSnapshot.writeString(out, version);
+    out.writeInt(constants.size());
+    for(Map.Entry<String, Integer> constant : constants.entrySet())
+    {
+      TableSnapshot.writeString(out, constant.getKey());
+      out.writeInt(constant.getValue());
+    }
+  }
+
+  static CalculationTable read(ByteBuffer in)
+  {
+    String version = TableSnapshot.readString(in);
+    int size = in.getInt();
+    HashMap<String, Integer> constants = new HashMap<>();
+    for(int i = 0; i < size; i++)
+    {
+      constants.put(TableSnapshot.readString(in), in.getInt());
+    }
+    return new CalculationTable(constants, version);
+  }
+
+  public Map<String, Integer> getConstants()
+  {
+    return constants;
+  }
+
+  public String getVersion()
+  {
+    return version;
+  }
+}
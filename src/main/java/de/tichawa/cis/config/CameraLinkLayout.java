@@ -0,0 +1,280 @@
+package de.tichawa.cis.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Berechnet die Camera-Link-Belegung für getPortAssignment der Familien. Die Familien liefern die sensorabhängigen Werte
+// (Taps, LVAL, Datenrate), hier werden daraus Kabel und Ports. Die Tabellen werden einmal angelegt und nie verändert.
+public final class CameraLinkLayout
+{
+  // Maximaler Pixeltakt je Port (MHz)
+  public static final double MAX_PORT_RATE = 85.0;
+
+  // Tap je Port (1-basiert, 0 = frei), 10 Ports je Kabel, Zeile = Anzahl Phasen
+  private static final int[][] MEDIUM =
+  {
+    null,
+    {1, 2, 3, 4, 5, 6, 7, 8, 0, 0, 9, 10, 11, 12, 13, 14, 15, 16, 0, 0},
+    {1, 1, 0, 2, 2, 0, 0, 0, 0, 0, 3, 3, 0, 4, 4, 0, 0, 0, 0, 0},
+    {1, 1, 1, 2, 2, 2, 0, 0, 0, 0, 3, 3, 3, 4, 4, 4, 0, 0, 0, 0},
+    {1, 1, 1, 1, 0, 0, 0, 0, 0, 0, 2, 2, 2, 2, 0, 0, 0, 0, 0, 0},
+    {1, 1, 1, 1, 1, 0, 0, 0, 0, 0, 2, 2, 2, 2, 2, 0, 0, 0, 0, 0},
+    {1, 1, 1, 1, 1, 1, 0, 0, 0, 0, 2, 2, 2, 2, 2, 2, 0, 0, 0, 0}
+  };
+  private static final int[][] FULL80 =
+  {
+    null,
+    {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20},
+    {1, 1, 0, 2, 2, 0, 3, 3, 0, 0, 4, 4, 0, 5, 5, 0, 6, 6, 0, 0},
+    {1, 1, 1, 2, 2, 2, 3, 3, 3, 0, 4, 4, 4, 5, 5, 5, 6, 6, 6, 0},
+    MEDIUM[4],
+    MEDIUM[5],
+    MEDIUM[6]
+  };
+  //VDCIS: einfarbig nur 9 Ports je Kabel
+  private static final int[] FULL80_9 = {1, 2, 3, 4, 5, 6, 7, 8, 9, 0, 10, 11, 12, 13, 14, 15, 16, 17, 18, 0};
+
+  // VHCIS: Kabel je Tap-Bereich wie bisher im Datenblatt.
+  // Zeilen {Kabel, erster Tap, Tap danach (-1: bis taps), Versatz des Portnamens, zählt als Stecker}, ein Kabel ohne Ports wird nur aufgeführt.
+  private static final int[][] VHCIS_NONE = {{1, 0, 0, 0, 0}};
+  private static final int[][] VHCIS_10 = {{1, 0, 3, 0, 1}, {2, 3, -1, 0, 1}};
+  private static final int[][] VHCIS_16 = {{1, 0, 3, 0, 0}, {2, 3, 8, 0, 1}, {3, 8, 11, 0, 1}, {4, 11, -1, 0, 1}};
+  private static final int[][] VHCIS_40 = {{1, 0, 3, 0, 0}, {2, 3, 10, 0, 1}, {3, 10, 13, 10, 1}, {4, 13, 20, 10, 1}};
+  private static final int[][] VHCIS_EXTRA_NONE = {{5, 20, 20, 20, 0}};
+  private static final int[][] VHCIS_EXTRA_30 = {{5, 20, 23, 20, 1}, {6, 23, -1, 20, 1}};
+  private static final int[][] VHCIS_EXTRA_36 = {{5, 20, 23, 20, 0}, {6, 23, 28, 20, 1}, {3, 28, 31, 28, 1}, {4, 31, -1, 28, 1}};
+  private static final int[][] VHCIS_EXTRA_40 = {{5, 20, 23, 20, 0}, {2, 23, 10, 20, 1}, {3, 30, 33, 30, 1}, {4, 33, -1, 30, 1}};
+
+  private static final PortAssignment.Colour[] RGB = PortAssignment.Colour.values();
+
+  private CameraLinkLayout()
+  {
+  }
+
+  // Belegungstabelle für VTCIS (Base/Medium/Full oder Full80), nicht verändern
+  public static int[] getSlots(boolean mediumMode, int phases)
+  {
+    return (mediumMode ? MEDIUM : FULL80)[phases];
+  }
+
+  // Wie getSlots, aber Full80 einfarbig mit 9 Ports je Kabel (VDCIS)
+  public static int[] getSlots9(boolean mediumMode, int phases)
+  {
+    return !mediumMode && phases == 1 ? FULL80_9 : getSlots(mediumMode, phases);
+  }
+
+  public static int getMaxTaps(int[] slots)
+  {
+    int max = 0;
+    for(int tap : slots)
+    {
+      max = Math.max(max, tap);
+    }
+    return max;
+  }
+
+  // Kleinste Anzahl Taps ab minTaps, bei der jeder Tap mit (int) (ceil(units / taps) * pixelsPerUnit) Pixeln
+  // und lineRate höchstens MAX_PORT_RATE erreicht (units: z.B. Sensorchips). Statt hochzuzählen wird die größte
+  // zulässige Anzahl units je Tap bestimmt und daraus die Taps.
+  public static int getTaps(int minTaps, int units, double pixelsPerUnit, int lineRate)
+  {
+    //minTaps <= 0 nur bei Überlauf der Datenrate, dann wie bisher schrittweise
+    for(int taps = minTaps; taps <= Math.max(minTaps, 0); taps++)
+    {
+      if(fits((int) Math.ceil(units / (double) taps), pixelsPerUnit, lineRate))
+      {
+        return taps;
+      }
+    }
+
+    //Passt nicht einmal eine unit auf einen Tap, dann eine je Tap
+    int perTap = (int) Math.max(1, Math.min(units, Math.floor(MAX_PORT_RATE * 1000000.0 / lineRate / pixelsPerUnit)));
+    while(perTap < units && fits(perTap + 1, pixelsPerUnit, lineRate))
+    {
+      perTap++;
+    }
+    while(perTap > 1 && !fits(perTap, pixelsPerUnit, lineRate))
+    {
+      perTap--;
+    }
+    return Math.max(minTaps, (units + perTap - 1) / perTap);
+  }
+
+  private static boolean fits(int perTap, double pixelsPerUnit, int lineRate)
+  {
+    return (int) (perTap * pixelsPerUnit) * lineRate / 1000000.0 <= MAX_PORT_RATE;
+  }
+
+  // VTCIS, VDCIS: Taps für nominalPixels mit 1 % Reserve
+  public static int getTaps(int nominalPixels, int lineRate)
+  {
+    return getTaps((long) nominalPixels * lineRate / 1000000);
+  }
+
+  private static int getTaps(long megaPixels)
+  {
+    return (int) Math.ceil(1.01 * megaPixels / MAX_PORT_RATE);
+  }
+
+  // Größte Zeilenfrequenz, bei der getTaps(nominalPixels, lineRate) höchstens maxTaps ergibt
+  public static int getMaxLineRate(int nominalPixels, int maxTaps)
+  {
+    if(nominalPixels <= 0)
+    {
+      return Integer.MAX_VALUE;
+    }
+
+    //Größte ganze Zahl MPixel/s, die noch passt, Rundung der Division ausgleichen
+    long megaPixels = (long) (maxTaps * MAX_PORT_RATE / 1.01);
+    while(getTaps(megaPixels + 1) <= maxTaps)
+    {
+      megaPixels++;
+    }
+    while(megaPixels >= 0 && getTaps(megaPixels) > maxTaps)
+    {
+      megaPixels--;
+    }
+    return (int) Math.min(Integer.MAX_VALUE, ((megaPixels + 1) * 1000000 - 1) / nominalPixels);
+  }
+
+  // VSCIS: größte Zeilenfrequenz, bei der getTaps(...) mit höchstens maxTaps auskommt (ohne Überlauf gerechnet)
+  public static int getMaxLineRate(int numOfPix, int maxTaps, int units, double pixelsPerUnit)
+  {
+    //Mindestanzahl Taps aus der Datenrate der ganzen Zeile
+    double maxLineRate = numOfPix <= 0 ? Integer.MAX_VALUE : Math.floor(maxTaps * MAX_PORT_RATE * 1000000.0 / numOfPix);
+    int perTap = (int) Math.ceil(units / (double) maxTaps);
+    int pixels = (int) (perTap * pixelsPerUnit);
+    if(pixels > 0)
+    {
+      maxLineRate = Math.min(maxLineRate, Math.floor(MAX_PORT_RATE * 1000000.0 / pixels));
+    }
+    return (int) Math.min(Integer.MAX_VALUE, maxLineRate);
+  }
+
+  // VTCIS, VDCIS: Ports nach Belegungstabelle, ein Stecker je Port A und D eines Kabels
+  public static PortAssignment fromSlots(int[] slots, int taps, int lval, int nominalPixels, int portCount, double dataRate)
+  {
+    List<PortAssignment.Cable> cables = new ArrayList<>();
+    int connectors = 0;
+    for(int slot = 0; slot < slots.length; slot++)
+    {
+      int tap = slots[slot];
+      if(tap > 0 && taps >= tap)
+      {
+        if(slot % 10 == 0)
+        {
+          cables.add(new PortAssignment.Cable(slot / 10 + 1));
+        }
+        cables.get(cables.size() - 1).add(new PortAssignment.Port(slot % 10, (tap - 1) * lval, tap * lval - 1, null));
+
+        if(slot % 10 == 0 || slot % 10 == 3)
+        {
+          connectors++;
+        }
+      }
+    }
+    return new PortAssignment(taps, lval, nominalPixels, connectors, portCount, dataRate, cables);
+  }
+
+  // VSCIS: einfarbig Ports A-C auf Kabel 1, ab D auf Kabel 2. RGB je Kabel ein Tap auf drei Ports, der dritte Tap auf Kabel 2 (Ports D-F).
+  public static PortAssignment forVSCIS(int taps, int lval, int colours, int nominalPixels, double dataRate)
+  {
+    List<PortAssignment.Cable> cables = new ArrayList<>();
+    if(colours == 3)
+    {
+      for(int x = 0; x < Math.min(2, taps); x++)
+      {
+        PortAssignment.Cable cable = new PortAssignment.Cable(x + 1);
+        addRGB(cable, x * 3, x * lval, (x + 1) * lval - 1);
+        cables.add(cable);
+      }
+      if(taps == 3)
+      {
+        addRGB(cables.get(1), 3, 2 * lval, 3 * lval - 1);
+      }
+    }
+    else if(colours == 1)
+    {
+      cables.add(new PortAssignment.Cable(1));
+      for(int x = 0; x < taps; x++)
+      {
+        if(x == 3)
+        {
+          cables.add(new PortAssignment.Cable(2));
+        }
+        cables.get(cables.size() - 1).add(new PortAssignment.Port(x, x * lval, (x + 1) * lval - 1, null));
+      }
+    }
+    return new PortAssignment(taps, lval, nominalPixels, taps * colours > 3 ? 2 : 1, taps * colours, dataRate, cables);
+  }
+
+  // VHCIS: Kabelplan je Tap-Bereich (siehe VHCIS_...), Ports fortlaufend mit Pixelbereich x * lval bis (x + 1) * lval - 1
+  public static PortAssignment forVHCIS(int taps, int lval, int nominalPixels, int portCount, double dataRate)
+  {
+    List<PortAssignment.Cable> cables = new ArrayList<>();
+    int connectors = addPlan(cables, taps, lval, taps >= 1 && taps <= 10 ? VHCIS_10 : taps >= 11 && taps <= 16 ? VHCIS_16 : taps >= 17 && taps <= 40 ? VHCIS_40 : VHCIS_NONE);
+    if(taps > 20)
+    {
+      connectors += addPlan(cables, taps, lval, taps <= 30 ? VHCIS_EXTRA_30 : taps <= 36 ? VHCIS_EXTRA_36 : taps <= 40 ? VHCIS_EXTRA_40 : VHCIS_EXTRA_NONE);
+    }
+    return new PortAssignment(taps, lval, nominalPixels, connectors, portCount, dataRate, cables);
+  }
+
+  // Liefert die Anzahl der gezählten Stecker
+  private static int addPlan(List<PortAssignment.Cable> cables, int taps, int lval, int[][] plan)
+  {
+    int connectors = 0;
+    for(int row = 0; row < plan.length; row++)
+    {
+      int[] cable = plan[row];
+      //Das erste Kabel eines Plans wird immer aufgeführt
+      if(row == 0 || taps > cable[1])
+      {
+        PortAssignment.Cable ports = new PortAssignment.Cable(cable[0]);
+        int end = cable[2] < 0 ? taps : Math.min(cable[2], taps);
+        for(int x = cable[1]; x < end; x++)
+        {
+          ports.add(new PortAssignment.Port(x - cable[3], x * lval, (x + 1) * lval - 1, null));
+        }
+        cables.add(ports);
+        connectors += cable[4];
+      }
+    }
+    return connectors;
+  }
+
+  // MXCIS: RGB je Tap ein Kabel mit drei Ports, einfarbig zwei Taps je Kabel. Ist LVAL größer als die Pixelzahl, endet jeder Port dort.
+  public static PortAssignment forMXCIS(int taps, int lval, int numOfPix, int colours, int connectors, int portCount, double dataRate)
+  {
+    List<PortAssignment.Cable> cables = new ArrayList<>();
+    if(colours == 4)
+    {
+      for(int x = 0; x < taps; x++)
+      {
+        PortAssignment.Cable cable = new PortAssignment.Cable(x + 1);
+        addRGB(cable, 0, x * lval, lval > numOfPix ? numOfPix - 1 : (x + 1) * lval - 1);
+        cables.add(cable);
+      }
+    }
+    else if(colours == 1)
+    {
+      for(int x = 1; (x - 1) * lval < numOfPix; x++)
+      {
+        if(x % 2 == 1)
+        {
+          cables.add(new PortAssignment.Cable((x + 1) / 2));
+        }
+        cables.get(cables.size() - 1).add(new PortAssignment.Port((x + 1) % 2, (x - 1) * lval, lval > numOfPix ? numOfPix - 1 : x * lval - 1, null));
+      }
+    }
+    return new PortAssignment(taps, lval, numOfPix, connectors, portCount, dataRate, cables);
+  }
+
+  private static void addRGB(PortAssignment.Cable cable, int firstPort, int first, int last)
+  {
+    for(int colour = 0; colour < RGB.length; colour++)
+    {
+      cable.add(new PortAssignment.Port(firstPort + colour, first, last, RGB[colour]));
+    }
+  }
+}
@@ -0,0 +1,192 @@
+package de.tichawa.cis.config;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+// Bedingungsspalte aus Electronics.csv/Mechanics.csv ("&"-verknüpft, "!" negiert), wird beim Einlesen einmal übersetzt.
+// Jede bekannte Bedingung ist ein Bit im Merkmalsvektor der aktuellen Konfiguration (siehe CalculationContext).
+public final class Condition
+{
+  public static final String[] COLORS = {"RGB", "AM", "BL", "GR", "IR", "YE", "WH"};
+  public static final String[] RESOLUTIONS = {"25dpi", "50dpi", "75dpi", "100dpi", "150dpi", "200dpi", "300dpi", "400dpi", "600dpi", "1200dpi", "2400dpi"};
+  public static final String[] COOLINGS = {"NOCO", "FAIR", "PAIR", "LICO"};
+
+  public static final long MONO = 1L;
+  public static final long GIGE = 1L << 1;
+  public static final long CL = 1L << 2;
+  public static final long COAX = 1L << 3;
+  public static final long DIFF = 1L << 4;
+  public static final long DEFAULT_COOLING = 1L << 5;
+  public static final long NOEXT = 1L << 6;
+  public static final long EXT = 1L << 7;
+  public static final long LOW = 1L << 8;
+  public static final long HIGH = 1L << 9;
+  private static final int COLOR_SHIFT = 10;
+  private static final int RESOLUTION_SHIFT = COLOR_SHIFT + COLORS.length;
+  private static final int COOLING_SHIFT = RESOLUTION_SHIFT + RESOLUTIONS.length;
+  private static final int LED_SHIFT = COOLING_SHIFT + COOLINGS.length;
+  public static final int MAX_LED_LINES = 7;
+  public static final long LED_LINES = ((1L << (MAX_LED_LINES + 1)) - 1) << LED_SHIFT;
+
+  private static final Map<String, Long> TOKENS = new HashMap<>();
+
+  static
+  {
+    TOKENS.put("", 0L); //No code
+    TOKENS.put("FPGA", 0L); //Notifier for FPGA parts, always true (negated or not)
+    TOKENS.put("MONO", MONO);
+    TOKENS.put("GIGE", GIGE);
+    TOKENS.put("CL", CL);
+    TOKENS.put("COAX", COAX);
+    TOKENS.put("DIFF", DIFF);
+    TOKENS.put("default", DEFAULT_COOLING);
+    TOKENS.put("NOEXT", NOEXT);
+    TOKENS.put("EXT", EXT);
+    TOKENS.put("L", LOW);
+    TOKENS.put("H", HIGH);
+    for(int i = 0; i < COLORS.length; i++)
+    {
+      TOKENS.put(COLORS[i], color(i));
+    }
+    for(int i = 0; i < RESOLUTIONS.length; i++)
+    {
+      TOKENS.put(RESOLUTIONS[i], resolution(i));
+    }
+    for(int i = 0; i < COOLINGS.length; i++)
+    {
+      TOKENS.put(COOLINGS[i], cooling(i));
+    }
+  }
+
+  private final String text;
+  private final long required;
+  private final long forbidden;
+  private final boolean never;
+
+  private Condition(String text, long required, long forbidden, boolean never)
+  {
+    this.text = text;
+    this.required = required;
+    this.forbidden = forbidden;
+    this.never = never;
+  }
+
+  public static Condition compile(String text)
+  {
+    long required = 0;
+    long forbidden = 0;
+    boolean never = false;
+
+    for(String m : text.split("&"))
+    {
+      boolean invert = m.startsWith("!");
+      m = (invert ? m.substring(1) : m);
+
+      Long bit = TOKENS.get(m);
+      Long lines = bit == null ? getLedLines(m) : null;
+      if(lines != null)
+      {
+        //Vergleiche mit der Anzahl LED-Zeilen (L==1, L>0, L<2) verbieten alle übrigen Werte
+        forbidden |= invert ? lines : LED_LINES & ~lines;
+      }
+      else if(bit == null)
+      {
+        //Unknown modifier, never matches (negated or not)
+        never = true;
+      }
+      else if(invert)
+      {
+        forbidden |= bit;
+      }
+      else
+      {
+        required |= bit;
+      }
+    }
+
+    return new Condition(text, required, forbidden, never);
+  }
+
+  // Erlaubte Werte als Bits, null wenn der Ausdruck kein Vergleich mit L ist
+  private static Long getLedLines(String m)
+  {
+    String[] parts = m.split("==|<|>", -1);
+    if(parts.length != 2 || !parts[0].equals("L") || !parts[1].matches("[0-9]+"))
+    {
+      return null;
+    }
+
+    int value = Integer.parseInt(parts[1]);
+    long lines = 0;
+    for(int i = 0; i <= MAX_LED_LINES; i++)
+    {
+      if(m.contains("==") ? i == value : m.contains(">") ? i > value : i < value)
+      {
+        lines |= ledLines(i);
+      }
+    }
+    return lines;
+  }
+
+  void write(DataOutput out) throws IOException
+  {
+    TableSnapshot.writeString(out, text);
+    out.writeLong(required);
+    out.writeLong(forbidden);
+    out.writeBoolean(never);
+  }
+
+  static Condition read(ByteBuffer in)
+  {
+    return new Condition(TableSnapshot.readString(in), in.getLong(), in.getLong(), in.get() != 0);
+  }
+
+  public static long color(int index)
+  {
+    return 1L << (COLOR_SHIFT + index);
+  }
+
+  public static long resolution(int index)
+  {
+    return 1L << (RESOLUTION_SHIFT + index);
+  }
+
+  public static long cooling(int index)
+  {
+    return 1L << (COOLING_SHIFT + index);
+  }
+
+  public static long ledLines(int lines)
+  {
+    if(lines < 0 || lines > MAX_LED_LINES)
+    {
+      throw new CISException("Unsupported number of LED lines: " + lines);
+    }
+    return 1L << (LED_SHIFT + lines);
+  }
+
+  public boolean matches(long features)
+  {
+    return !never && (features & required) == required && (features & forbidden) == 0;
+  }
+
+  // Merkmale, von denen das Ergebnis abhängt
+  public long getMask()
+  {
+    return never ? 0 : required | forbidden;
+  }
+
+  public boolean contains(String token)
+  {
+    return text.contains(token);
+  }
+
+  @Override
+  public String toString()
+  {
+    return text;
+  }
+}
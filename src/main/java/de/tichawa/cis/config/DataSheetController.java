@@ -1,7 +1,11 @@
 package de.tichawa.cis.config;
 
 import java.net.*;
+import java.nio.file.*;
 import java.util.*;
+import java.util.function.*;
+import javafx.application.*;
+import javafx.concurrent.*;
 import javafx.fxml.*;
 import javafx.print.*;
 import javafx.scene.control.*;
@@ -15,7 +19,8 @@ import javafx.stage.*;
 // Datasheet für alle CIS
 public class DataSheetController implements Initializable
 {
-  protected CIS CIS_DATA;
+  protected CalculationResult CIS_DATA;
+  private long recalculation;
 
   @FXML
   private ScrollPane Scroller;
@@ -46,11 +51,57 @@ public class DataSheetController implements Initializable
 
   }
 
-  public void passData(CIS data)
+  public void passData(CalculationResult data)
   {
     this.CIS_DATA = data;
 
     load();
+    watchTables();
+  }
+
+  // Nach neu eingelesenen Tabellen neu kalkulieren, bis das Fenster geschlossen wird. Im OEM-Modus bleiben die bearbeiteten Texte stehen.
+  private void watchTables()
+  {
+    Consumer<Set<Path>> listener = paths ->
+    {
+      if(paths.stream().anyMatch(path -> path.startsWith(Settings.tableHome)))
+      {
+        //Fenster und Ergebnis nur auf dem FX Thread lesen, kalkuliert wird im Hintergrund mit der Kopie im Ergebnis
+        Platform.runLater(() ->
+        {
+          if(Specs.isEditable())
+          {
+            return;
+          }
+          CalculationResult current = CIS_DATA;
+          long request = ++recalculation;
+          Task<CalculationResult> task = new Task<CalculationResult>()
+          {
+            @Override
+            protected CalculationResult call()
+            {
+              return current.recalculate();
+            }
+          };
+          task.setOnSucceeded(e ->
+          {
+            //Inzwischen geschlossen, bearbeitet oder schon wieder neu eingelesen
+            if(request != recalculation || Specs.isEditable() || !Header.getScene().getWindow().isShowing())
+            {
+              return;
+            }
+            CIS_DATA = task.getValue();
+            load();
+          });
+          task.setOnFailed(e -> task.getException().printStackTrace());
+          Thread thread = new Thread(task, "Recalculation");
+          thread.setDaemon(true);
+          thread.start();
+        });
+      }
+    };
+    TableWatcher.addListener(listener);
+    Header.getScene().getWindow().addEventHandler(WindowEvent.WINDOW_HIDDEN, event -> TableWatcher.removeListener(listener));
   }
 
   public TextArea getHeader()
@@ -78,7 +129,7 @@ public class DataSheetController implements Initializable
       File.setText(ResourceBundle.getBundle("de.tichawa.cis.config.Bundle", CIS_DATA.getLocale()).getString("File"));
       Print.setText(ResourceBundle.getBundle("de.tichawa.cis.config.Bundle", CIS_DATA.getLocale()).getString("Print"));
 
-      String[] dataSheetText = CIS_DATA.createPrntOut().split("\n\t\n");
+      String[] dataSheetText = CIS_DATA.createDataSheet();
       String key = CIS_DATA.getTiViKey();
 
       Header.setText(dataSheetText[0]);
@@ -172,11 +223,11 @@ public class DataSheetController implements Initializable
   {
     if(CIS_DATA.getLocale().toString().equals("de_DE"))
     {
-      CIS_DATA.setLocale(new Locale("en", "US"));
+      CIS.setLocale(new Locale("en", "US"));
     }
     else if(CIS_DATA.getLocale().toString().equals("en_US"))
     {
-      CIS_DATA.setLocale(new Locale("de", "DE"));
+      CIS.setLocale(new Locale("de", "DE"));
     }
 
     load();
@@ -0,0 +1,343 @@
+package de.tichawa.cis.config;
+
+import de.tichawa.cis.config.ldstd.LDSTD;
+import de.tichawa.cis.config.model.tables.records.ComponentsRecord;
+import de.tichawa.cis.config.model.tables.records.ConstantsRecord;
+import de.tichawa.cis.config.model.tables.records.ElectronicsRecord;
+import de.tichawa.cis.config.model.tables.records.MechanicsRecord;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jooq.DSLContext;
+import org.jooq.Param;
+import org.jooq.Result;
+import org.jooq.ResultQuery;
+import org.jooq.SQLDialect;
+import org.jooq.exception.DataAccessException;
+import org.jooq.impl.DSL;
+
+import static de.tichawa.cis.config.model.Tables.*;
+
+// Liest die Tabellen aus configurator.sqlite statt aus tableHome (Launcher-Eigenschaft tableSource=database).
+// Die Datenbank führt je Scanbreite und je Beleuchtung eine eigene Zeile, hier wird daraus wieder eine Zeile
+// mit einer Spalte je Scanbreite bzw. Internal Light Source, damit Formeln, Bedingungen und DependencyIndex unverändert bleiben.
+// Abgefragt wird je CIS über den Primärschlüssel (cis, cis_length, ...), die vorbereiteten Abfragen bleiben offen.
+public final class DatabaseTableProvider implements AutoCloseable
+{
+  public static final String BUNDLED = "jdbc:sqlite::resource:de/tichawa/cis/config/configurator.sqlite";
+
+  //Diffuse/Koaxiale Beleuchtungen je Internal Light Source, siehe getTiViKey()
+  private static final int[][] LIGHTS = {{0, 0}, {1, 0}, {2, 0}, {2, 1}, {0, 1}};
+  private static final int[][] MXCIS_LIGHTS = {{0, 0}, {1, 0}, {0, 1}, {2, 0}, {1, 1}};
+
+  private final Connection connection;
+  private final ResultQuery<ComponentsRecord> components;
+  private final ResultQuery<ElectronicsRecord> electronics;
+  private final ResultQuery<MechanicsRecord> mechanics;
+  private final ResultQuery<ConstantsRecord> constants;
+  private final Map<String, Object> tables = new ConcurrentHashMap<>();
+
+  public DatabaseTableProvider(String url) throws SQLException
+  {
+    connection = DriverManager.getConnection(url);
+    DSLContext db = DSL.using(connection, SQLDialect.SQLITE);
+    Param<String> cis = DSL.param("cis", String.class);
+
+    components = db.selectFrom(COMPONENTS)
+            .orderBy(COMPONENTS.ID)
+            .keepStatement(true);
+    electronics = db.selectFrom(ELECTRONICS)
+            .where(ELECTRONICS.CIS.eq(cis))
+            .orderBy(ELECTRONICS.COMPONENT_ID, ELECTRONICS.CONDITION, ELECTRONICS.CIS_LENGTH)
+            .keepStatement(true);
+    mechanics = db.selectFrom(MECHANICS)
+            .where(MECHANICS.CIS.eq(cis))
+            .orderBy(MECHANICS.COMPONENT_ID, MECHANICS.CONDITION, MECHANICS.CIS_LENGTH, MECHANICS.DIFFUSE_LIGHTS, MECHANICS.COAX_LIGHTS)
+            .keepStatement(true);
+    constants = db.selectFrom(CONSTANTS)
+            .where(CONSTANTS.CIS.eq(cis))
+            .keepStatement(true);
+  }
+
+  public PriceTable getPrices() throws IOException
+  {
+    return (PriceTable) get("Prices", this::readPrices);
+  }
+
+  public ElectronicsTable getElectronics(String cisName) throws IOException
+  {
+    return (ElectronicsTable) get(cisName.toUpperCase() + "/Electronics", () -> readElectronics(cisName.toUpperCase()));
+  }
+
+  public MechanicsTable getMechanics(String cisName) throws IOException
+  {
+    return (MechanicsTable) get(cisName.toUpperCase() + "/Mechanics", () -> readMechanics(cisName.toUpperCase()));
+  }
+
+  public CalculationTable getCalculation(String cisName) throws IOException
+  {
+    return (CalculationTable) get(cisName.toUpperCase() + "/Calculation", () -> readCalculation(cisName.toUpperCase()));
+  }
+
+  public void clear()
+  {
+    tables.clear();
+  }
+
+  @Override
+  public synchronized void close() throws SQLException
+  {
+    components.close();
+    electronics.close();
+    mechanics.close();
+    constants.close();
+    connection.close();
+  }
+
+  private Object get(String name, Reader reader) throws IOException
+  {
+    Object table = tables.get(name);
+    if(table == null)
+    {
+      try
+      {
+        synchronized(this)
+        {
+          table = tables.get(name);
+          if(table == null)
+          {
+            table = reader.read();
+            tables.put(name, table);
+          }
+        }
+      }
+      catch(DataAccessException ex)
+      {
+        throw new IOException("Error reading " + name + " from database", ex);
+      }
+    }
+    return table;
+  }
+
+  private PriceTable readPrices()
+  {
+    Result<ComponentsRecord> records = components.fetch();
+    int[] itemNos = new int[records.size()];
+    String[] keys = new String[records.size()];
+    double[][] columns = new double[PriceTable.COLUMNS][records.size()];
+    BitSet missing = new BitSet();
+    for(int row = 0; row < records.size(); row++)
+    {
+      ComponentsRecord record = records.get(row);
+      itemNos[row] = record.get(COMPONENTS.ID);
+      keys[row] = record.get(COMPONENTS.FERIX_KEY);
+      columns[PriceTable.PRICE][row] = getDouble(record.get(COMPONENTS.PRICE));
+      columns[PriceTable.TIME][row] = getDouble(record.get(COMPONENTS.TIME));
+      columns[PriceTable.POWER][row] = getDouble(record.get(COMPONENTS.POWER));
+      columns[PriceTable.WEIGHT][row] = getDouble(record.get(COMPONENTS.WEIGHT));
+      //Die Datenbank kennt keinen Faktor, wie eine leere Spalte in Prices.csv
+      missing.set(row * PriceTable.COLUMNS + PriceTable.FACTOR);
+    }
+    return new PriceTable(itemNos, keys, columns, missing);
+  }
+
+  private static double getDouble(BigDecimal value)
+  {
+    return value == null ? 0.0 : value.doubleValue();
+  }
+
+  // Eine Zeile je Artikel und Bedingung, die Menge steht in der Spalte ihrer Scanbreite
+  private ElectronicsTable readElectronics(String cisName) throws IOException
+  {
+    electronics.bind("cis", getFamily(cisName));
+    Result<ElectronicsRecord> records = electronics.fetch();
+    int swCount = records.stream()
+            .mapToInt(record -> getSWIndex(cisName, record.get(ELECTRONICS.CIS_LENGTH)) + 1)
+            .max().orElse(0);
+
+    PriceTable prices = getPrices();
+    Map<List<Object>, String[]> lines = new LinkedHashMap<>();
+    for(ElectronicsRecord record : records)
+    {
+      int swIndex = getSWIndex(cisName, record.get(ELECTRONICS.CIS_LENGTH));
+      if(swIndex < 0)
+      {
+        continue;
+      }
+
+      int itemNo = record.get(ELECTRONICS.COMPONENT_ID);
+      String condition = record.get(ELECTRONICS.CONDITION) == null ? "" : record.get(ELECTRONICS.CONDITION);
+      String[] line = lines.computeIfAbsent(Arrays.asList(itemNo, condition), k ->
+      {
+        String[] l = new String[4 + swCount];
+        l[0] = prices.getKey(itemNo) == null ? String.valueOf(itemNo) : prices.getKey(itemNo);
+        l[1] = String.valueOf(itemNo);
+        l[2] = condition;
+        l[3] = "1";
+        Arrays.fill(l, 4, l.length, "0");
+        return l;
+      });
+      line[4 + swIndex] = record.get(ELECTRONICS.AMOUNT);
+    }
+
+    List<ElectronicsTable.Row> rows = new ArrayList<>();
+    lines.values().forEach(line -> rows.add(new ElectronicsTable.Row(line)));
+    return new ElectronicsTable(rows);
+  }
+
+  // Zeilen mit gleichem Artikel, gleicher Bedingung und gleichen Mengen je Beleuchtung werden über die Scanbreiten zusammengefasst.
+  // Beim LDSTD hängt die Menge von der Scanbreite ab, dort gibt es eine Zeile je Artikel und Bedingung.
+  private MechanicsTable readMechanics(String cisName) throws IOException
+  {
+    mechanics.bind("cis", getFamily(cisName));
+    Result<MechanicsRecord> records = mechanics.fetch();
+    int nlCount = records.stream()
+            .mapToInt(record -> getSWIndex(cisName, record.get(MECHANICS.CIS_LENGTH)) + 1)
+            .max().orElse(0);
+    int factorCount = cisName.equals("LDSTD") ? nlCount : LIGHTS.length;
+
+    Map<List<Object>, String[]> factors = new LinkedHashMap<>();
+    for(MechanicsRecord record : records)
+    {
+      int swIndex = getSWIndex(cisName, record.get(MECHANICS.CIS_LENGTH));
+      int column = cisName.equals("LDSTD") ? swIndex : getLightSource(cisName, record.get(MECHANICS.DIFFUSE_LIGHTS), record.get(MECHANICS.COAX_LIGHTS));
+      if(swIndex < 0 || column < 0)
+      {
+        continue;
+      }
+
+      String condition = record.get(MECHANICS.CONDITION) == null ? "" : record.get(MECHANICS.CONDITION);
+      factors.computeIfAbsent(Arrays.asList(record.get(MECHANICS.COMPONENT_ID), condition, swIndex), k ->
+      {
+        String[] f = new String[factorCount];
+        Arrays.fill(f, "0");
+        return f;
+      })[column] = record.get(MECHANICS.AMOUNT);
+    }
+
+    PriceTable prices = getPrices();
+    Map<List<Object>, String[]> lines = new LinkedHashMap<>();
+    factors.forEach((key, f) ->
+    {
+      int itemNo = (Integer) key.get(0);
+      int swIndex = (Integer) key.get(2);
+      String[] line = lines.computeIfAbsent(cisName.equals("LDSTD") ? key.subList(0, 2) : Arrays.asList(key.get(0), key.get(1), Arrays.asList(f)), k ->
+      {
+        String[] l = new String[3 + nlCount + factorCount];
+        l[0] = prices.getKey(itemNo) == null ? String.valueOf(itemNo) : prices.getKey(itemNo);
+        l[1] = "";
+        l[2] = (String) key.get(1);
+        Arrays.fill(l, 3, 3 + nlCount, "");
+        Arrays.fill(l, 3 + nlCount, l.length, "0");
+        return l;
+      });
+      line[3 + swIndex] = String.valueOf(itemNo);
+      for(int x = 0; x < factorCount; x++)
+      {
+        if(!f[x].equals("0"))
+        {
+          line[3 + nlCount + x] = f[x];
+        }
+      }
+    });
+
+    List<MechanicsTable.Row> rows = new ArrayList<>();
+    lines.values().forEach(line -> rows.add(new MechanicsTable.Row(line)));
+    return new MechanicsTable(nlCount, rows);
+  }
+
+  private CalculationTable readCalculation(String cisName)
+  {
+    constants.bind("cis", getFamily(cisName));
+    HashMap<String, Integer> values = new HashMap<>();
+    String version = "2.0";
+    for(ConstantsRecord record : constants.fetch())
+    {
+      String key = record.get(CONSTANTS.KEY);
+      String value = record.get(CONSTANTS.VALUE);
+      if(key.equals("VERSION"))
+      {
+        version = value;
+      }
+
+      try
+      {
+        values.put(key, Integer.parseInt(value));
+      }
+      catch(NumberFormatException ignored)
+      {
+      }
+    }
+    return new CalculationTable(values, version);
+  }
+
+  // Das LDSTD heißt in der Datenbank MXLED
+  static String getFamily(String cisName)
+  {
+    return cisName.equals("LDSTD") ? "MXLED" : cisName;
+  }
+
+  // Wie sw_index in den MaskControllern, -1 für Scanbreiten, die das CIS nicht kennt
+  static int getSWIndex(String cisName, int length)
+  {
+    switch(cisName)
+    {
+      case "VSCIS":
+        return length % 130 == 0 ? length / 130 - 2 : -1;
+      case "MXCIS":
+        return length % CIS.BASE_LENGTH == 0 ? length / CIS.BASE_LENGTH - 2 : -1;
+      case "LDSTD":
+        return LDSTD.getSWIndex(length);
+      default:
+        return length % CIS.BASE_LENGTH == 0 ? length / CIS.BASE_LENGTH - 1 : -1;
+    }
+  }
+
+  // Umkehrung von getSWIndex, alle Scanbreiten sind Vielfache von 130 mm
+  static int getLength(String cisName, int swIndex)
+  {
+    for(int length = 130; length <= 32 * CIS.BASE_LENGTH; length += 130)
+    {
+      if(getSWIndex(cisName, length) == swIndex)
+      {
+        return length;
+      }
+    }
+    return -1;
+  }
+
+  // Diffuse und koaxiale Beleuchtungen, Index wie Internal Light Source
+  static int[][] getLights(String cisName)
+  {
+    return cisName.equals("MXCIS") ? MXCIS_LIGHTS : LIGHTS;
+  }
+
+  private static int getLightSource(String cisName, int diffuse, int coax)
+  {
+    int[][] lights = getLights(cisName);
+    for(int x = 0; x < lights.length; x++)
+    {
+      if(lights[x][0] == diffuse && lights[x][1] == coax)
+      {
+        return x;
+      }
+    }
+    return -1;
+  }
+
+  @FunctionalInterface
+  private interface Reader
+  {
+    Object read() throws IOException;
+  }
+}
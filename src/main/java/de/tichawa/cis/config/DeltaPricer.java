@@ -0,0 +1,43 @@
+package de.tichawa.cis.config;
+
+import java.util.Collections;
+import java.util.Map;
+
+// Was ändert sich an Preis und Stückliste, wenn einzelne Optionen der Basiskonfiguration geändert werden?
+// Gegenüber der Basis werden nur die Zeilen neu ausgewertet, die laut DependencyIndex von den geänderten Einträgen abhängen.
+public final class DeltaPricer
+{
+  private final CIS base;
+  private final RowMemo electronics = new RowMemo();
+  private final RowMemo mechanics = new RowMemo();
+  private final CalculationResult baseResult;
+
+  public DeltaPricer(CIS cis)
+  {
+    base = cis.copy();
+    baseResult = base.calculate(electronics, mechanics);
+  }
+
+  public CalculationResult getBase()
+  {
+    return baseResult;
+  }
+
+  public PriceDelta price(String key, int value)
+  {
+    return price(Collections.singletonMap(key, value));
+  }
+
+  public synchronized PriceDelta price(Map<String, Integer> changes)
+  {
+    CIS changed = base.copy();
+    changes.forEach(changed::setSpec);
+    return new PriceDelta(baseResult, changed.calculate(electronics, mechanics, changes.keySet()));
+  }
+
+  // Anzahl der beim letzten Aufruf neu ausgewerteten Zeilen
+  public synchronized int getEvaluatedRows()
+  {
+    return electronics.getEvaluated() + mechanics.getEvaluated();
+  }
+}
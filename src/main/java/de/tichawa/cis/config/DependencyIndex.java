@@ -0,0 +1,201 @@
+package de.tichawa.cis.config;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Welche Zeilen einer Tabelle von welchem Eintrag der Spezifikation abhängen. Wird beim Einlesen der Tabelle aufgebaut.
+// Abgeleitet aus den Merkmalen der Bedingungen (siehe CalculationContext) und den Variablen der Formeln.
+public final class DependencyIndex
+{
+  //Alles, was in den Lichtteil des TiViKeys eingeht (bei MXCIS auch die K-Stufe)
+  private static final String[] LIGHT_KEYS = {"Color", "Internal Light Source", "Internal Light Color", "res_cp2", "Selected line rate", "Maximum line rate"};
+  //MODE bzw. sensPerFpga in calculate()
+  private static final String[] MODE_KEYS = {"res_cp2", "Color", "Selected line rate"};
+
+  private final Map<String, BitSet> rows;
+  private final BitSet fpgaRows;
+  private final Set<String> fpgaKeys;
+
+  private DependencyIndex(Map<String, BitSet> rows, BitSet fpgaRows, Set<String> fpgaKeys)
+  {
+    this.rows = rows;
+    this.fpgaRows = fpgaRows;
+    this.fpgaKeys = fpgaKeys;
+  }
+
+  public static DependencyIndex forElectronics(List<ElectronicsTable.Row> rows)
+  {
+    //numFPGA hängt vom MODE, der Scanbreite und allen FPGA-Zeilen ab
+    Set<String> fpgaKeys = getBaseFpgaKeys();
+    for(ElectronicsTable.Row row : rows)
+    {
+      if(row.getCondition().contains("FPGA"))
+      {
+        fpgaKeys.addAll(getKeys(row.getCondition().getMask(), row.getVariables()));
+      }
+    }
+
+    Map<String, BitSet> index = new HashMap<>();
+    BitSet fpgaRows = new BitSet();
+    for(int i = 0; i < rows.size(); i++)
+    {
+      ElectronicsTable.Row row = rows.get(i);
+      add(index, i, getKeys(row.getCondition().getMask(), row.getVariables()));
+      add(index, i, Collections.singleton("sw_index")); //Formelspalte
+      if((row.getVariables() & (1 << Formula.FPGAS)) != 0)
+      {
+        fpgaRows.set(i);
+      }
+    }
+    return new DependencyIndex(index, fpgaRows, Collections.unmodifiableSet(fpgaKeys)).resolve();
+  }
+
+  // Die FPGA-Zeilen der Elektronik kommen erst mit withFpgaKeys() dazu
+  public static DependencyIndex forMechanics(List<MechanicsTable.Row> rows)
+  {
+    Map<String, BitSet> index = new HashMap<>();
+    BitSet fpgaRows = new BitSet();
+    for(int i = 0; i < rows.size(); i++)
+    {
+      MechanicsTable.Row row = rows.get(i);
+      add(index, i, getKeys(row.getCondition().getMask(), row.getVariables()));
+      add(index, i, Arrays.asList("sw_index", "Internal Light Source")); //Artikel- und Faktorspalte
+      if((row.getVariables() & (1 << Formula.FPGAS)) != 0)
+      {
+        fpgaRows.set(i);
+      }
+    }
+    return new DependencyIndex(index, fpgaRows, Collections.unmodifiableSet(getBaseFpgaKeys())).resolve();
+  }
+
+  public DependencyIndex withFpgaKeys(Set<String> fpgaKeys)
+  {
+    Set<String> keys = new LinkedHashSet<>(this.fpgaKeys);
+    keys.addAll(fpgaKeys);
+    return new DependencyIndex(rows, fpgaRows, Collections.unmodifiableSet(keys)).resolve();
+  }
+
+  private DependencyIndex resolve()
+  {
+    Map<String, BitSet> index = new HashMap<>();
+    rows.forEach((key, affected) -> index.put(key, (BitSet) affected.clone()));
+    for(String key : fpgaKeys)
+    {
+      index.computeIfAbsent(key, k -> new BitSet()).or(fpgaRows);
+    }
+    return new DependencyIndex(Collections.unmodifiableMap(index), fpgaRows, fpgaKeys);
+  }
+
+  public Set<String> getFpgaKeys()
+  {
+    return fpgaKeys;
+  }
+
+  private static Set<String> getBaseFpgaKeys()
+  {
+    Set<String> keys = new LinkedHashSet<>();
+    Collections.addAll(keys, MODE_KEYS);
+    keys.add("sw_cp");
+    return keys;
+  }
+
+  private static Set<String> getKeys(long mask, int variables)
+  {
+    Set<String> keys = new LinkedHashSet<>();
+    for(int i = 0; i < Condition.COLORS.length; i++)
+    {
+      if((mask & Condition.color(i)) != 0)
+      {
+        Collections.addAll(keys, LIGHT_KEYS);
+      }
+    }
+    if((mask & (Condition.MONO | Condition.COAX | Condition.DIFF)) != 0)
+    {
+      Collections.addAll(keys, LIGHT_KEYS);
+    }
+    for(int i = 0; i < Condition.RESOLUTIONS.length; i++)
+    {
+      if((mask & Condition.resolution(i)) != 0)
+      {
+        keys.add("res_cp");
+      }
+    }
+    if((mask & (Condition.GIGE | Condition.CL)) != 0)
+    {
+      keys.add("Interface");
+    }
+    for(int i = 0; i < Condition.COOLINGS.length; i++)
+    {
+      if((mask & Condition.cooling(i)) != 0)
+      {
+        keys.add("Cooling");
+      }
+    }
+    if((mask & Condition.DEFAULT_COOLING) != 0)
+    {
+      keys.add("Cooling");
+    }
+    if((mask & (Condition.EXT | Condition.NOEXT)) != 0)
+    {
+      keys.add("External Trigger");
+    }
+    if((mask & (Condition.LOW | Condition.HIGH)) != 0)
+    {
+      Collections.addAll(keys, MODE_KEYS);
+    }
+    if((mask & Condition.LED_LINES) != 0)
+    {
+      keys.add("LEDLines");
+    }
+
+    if((variables & (1 << Formula.LED_LINES)) != 0)
+    {
+      keys.add("LEDLines");
+    }
+    if((variables & (1 << Formula.SENSORS | 1 << Formula.SCAN_WIDTH)) != 0)
+    {
+      keys.add("sw_cp");
+    }
+    return keys;
+  }
+
+  private static void add(Map<String, BitSet> index, int row, Collection<String> keys)
+  {
+    for(String key : keys)
+    {
+      index.computeIfAbsent(key, k -> new BitSet()).set(row);
+    }
+  }
+
+  public Set<String> getKeys()
+  {
+    return Collections.unmodifiableSet(rows.keySet());
+  }
+
+  public BitSet getRows(String key)
+  {
+    BitSet result = rows.get(key);
+    return result == null ? new BitSet() : (BitSet) result.clone();
+  }
+
+  public BitSet getRows(Collection<String> keys)
+  {
+    BitSet result = new BitSet();
+    for(String key : keys)
+    {
+      BitSet affected = rows.get(key);
+      if(affected != null)
+      {
+        result.or(affected);
+      }
+    }
+    return result;
+  }
+}
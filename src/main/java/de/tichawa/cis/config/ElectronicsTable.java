@@ -0,0 +1,151 @@
+package de.tichawa.cis.config;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Electronics.csv: Name, Artikelnummer, Bedingung, Faktor, eine Formel je Scanbreite
+public class ElectronicsTable
+{
+  private final List<Row> rows;
+  private final DependencyIndex dependencies;
+
+  public ElectronicsTable(Path path) throws IOException
+  {
+    try(Stream<String> lines = Files.lines(path))
+    {
+      rows = Collections.unmodifiableList(lines.skip(1)
+              .map(line -> line.split("\t"))
+              .filter(line -> line[0].length() > 0)
+              .map(Row::new)
+              .collect(Collectors.toList()));
+    }
+    dependencies = DependencyIndex.forElectronics(rows);
+  }
+
+  ElectronicsTable(List<Row> rows)
+  {
+    this.rows = Collections.unmodifiableList(rows);
+    dependencies = DependencyIndex.forElectronics(rows);
+  }
+
+  void write(DataOutput out) throws IOException
+  {
+    out.writeInt(rows.size());
+    for(Row row : rows)
+    {
+      TableSnapshot.writeString(out, row.name);
+      out.writeInt(row.itemNo);
+      row.condition.write(out);
+      TableSnapshot.writeString(out, row.factor);
+      out.writeInt(row.formulas.length);
+      for(Formula formula : row.formulas)
+      {
+        formula.write(out);
+      }
+    }
+  }
+
+  static ElectronicsTable read(ByteBuffer in)
+  {
+    int size = in.getInt();
+    List<Row> rows = new ArrayList<>(size);
+    for(int i = 0; i < size; i++)
+    {
+      String name = TableSnapshot.readString(in);
+      int itemNo = in.getInt();
+      Condition condition = Condition.read(in);
+      String factor = TableSnapshot.readString(in);
+      Formula[] formulas = new Formula[in.getInt()];
+      for(int x = 0; x < formulas.length; x++)
+      {
+        formulas[x] = Formula.read(in);
+      }
+      rows.add(new Row(name, itemNo, condition, factor, formulas));
+    }
+    return new ElectronicsTable(rows);
+  }
+
+  public List<Row> getRows()
+  {
+    return rows;
+  }
+
+  public DependencyIndex getDependencies()
+  {
+    return dependencies;
+  }
+
+  public static class Row
+  {
+    private final String name;
+    private final int itemNo;
+    private final Condition condition;
+    private final String factor;
+    private final Formula[] formulas;
+    private final int factorVariables;
+
+    Row(String[] line)
+    {
+      this(line[0], line.length > 1 && CIS.isInteger(line[1]) ? Integer.parseInt(line[1]) : -1,
+              Condition.compile(line.length > 2 ? line[2] : ""), line.length > 3 ? line[3] : "",
+              line.length > 4 ? Arrays.stream(line, 4, line.length)
+              .map(Formula::compile)
+              .toArray(Formula[]::new) : new Formula[0]);
+    }
+
+    private Row(String name, int itemNo, Condition condition, String factor, Formula[] formulas)
+    {
+      this.name = name;
+      this.itemNo = itemNo;
+      this.condition = condition;
+      this.factor = factor;
+      this.formulas = formulas;
+      factorVariables = CIS.isInteger(factor) ? 0 : 1 << Formula.LED_LINES; //Faktoren wie "L" oder "L==1"
+    }
+
+    public String getName()
+    {
+      return name;
+    }
+
+    public int getItemNo()
+    {
+      return itemNo;
+    }
+
+    public Condition getCondition()
+    {
+      return condition;
+    }
+
+    public String getFactor()
+    {
+      return factor;
+    }
+
+    public Formula getFormula(int swIndex)
+    {
+      return formulas[swIndex];
+    }
+
+    public int getVariables(int swIndex)
+    {
+      return formulas[swIndex].getVariables() | factorVariables;
+    }
+
+    // Über alle Scanbreiten
+    public int getVariables()
+    {
+      return Arrays.stream(formulas).mapToInt(Formula::getVariables).reduce(factorVariables, (a, b) -> a | b);
+    }
+  }
+}
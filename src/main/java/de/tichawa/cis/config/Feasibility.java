@@ -0,0 +1,46 @@
+package de.tichawa.cis.config;
+
+// Größte Zeilenfrequenz (Hz), die das Interface einer Spezifikation zulässt (GigE-Datenrate, Camera-Link-Taps, Flash).
+// Wird von CIS.getFeasibility() nur aus der Spezifikation und dem SensorCatalogue berechnet, ohne Tabellen zu lesen.
+public final class Feasibility
+{
+  public enum Limit
+  {
+    NONE, GIGE, CAMERA_LINK, FLASH
+  }
+
+  public static final Feasibility UNLIMITED = new Feasibility(Integer.MAX_VALUE, Limit.NONE, null);
+
+  private final int maxLineRate;
+  private final Limit limit;
+  private final String message;
+
+  public Feasibility(int maxLineRate, Limit limit, String message)
+  {
+    this.maxLineRate = maxLineRate;
+    this.limit = limit;
+    this.message = message;
+  }
+
+  // Integer.MAX_VALUE ohne Grenze, 0 wenn keine Zeilenfrequenz möglich ist (z.B. Flash zu klein)
+  public int getMaxLineRate()
+  {
+    return maxLineRate;
+  }
+
+  public Limit getLimit()
+  {
+    return limit;
+  }
+
+  // Meldung für die ausgewählte Zeilenfrequenz, wenn sie über der Grenze liegt
+  public String getMessage()
+  {
+    return message;
+  }
+
+  public boolean isFeasible(int lineRate)
+  {
+    return lineRate <= maxLineRate;
+  }
+}
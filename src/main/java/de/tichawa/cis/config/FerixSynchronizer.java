@@ -2,19 +2,44 @@ package de.tichawa.cis.config;
 
 import java.sql.*;
 import java.util.*;
-import java.util.stream.*;
+import java.util.concurrent.ConcurrentHashMap;
 
+// Legt Artikel für kalkulierte CIS in FERIX an (f_art4, f_best, Artikel_nt, f_art4_lt).
+// Eine Verbindung je Datenbank wird zwischen allen Synchronizern geteilt und beim Beenden der JVM geschlossen,
+// mehrere CIS werden in einer Transaktion angelegt.
+// Nur Standard-SQL, damit statt des PostgreSQL-Servers auch eine lokale Datenbank (z.B. jdbc:sqlite:) benutzt werden kann.
 public class FerixSynchronizer
 {
+  public static final String FERIX_DB = "jdbc:postgresql://10.0.0.114:5432/FerixDB";
+  private static final int FIRST_ART_NO = 1000;
+  private static final int MAX_PARAMETERS = 500;
 
+  private static final Map<String, Connection> POOL = new ConcurrentHashMap<>();
+
+  static
+  {
+    Runtime.getRuntime().addShutdownHook(new Thread(FerixSynchronizer::closeAll, "FerixSynchronizer"));
+  }
+
+  private final String url;
+  private final String user;
+  private final String password;
   private Connection con;
-  private CIS cis;
+  private CalculationResult cis;
 
   public FerixSynchronizer()
   {
+    this(FERIX_DB, "postgres", "ferix");
+  }
+
+  public FerixSynchronizer(String url, String user, String password)
+  {
+    this.url = url;
+    this.user = user;
+    this.password = password;
     try
     {
-      con = DriverManager.getConnection("jdbc:postgresql://10.0.0.114:5432/FerixDB", "postgres", "ferix");
+      con = getConnection();
     }
     catch(SQLException ex)
     {
@@ -22,108 +47,217 @@ public class FerixSynchronizer
     }
   }
 
-  private boolean exists()
+  // Die geteilte Verbindung, neu geöffnet falls sie geschlossen oder abgebrochen ist
+  private Connection getConnection() throws SQLException
   {
-    boolean exists = true;
-    try(PreparedStatement existsQuery = con.prepareStatement("SELECT * FROM f_art4 WHERE a_bez1 = ?;"))
+    synchronized(POOL)
     {
-      existsQuery.setString(1, cis.getTiViKey());
-      exists = existsQuery.executeQuery().next();
+      Connection pooled = POOL.get(url);
+      if(pooled == null || !pooled.isValid(2))
+      {
+        if(pooled != null)
+        {
+          closeQuietly(pooled);
+        }
+        pooled = DriverManager.getConnection(url, user, password);
+        POOL.put(url, pooled);
+      }
+      return pooled;
     }
-    catch(SQLException ex)
+  }
+
+  private Set<String> getExisting(Collection<String> keys) throws SQLException
+  {
+    Set<String> existing = new HashSet<>();
+    List<String> remaining = new ArrayList<>(keys);
+    //Eine Abfrage je 500 Schlüssel (Parametergrenze von SQLite)
+    for(int start = 0; start < remaining.size(); start += MAX_PARAMETERS)
     {
-      ex.printStackTrace();
+      List<String> chunk = remaining.subList(start, Math.min(start + MAX_PARAMETERS, remaining.size()));
+      try(PreparedStatement existsQuery = con.prepareStatement("SELECT a_bez1 FROM f_art4 WHERE a_bez1 IN ("
+              + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")"))
+      {
+        for(int i = 0; i < chunk.size(); i++)
+        {
+          existsQuery.setString(i + 1, chunk.get(i));
+        }
+        try(ResultSet result = existsQuery.executeQuery())
+        {
+          while(result.next())
+          {
+            existing.add(result.getString(1));
+          }
+        }
+      }
     }
-    return exists;
+    return existing;
   }
 
-  private int getNextArtNo()
+  // Die ersten count freien Artikelnummern ab 1000, mit einer Abfrage
+  private int[] getFreeArtNos(int count) throws SQLException
   {
-    int artNo = -1;
-    try(PreparedStatement artNoQuery = con.prepareStatement("SELECT a_artikel FROM f_art4;"))
+    BitSet used = new BitSet();
+    try(PreparedStatement artNoQuery = con.prepareStatement("SELECT a_artikel FROM f_art4");
+        ResultSet artNos = artNoQuery.executeQuery())
     {
-      Set<Integer> artNoMap = new HashSet<>();
-      ResultSet artNos = artNoQuery.executeQuery();
       while(artNos.next())
       {
-        if(CIS.isInteger(artNos.getString(1)))
+        String artNo = artNos.getString(1);
+        if(artNo != null && CIS.isInteger(artNo) && Integer.parseInt(artNo) >= FIRST_ART_NO)
         {
-          artNoMap.add(Integer.parseInt(artNos.getString(1)));
+          used.set(Integer.parseInt(artNo) - FIRST_ART_NO);
         }
       }
-      artNo = IntStream.iterate(1000, i -> ++i).filter(i -> !artNoMap.contains(i)).findFirst().orElse(-1);
     }
-    catch(SQLException ex)
+
+    int[] free = new int[count];
+    for(int i = 0, bit = used.nextClearBit(0); i < count; i++, bit = used.nextClearBit(bit + 1))
     {
-      ex.printStackTrace();
+      free[i] = bit + FIRST_ART_NO;
     }
-    return artNo;
+    return free;
   }
 
-  public boolean insert()
+  // Legt alle noch nicht vorhandenen CIS (nach TiViKey) in einer Transaktion an, liefert TiViKey -> neue Artikelnummer
+  public Map<String, Integer> insert(Collection<CalculationResult> results) throws SQLException
   {
-    boolean success = false;
-    if(!exists())
+    if(con == null)
+    {
+      throw new SQLException("No connection to " + url);
+    }
+
+    Map<String, CalculationResult> pending = new LinkedHashMap<>();
+    results.forEach(result -> pending.putIfAbsent(result.getTiViKey(), result));
+
+    Map<String, Integer> created = new LinkedHashMap<>();
+    synchronized(con)
     {
-      Integer artNo = getNextArtNo();
-      if(artNo > -1)
+      pending.keySet().removeAll(getExisting(pending.keySet()));
+      if(pending.isEmpty())
+      {
+        return created;
+      }
+
+      boolean autoCommit = con.getAutoCommit();
+      con.setAutoCommit(false);
+      try(PreparedStatement insertArt = con.prepareStatement("INSERT INTO f_art4 (a_artikel, a_bez1, a_bez2, a_teileart, a_umfakt, a_lagst, a_cre_dat, a_mod_dat, a_mod_sachb, a_lagerort, a_umfakt_vk) "
+              + "VALUES (?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, ?, ?, ?)");
+          PreparedStatement insertBest = con.prepareStatement("INSERT INTO f_best (b_artikel, b_cre_dat, b_mod_dat, b_mod_sachb) VALUES (?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, ?)");
+          PreparedStatement insertNotice = con.prepareStatement("INSERT INTO Artikel_nt (ant_schl, ant_text) VALUES (?, ?)");
+          PreparedStatement insertLongtext = con.prepareStatement("INSERT INTO f_art4_lt (artlt_schl, artlt_txt) VALUES (?, ?)"))
       {
-        try(PreparedStatement insertArt = con.prepareStatement("INSERT INTO f_art4 (a_artikel, a_bez1, a_bez2, a_teileart, a_umfakt, a_lagst, a_cre_dat,a_mod_dat, a_mod_sachb, a_lagerort, a_umfakt_vk)"
-                + "VALUES (?, ?, ?, ?, ?, ?, NOW(), NOW(), ?, ?, ?);");
-                PreparedStatement insertBest = con.prepareStatement("INSERT INTO f_best (b_artikel, b_cre_dat, b_mod_dat, b_mod_sachb) VALUES (?, NOW(), NOW(), ?);");
-                PreparedStatement insertNotice = con.prepareStatement("INSERT INTO Artikel_nt (ant_schl, ant_text) VALUES (?, ?);");
-                PreparedStatement insertLongtext = con.prepareStatement("INSERT INTO f_art4_lt (artlt_schl, artlt_txt) VALUES (?, ?);"))
+        int[] artNos = getFreeArtNos(pending.size());
+        int next = 0;
+        for(CalculationResult result : pending.values())
         {
-          String text = cis.createPrntOut();
-          insertArt.setString(1, artNo.toString());
-          insertArt.setString(2, cis.getTiViKey());
-          insertArt.setString(3, text.substring(0, text.indexOf('\n'))); //TODO
+          String artNo = Integer.toString(artNos[next++]);
+          String text = result.createPrntOut();
+          insertArt.setString(1, artNo);
+          insertArt.setString(2, result.getTiViKey());
+          insertArt.setString(3, getDescription(text));
           insertArt.setInt(4, 1);
           insertArt.setInt(5, 1);
           insertArt.setString(6, "A");
           insertArt.setString(7, "TiViCC");
           insertArt.setString(8, ".");
           insertArt.setInt(9, 1);
-          
-          if(insertArt.executeUpdate() > 0)
-          {
-            insertBest.setString(1, artNo.toString());
-            insertBest.setString(2, "TiViCC");
-            insertNotice.setString(1, artNo.toString());
-            insertNotice.setString(2, "");
-            insertLongtext.setString(1, artNo.toString());
-            insertLongtext.setString(2, text.substring(text.indexOf('\n') + 1)); //TODO
-            
-            success = insertBest.executeUpdate() > 0 && insertNotice.executeUpdate() > 0 && insertLongtext.executeUpdate() > 0;
-            if(success)System.out.println("Angelegt mit ID " + artNo);
-          }
+          insertArt.addBatch();
+
+          insertBest.setString(1, artNo);
+          insertBest.setString(2, "TiViCC");
+          insertBest.addBatch();
+          insertNotice.setString(1, artNo);
+          insertNotice.setString(2, "");
+          insertNotice.addBatch();
+          insertLongtext.setString(1, artNo);
+          insertLongtext.setString(2, getLongtext(text));
+          insertLongtext.addBatch();
+
+          created.put(result.getTiViKey(), artNos[next - 1]);
         }
-        catch(SQLException ex)
+
+        for(PreparedStatement insert : new PreparedStatement[]{insertArt, insertBest, insertNotice, insertLongtext})
         {
-          ex.printStackTrace();
+          for(int count : insert.executeBatch())
+          {
+            if(count == 0 || count == Statement.EXECUTE_FAILED)
+            {
+              throw new SQLException("Insert failed, nothing created");
+            }
+          }
         }
+        con.commit();
+      }
+      catch(SQLException | RuntimeException ex)
+      {
+        con.rollback();
+        throw ex;
+      }
+      finally
+      {
+        con.setAutoCommit(autoCommit);
       }
     }
-    return success;
+
+    return created;
+  }
+
+  public boolean insert()
+  {
+    try
+    {
+      return !insert(Collections.singletonList(cis)).isEmpty();
+    }
+    catch(SQLException ex)
+    {
+      ex.printStackTrace();
+      return false;
+    }
   }
 
-  public FerixSynchronizer setCIS(CIS cis)
+  public FerixSynchronizer setCIS(CalculationResult cis)
   {
     this.cis = cis;
     return this;
   }
 
+  // Erste Zeile des Ausdrucks als Bezeichnung (a_bez2), der Rest als Langtext
+  static String getDescription(String text)
+  {
+    int end = text.indexOf('\n');
+    return end < 0 ? text : text.substring(0, end);
+  }
+
+  static String getLongtext(String text)
+  {
+    int end = text.indexOf('\n');
+    return end < 0 ? "" : text.substring(end + 1);
+  }
+
+  // Die Verbindung bleibt für den nächsten Synchronizer offen, siehe closeAll
   public void close()
   {
-    if(con != null)
+    con = null;
+  }
+
+  // Schließt alle geteilten Verbindungen, der nächste Synchronizer öffnet neu
+  public static void closeAll()
+  {
+    synchronized(POOL)
+    {
+      POOL.values().forEach(FerixSynchronizer::closeQuietly);
+      POOL.clear();
+    }
+  }
+
+  private static void closeQuietly(Connection con)
+  {
+    try
+    {
+      con.close();
+    }
+    catch(SQLException ex)
     {
-      try
-      {
-        con.close();
-      }
-      catch(SQLException ex)
-      {
-      }
     }
   }
 }
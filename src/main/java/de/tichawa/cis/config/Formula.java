@@ -0,0 +1,444 @@
+package de.tichawa.cis.config;
+
+import de.tichawa.util.MathEval;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// Formel aus einer Zelle von Electronics.csv/Mechanics.csv, wird beim Einlesen der Tabelle einmal übersetzt.
+// Variablen: L = LEDLines, F = numFPGA, S = sw_cp / BASE_LENGTH, N = sw_cp
+public abstract class Formula
+{
+  public static final int LED_LINES = 0;
+  public static final int FPGAS = 1;
+  public static final int SENSORS = 2;
+  public static final int SCAN_WIDTH = 3;
+  public static final int FRAME_SIZE = 4;
+
+  private static final String VARIABLES = "LFSN";
+
+  //Knotentypen im TableSnapshot
+  private static final byte CONSTANT = 0;
+  private static final byte VARIABLE = 1;
+  private static final byte NEGATION = 2;
+  private static final byte SUM = 3;
+  private static final byte DIFFERENCE = 4;
+  private static final byte PRODUCT = 5;
+  private static final byte QUOTIENT = 6;
+  private static final byte INTERPRETED = 7;
+
+  public abstract double evaluate(double[] frame);
+
+  // Bitmaske der verwendeten Variablen (1 << LED_LINES usw.)
+  public abstract int getVariables();
+
+  // Übersetzte Formel in Präfixform
+  abstract void write(DataOutput out) throws IOException;
+
+  static Formula read(ByteBuffer in)
+  {
+    byte type = in.get();
+    switch(type)
+    {
+      case CONSTANT:
+        return new Constant(in.getDouble());
+      case VARIABLE:
+        return new Variable(in.get());
+      case NEGATION:
+        return new Negation(read(in));
+      case SUM:
+        return new Sum(read(in), read(in));
+      case DIFFERENCE:
+        return new Difference(read(in), read(in));
+      case PRODUCT:
+        return new Product(read(in), read(in));
+      case QUOTIENT:
+        return new Quotient(read(in), read(in));
+      case INTERPRETED:
+        return new Interpreted(TableSnapshot.readString(in));
+      default:
+        throw new IllegalStateException("Unknown formula node " + type);
+    }
+  }
+
+  public static Formula compile(String text)
+  {
+    String expression = text.replace(" ", "");
+    try
+    {
+      if(CIS.isInteger(text))
+      {
+        return new Constant(Integer.parseInt(text));
+      }
+
+      Parser parser = new Parser(expression);
+      Formula formula = parser.parseExpression();
+      if(parser.pos == expression.length())
+      {
+        return formula;
+      }
+    }
+    catch(IndexOutOfBoundsException | NumberFormatException ignored)
+    {
+    }
+
+    //Everything the compiler does not understand is handed to MathEval as before
+    return new Interpreted(expression);
+  }
+
+  private static class Parser
+  {
+    private final String text;
+    private int pos;
+
+    private Parser(String text)
+    {
+      this.text = text;
+    }
+
+    private Formula parseExpression()
+    {
+      Formula value = parseTerm();
+      while(pos < text.length())
+      {
+        char op = text.charAt(pos);
+        if(op == '+')
+        {
+          pos++;
+          value = new Sum(value, parseTerm());
+        }
+        else if(op == '-')
+        {
+          pos++;
+          value = new Difference(value, parseTerm());
+        }
+        else
+        {
+          break;
+        }
+      }
+      return value;
+    }
+
+    private Formula parseTerm()
+    {
+      Formula value = parseFactor();
+      while(pos < text.length())
+      {
+        char op = text.charAt(pos);
+        if(op == '*')
+        {
+          pos++;
+          value = new Product(value, parseFactor());
+        }
+        else if(op == '/')
+        {
+          pos++;
+          value = new Quotient(value, parseFactor());
+        }
+        else
+        {
+          break;
+        }
+      }
+      return value;
+    }
+
+    private Formula parseFactor()
+    {
+      char c = text.charAt(pos);
+      if(c == '-')
+      {
+        pos++;
+        return new Negation(parseFactor());
+      }
+      else if(c == '(')
+      {
+        pos++;
+        Formula value = parseExpression();
+        if(text.charAt(pos) != ')')
+        {
+          throw new NumberFormatException("Missing ')' in " + text);
+        }
+        pos++;
+        return value;
+      }
+      else if(VARIABLES.indexOf(c) >= 0)
+      {
+        pos++;
+        if(pos < text.length() && (Character.isLetterOrDigit(text.charAt(pos)) || text.charAt(pos) == '.'))
+        {
+          throw new NumberFormatException("Unexpected symbol after variable in " + text);
+        }
+        return new Variable(VARIABLES.indexOf(c));
+      }
+
+      int start = pos;
+      while(pos < text.length() && (Character.isDigit(text.charAt(pos)) || text.charAt(pos) == '.'))
+      {
+        pos++;
+      }
+      if(pos < text.length() && Character.isLetter(text.charAt(pos)))
+      {
+        throw new NumberFormatException("Unexpected symbol after number in " + text);
+      }
+      return new Constant(Double.parseDouble(text.substring(start, pos)));
+    }
+  }
+
+  private static class Constant extends Formula
+  {
+    private final double value;
+
+    private Constant(double value)
+    {
+      this.value = value;
+    }
+
+    @Override
+    public double evaluate(double[] frame)
+    {
+      return value;
+    }
+
+    @Override
+    public int getVariables()
+    {
+      return 0;
+    }
+
+    @Override
+    void write(DataOutput out) throws IOException
+    {
+      out.writeByte(CONSTANT);
+      out.writeDouble(value);
+    }
+  }
+
+  private static class Variable extends Formula
+  {
+    private final int index;
+
+    private Variable(int index)
+    {
+      this.index = index;
+    }
+
+    @Override
+    public double evaluate(double[] frame)
+    {
+      return frame[index];
+    }
+
+    @Override
+    public int getVariables()
+    {
+      return 1 << index;
+    }
+
+    @Override
+    void write(DataOutput out) throws IOException
+    {
+      out.writeByte(VARIABLE);
+      out.writeByte(index);
+    }
+  }
+
+  private static class Negation extends Formula
+  {
+    private final Formula operand;
+
+    private Negation(Formula operand)
+    {
+      this.operand = operand;
+    }
+
+    @Override
+    public double evaluate(double[] frame)
+    {
+      return -operand.evaluate(frame);
+    }
+
+    @Override
+    public int getVariables()
+    {
+      return operand.getVariables();
+    }
+
+    @Override
+    void write(DataOutput out) throws IOException
+    {
+      out.writeByte(NEGATION);
+      operand.write(out);
+    }
+  }
+
+  private static class Sum extends Formula
+  {
+    private final Formula left;
+    private final Formula right;
+
+    private Sum(Formula left, Formula right)
+    {
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    public double evaluate(double[] frame)
+    {
+      return left.evaluate(frame) + right.evaluate(frame);
+    }
+
+    @Override
+    public int getVariables()
+    {
+      return left.getVariables() | right.getVariables();
+    }
+
+    @Override
+    void write(DataOutput out) throws IOException
+    {
+      out.writeByte(SUM);
+      left.write(out);
+      right.write(out);
+    }
+  }
+
+  private static class Difference extends Formula
+  {
+    private final Formula left;
+    private final Formula right;
+
+    private Difference(Formula left, Formula right)
+    {
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    public double evaluate(double[] frame)
+    {
+      return left.evaluate(frame) - right.evaluate(frame);
+    }
+
+    @Override
+    public int getVariables()
+    {
+      return left.getVariables() | right.getVariables();
+    }
+
+    @Override
+    void write(DataOutput out) throws IOException
+    {
+      out.writeByte(DIFFERENCE);
+      left.write(out);
+      right.write(out);
+    }
+  }
+
+  private static class Product extends Formula
+  {
+    private final Formula left;
+    private final Formula right;
+
+    private Product(Formula left, Formula right)
+    {
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    public double evaluate(double[] frame)
+    {
+      return left.evaluate(frame) * right.evaluate(frame);
+    }
+
+    @Override
+    public int getVariables()
+    {
+      return left.getVariables() | right.getVariables();
+    }
+
+    @Override
+    void write(DataOutput out) throws IOException
+    {
+      out.writeByte(PRODUCT);
+      left.write(out);
+      right.write(out);
+    }
+  }
+
+  private static class Quotient extends Formula
+  {
+    private final Formula left;
+    private final Formula right;
+
+    private Quotient(Formula left, Formula right)
+    {
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    public double evaluate(double[] frame)
+    {
+      return left.evaluate(frame) / right.evaluate(frame);
+    }
+
+    @Override
+    public int getVariables()
+    {
+      return left.getVariables() | right.getVariables();
+    }
+
+    @Override
+    void write(DataOutput out) throws IOException
+    {
+      out.writeByte(QUOTIENT);
+      left.write(out);
+      right.write(out);
+    }
+  }
+
+  private static class Interpreted extends Formula
+  {
+    private final String text;
+
+    private Interpreted(String text)
+    {
+      this.text = text;
+    }
+
+    @Override
+    public double evaluate(double[] frame)
+    {
+      return MathEval.evaluate(text
+              .replace("L", "" + (int) frame[LED_LINES])
+              .replace("F", "" + (int) frame[FPGAS])
+              .replace("S", "" + (int) frame[SENSORS])
+              .replace("N", "" + (int) frame[SCAN_WIDTH]));
+    }
+
+    @Override
+    public int getVariables()
+    {
+      int variables = 0;
+      for(int i = 0; i < VARIABLES.length(); i++)
+      {
+        if(text.indexOf(VARIABLES.charAt(i)) >= 0)
+        {
+          variables |= 1 << i;
+        }
+      }
+      return variables;
+    }
+
+    @Override
+    void write(DataOutput out) throws IOException
+    {
+      out.writeByte(INTERPRETED);
+      TableSnapshot.writeString(out, text);
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package de.tichawa.cis.config;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+// Einstiegspunkt ohne JavaFX für die Stapelläufe, Main-Class im Maven-Profil "headless" (mvn -Pheadless package).
+// Jedes Werkzeug lädt properties.xml selbst und lässt sich auch direkt als Main-Class starten.
+// Aufruf: --batch | --pricelist | --import | --impact <Argumente des Werkzeugs>
+public final class Headless
+{
+  private Headless()
+  {
+  }
+
+  public static void main(String[] args) throws IOException
+  {
+    if(args.length == 0 || !isCommand(args[0]))
+    {
+      System.err.println("Usage: --batch|--pricelist|--import|--impact <arguments>");
+      return;
+    }
+
+    String[] rest = Arrays.copyOfRange(args, 1, args.length);
+    switch(args[0])
+    {
+      case "--batch":
+        BatchPricer.main(rest);
+        break;
+      case "--pricelist":
+        PriceListGenerator.main(rest);
+        break;
+      case "--import":
+        TableImporter.main(rest);
+        break;
+      case "--impact":
+        ImpactReport.main(rest);
+        break;
+    }
+  }
+
+  public static boolean isCommand(String arg)
+  {
+    return arg.equals("--batch") || arg.equals("--pricelist") || arg.equals("--import") || arg.equals("--impact");
+  }
+}
@@ -0,0 +1,109 @@
+package de.tichawa.cis.config;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+// Nach einem FERIX-Update: rechnet bekannte Konfigurationen (Eingabe wie beim BatchPricer) mit der alten Preisliste
+// (Back/Prices.csv) und der neuen Prices.csv und schreibt je Konfiguration die Preisänderung für 1, 5, 10 und 25 Stück.
+// Die Stückliste hängt nicht von den Preisen ab, die verursachenden Artikel sind Menge x Preisänderung aus electConfig/mechaConfig.
+// Nur mit den Dateien in tableHome, nicht mit tableSource=database.
+// Aufruf: Headless --impact <input.csv|input.jsonl> <output.csv> [threads]
+public class ImpactReport
+{
+  private final PriceTable oldPrices;
+  private final int threads;
+
+  public ImpactReport(PriceTable oldPrices, int threads)
+  {
+    this.oldPrices = oldPrices;
+    this.threads = threads;
+  }
+
+  public static void main(String[] args) throws IOException
+  {
+    if(args.length < 2)
+    {
+      System.err.println("Usage: --impact <input.csv|input.jsonl> <output.csv> [threads]");
+      return;
+    }
+
+    Settings.loadProperties();
+    if(TableCache.hasDatabase())
+    {
+      //Die Datenbank kennt nur den aktuellen Stand, der alte käme sonst aus einer anderen Quelle als der neue
+      System.err.println("--impact compares Prices.csv with Back/Prices.csv in " + Settings.tableHome + " and does not work with tableSource=database");
+      return;
+    }
+    int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+    int count = new ImpactReport(new PriceTable(Settings.tableHome.resolve("Back/Prices.csv")), threads).run(Paths.get(args[0]), Paths.get(args[1]));
+    System.out.println(count + " configurations compared");
+  }
+
+  public int run(Path input, Path output) throws IOException
+  {
+    return new BatchPricer(threads).run(input, output, "Line\tCIS\tTiViKey\tOld price (1 pc)\tNew price (1 pc)"
+            + "\tChange (1 pc)\tChange (5 pcs)\tChange (10 pcs)\tChange (25 pcs)\tChanged parts", this::compare);
+  }
+
+  public String compare(int line, Map<String, String> values)
+  {
+    String family = values.get(BatchPricer.FAMILY_KEY);
+    try
+    {
+      CIS cis = BatchPricer.createCIS(values);
+      CalculationResult current = cis.calculate();
+      CalculationResult previous = cis.calculate(oldPrices);
+      PriceTable newPrices = TableCache.getPrices();
+
+      Double[] oldTotals = previous.getTotalPrices();
+      Double[] newTotals = current.getTotalPrices();
+      StringBuilder result = new StringBuilder()
+              .append(line).append("\t")
+              .append(family).append("\t")
+              .append(current.getTiViKey()).append("\t")
+              .append(String.format(current.getLocale(), "%.2f", oldTotals[0])).append("\t")
+              .append(String.format(current.getLocale(), "%.2f", newTotals[0]));
+      for(int i = 0; i < newTotals.length; i++)
+      {
+        result.append("\t").append(String.format(current.getLocale(), "%+.2f", newTotals[i] - oldTotals[i]));
+      }
+
+      //Teile mit geänderter Summe, größte Änderung zuerst
+      Map<Integer, Integer> parts = new TreeMap<>(current.getElectConfig());
+      current.getMechaConfig().forEach((itemNo, amount) -> parts.merge(itemNo, amount, Integer::sum));
+      List<Map.Entry<Integer, Double>> changes = new ArrayList<>();
+      parts.forEach((itemNo, amount) ->
+      {
+        double change = amount * (getPrice(newPrices, itemNo) - getPrice(oldPrices, itemNo));
+        if(change != 0)
+        {
+          changes.add(new AbstractMap.SimpleImmutableEntry<>(itemNo, change));
+        }
+      });
+      changes.sort(Comparator.comparingDouble((Map.Entry<Integer, Double> entry) -> Math.abs(entry.getValue())).reversed());
+      result.append("\t").append(changes.stream()
+              .map(entry -> String.format(current.getLocale(), "%05d %s %+.2f", entry.getKey(), current.getKey(entry.getKey()), entry.getValue()))
+              .collect(Collectors.joining(", ")));
+
+      return result.toString();
+    }
+    catch(IOException | RuntimeException ex)
+    {
+      return line + "\t" + family + "\tERROR: " + (ex.getMessage() == null ? ex.getClass().getSimpleName() : ex.getMessage());
+    }
+  }
+
+  private static double getPrice(PriceTable prices, int itemNo)
+  {
+    int item = prices.indexOf(itemNo);
+    return item < 0 ? 0.0 : prices.get(item, PriceTable.PRICE);
+  }
+}
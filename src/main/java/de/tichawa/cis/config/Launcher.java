@@ -1,8 +1,6 @@
 package de.tichawa.cis.config;
 
 import java.io.*;
-import java.nio.file.*;
-import java.util.*;
 import javafx.application.*;
 import javafx.fxml.*;
 import javafx.scene.*;
@@ -12,18 +10,19 @@ import javafx.stage.*;
 public class Launcher extends Application
 {
 
-  public static final Properties PROP = new Properties();
-  public static Path tableHome;
-  public static Path ferixHome;
+  private static TableWatcher watcher;
 
   @Override
   public void start(Stage stage) throws Exception
   {
-    PROP.loadFromXML(Launcher.class.getResourceAsStream("properties.xml"));
-    tableHome = Paths.get(PROP.getProperty("tableHome"));
-    ferixHome = Paths.get(PROP.getProperty("ferixHome"));
+    Settings.loadProperties();
+    startWatcher();
     stage.setOnCloseRequest((WindowEvent) ->
     {
+      if(watcher != null)
+      {
+        watcher.close();
+      }
       Platform.exit();
     });
 
@@ -34,8 +33,25 @@ public class Launcher extends Application
     stage.show();
   }
 
+  // Tabellen aus tableHome bei Änderungen im Hintergrund neu einlesen (tableWatch: on, poll oder off)
+  private static void startWatcher()
+  {
+    String mode = Settings.PROP.getProperty("tableWatch", "on");
+    if(!mode.equals("off") && !TableCache.hasDatabase())
+    {
+      watcher = TableWatcher.start(Settings.tableHome, Settings.ferixHome, Long.parseLong(Settings.PROP.getProperty("tableWatchInterval", "5000")), mode.equals("poll"));
+    }
+  }
+
+  // Die Stapelläufe starten hier unter Java 8 erst nach dem JavaFX-Toolkit, ohne Anzeige direkt über Headless
   public static void main(String[] args) throws IOException
   {
+    if(args.length > 0 && Headless.isCommand(args[0]))
+    {
+      Headless.main(args);
+      return;
+    }
+
     launch(args);
   }
 }
@@ -1,6 +1,5 @@
 package de.tichawa.cis.config;
 
-import de.tichawa.util.*;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -18,14 +17,10 @@ import java.awt.*;
 import java.io.IOException;
 import java.net.URL;
 import java.nio.file.Files;
-import java.nio.file.StandardCopyOption;
-import java.nio.file.StandardOpenOption;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
-import java.util.Map;
+import java.util.Arrays;
 import java.util.ResourceBundle;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 public class LauncherController implements Initializable
@@ -64,70 +59,33 @@ public class LauncherController implements Initializable
   {
     try
     {
-      Desktop.getDesktop().open(Launcher.ferixHome.resolve("Priceexport.lnk").toFile());
+      Desktop.getDesktop().open(Settings.ferixHome.resolve("Priceexport.lnk").toFile());
       
       String lastUpdated = "Never";
-      if(Files.exists(Launcher.tableHome.resolve("Back/Prices.csv")))
+      if(Files.exists(Settings.tableHome.resolve("Back/Prices.csv")))
       {
-        lastUpdated = DateTimeFormatter.ofPattern("dd.MM.yyyy, HH:mm:ss").withZone(ZoneId.systemDefault()).format(Files.getLastModifiedTime(Launcher.tableHome.resolve("Back/Prices.csv")).toInstant());
+        lastUpdated = DateTimeFormatter.ofPattern("dd.MM.yyyy, HH:mm:ss").withZone(ZoneId.systemDefault()).format(Files.getLastModifiedTime(Settings.tableHome.resolve("Back/Prices.csv")).toInstant());
       }
-      if(new Alert(AlertType.CONFIRMATION, "Please wait until FERIX has finished the export to " + Launcher.ferixHome.resolve("Export/art.csv") + ", then press OK to continue.\nLast update: "
+      if(new Alert(AlertType.CONFIRMATION, "Please wait until FERIX has finished the export to " + Settings.ferixHome.resolve("Export/art.csv") + ", then press OK to continue.\nLast update: "
               + lastUpdated, ButtonType.OK, ButtonType.CANCEL).showAndWait()
               .orElse(ButtonType.CANCEL) == ButtonType.OK)
       {
-        Map<Integer, Tuple<Double, Boolean>> sourcePrices = Files.readAllLines(Launcher.ferixHome.resolve("Export/art.csv")).stream()
-                .map(line -> line.split("\t"))
-                .filter(line -> CIS.isInteger(line[0]) && CIS.isDouble(line[1]))
-                .peek(line -> {
-                  if(line.length > 3)
-                  {
-                    System.out.println(line);
-                  }
-                })
-                .map(line -> new Tuple<>(Integer.parseInt(line[0]), new Tuple<>(Double.parseDouble(line[1]) / CIS.decodeQuantity(line[2]), line.length < 4 || line[3].equals("A"))))
-                .filter(t -> t.getV().getU() > 0)
-                .collect(Collectors.toMap(Tuple::getU, Tuple::getV, (oldVal, newVal) -> newVal));
-
-        Files.copy(Launcher.tableHome.resolve("Prices.csv"), Launcher.tableHome.resolve("Back/Prices.csv"), StandardCopyOption.REPLACE_EXISTING);
-        Files.write(Launcher.tableHome.resolve("Prices.csv"), (Iterable<String>) Files.readAllLines(Launcher.tableHome.resolve("Prices.csv")).stream()
-                .map(line -> line.split("\t"))
-                .filter(line -> CIS.isInteger(line[0]))
-                .map(line -> new Tuple<>(Integer.parseInt(line[0]), line))
-                //.filter(t -> sourcePrices.containsKey(t.getU()))
-                //.filter(t -> sourcePrices.get(t.getU()) != Double.parseDouble(t.getV()[2]))
-                .peek(t ->
-                {
-                  if(sourcePrices.containsKey(t.getU()))
-                  {
-                    t.getV()[2] = sourcePrices.get(t.getU()).getU().toString();
-                  }
-                })
-                .map(Tuple::getV)
-                .map(line -> String.join("\t", line))::iterator, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        PriceUpdater update = PriceUpdater.update(Settings.ferixHome.resolve("Export/art.csv"), Settings.tableHome.resolve("Prices.csv"),
+                Settings.tableHome.resolve("Back/Prices.csv"));
         Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
-        alert.setHeaderText("Update successful. New price table written to " + Launcher.tableHome.resolve("Prices.csv"));
+        alert.setHeaderText("Update successful. New price table written to " + Settings.tableHome.resolve("Prices.csv"));
+        alert.setContentText(update.getExported() + " articles exported, " + update.getChanged() + " prices changed, "
+                + update.getUnchanged() + " unchanged, " + update.getInactive().length + " inactive.");
         alert.showAndWait();
 
-        Set<Integer> components = Files.readAllLines(Launcher.tableHome.resolve("Prices.csv")).stream()
-                .map(line -> line.split("\t", 2))
-                .map(line -> line[0])
-                .filter(CIS::isInteger)
-                .map(Integer::parseInt)
-                .collect(Collectors.toSet());
-        System.out.println("Test");
-        List<String> inactiveComponents = sourcePrices.entrySet().stream()
-                .filter(e -> !e.getValue().getV())
-                .map(Map.Entry::getKey)
-                .peek(System.out::println)
-                .filter(components::contains)
-                .peek(System.out::println)
-                .map(Object::toString)
-                .collect(Collectors.toList());
-        if(!inactiveComponents.isEmpty())
+        int[] inactiveComponents = update.getInactive();
+        if(inactiveComponents.length > 0)
         {
           Alert inactiveAlert = new Alert(AlertType.WARNING);
           inactiveAlert.setHeaderText("Some components are inactive now. Please consider replacing the components with these IDs:");
-          inactiveAlert.setContentText(String.join("\n", inactiveComponents));
+          inactiveAlert.setContentText(Arrays.stream(inactiveComponents)
+                  .mapToObj(Integer::toString)
+                  .collect(Collectors.joining("\n")));
           inactiveAlert.showAndWait();
         }
       }
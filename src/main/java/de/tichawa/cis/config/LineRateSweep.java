@@ -0,0 +1,114 @@
+package de.tichawa.cis.config;
+
+import java.util.Arrays;
+
+// Abschnitte der Zeilenfrequenz einer Konfiguration (siehe CIS.sweepLineRates()), in denen MODE, TiViKey, Taps und Machbarkeit
+// gleich bleiben. Der Schieberegler kann auf die Grenzen einrasten, ohne bei jedem Schritt neu zu kalkulieren.
+// Alle Arrays je Abschnitt, aufsteigend nach Zeilenfrequenz.
+public final class LineRateSweep
+{
+  private int[] from = new int[8];
+  private int[] to = new int[8];
+  private int[] modes = new int[8];
+  private String[] keys = new String[8];
+  private int[] taps = new int[8];
+  private boolean[] feasible = new boolean[8];
+  private double[][] prices = new double[8][];
+  private int size;
+
+  LineRateSweep()
+  {
+  }
+
+  // Gleicher Zustand wie der vorige Abschnitt, dann wird der verlängert
+  void add(int from, int to, int mode, String key, int taps, boolean feasible, double[] prices)
+  {
+    int last = size - 1;
+    if(size > 0 && this.to[last] == from - 1 && modes[last] == mode && keys[last].equals(key) && this.taps[last] == taps
+            && this.feasible[last] == feasible && Arrays.equals(this.prices[last], prices))
+    {
+      this.to[last] = to;
+      return;
+    }
+
+    if(size == this.from.length)
+    {
+      this.from = Arrays.copyOf(this.from, size * 2);
+      this.to = Arrays.copyOf(this.to, size * 2);
+      modes = Arrays.copyOf(modes, size * 2);
+      keys = Arrays.copyOf(keys, size * 2);
+      this.taps = Arrays.copyOf(this.taps, size * 2);
+      this.feasible = Arrays.copyOf(this.feasible, size * 2);
+      this.prices = Arrays.copyOf(this.prices, size * 2);
+    }
+    this.from[size] = from;
+    this.to[size] = to;
+    modes[size] = mode;
+    keys[size] = key;
+    this.taps[size] = taps;
+    this.feasible[size] = feasible;
+    this.prices[size++] = prices;
+  }
+
+  public int size()
+  {
+    return size;
+  }
+
+  // Abschnitt, in dem lineRate liegt, -1 außerhalb
+  public int indexOf(int lineRate)
+  {
+    int index = Arrays.binarySearch(from, 0, size, lineRate);
+    if(index < 0)
+    {
+      index = -index - 2;
+    }
+    return index >= 0 && lineRate <= to[index] ? index : -1;
+  }
+
+  // Erste Zeilenfrequenz (Hz) je Abschnitt
+  public int[] getFrom()
+  {
+    return Arrays.copyOf(from, size);
+  }
+
+  // Letzte Zeilenfrequenz (Hz) je Abschnitt
+  public int[] getTo()
+  {
+    return Arrays.copyOf(to, size);
+  }
+
+  // Sensoren je FPGA wie "MODE" in calculate()
+  public int[] getModes()
+  {
+    return Arrays.copyOf(modes, size);
+  }
+
+  public String[] getTiViKeys()
+  {
+    return Arrays.copyOf(keys, size);
+  }
+
+  // Taps wie PortAssignment.getTaps(), 0 ohne Camera Link oder wenn nicht machbar
+  public int[] getTaps()
+  {
+    return Arrays.copyOf(taps, size);
+  }
+
+  // Interface (GigE, Camera Link, Flash) schafft die Zeilenfrequenz
+  public boolean[] getFeasible()
+  {
+    return Arrays.copyOf(feasible, size);
+  }
+
+  // EUR je Abschnitt für tier 0..3 (1, 5, 10, 25 Stk.) wie getTotalPrices(), NaN ohne Preis oder wenn nicht machbar
+  public double[] getPrices(int tier)
+  {
+    double[] tierPrices = new double[size];
+    for(int x = 0; x < size; x++)
+    {
+      tierPrices[x] = prices[x][tier];
+    }
+    return tierPrices;
+  }
+}
@@ -6,8 +6,13 @@ import java.net.*;
 import java.nio.charset.*;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
 import java.util.stream.*;
+import javafx.animation.*;
+import javafx.application.*;
 import javafx.beans.property.*;
+import javafx.concurrent.*;
 import javafx.event.*;
 import javafx.fxml.*;
 import javafx.geometry.*;
@@ -16,6 +21,7 @@ import javafx.scene.control.*;
 import javafx.scene.image.*;
 import javafx.scene.layout.*;
 import javafx.stage.*;
+import javafx.util.Duration;
 
 import static de.tichawa.cis.config.CIS.isDouble;
 
@@ -72,10 +78,31 @@ public abstract class MaskController implements Initializable
   protected Button OEMMode;
   @FXML
   protected Button Equip;
+  @FXML
+  protected ProgressIndicator Progress;
+  @FXML
+  protected Label Preview;
 
   protected CIS CIS_DATA;
   protected LDSTD LDSTD_DATA;
 
+  private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable ->
+  {
+    Thread thread = new Thread(runnable, "Calculation");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private static final ExecutorService PREVIEW_EXECUTOR = Executors.newSingleThreadExecutor(runnable ->
+  {
+    Thread thread = new Thread(runnable, "Preview");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private Task<Void> pending;
+  private final PricePreview preview = new PricePreview();
+  private final PauseTransition previewDelay = new PauseTransition(Duration.millis(150));
+  private long previewRequest;
+
   public MaskController()
   {
   }
@@ -86,20 +113,8 @@ public abstract class MaskController implements Initializable
   @FXML
   public void handleCalculation(ActionEvent event)
   {
-    if(CIS_DATA.getSpec("LDSTD") == null && CIS_DATA.getSpec("External Light Source") != null && CIS_DATA.getSpec("External Light Source") > 0)
+    calculate(ldstdResult ->
     {
-      try
-      {
-        LDSTD_DATA.calculate();
-      }
-      catch(CISException e)
-      {
-        Alert alert = new Alert(Alert.AlertType.ERROR);
-        alert.setHeaderText(e.getMessage());
-        alert.show();
-        return;
-      }
-
       try
       {
         FXMLLoader loader = new FXMLLoader(getClass().getResource("/de/tichawa/cis/config/Calculation.fxml"));
@@ -114,132 +129,128 @@ public abstract class MaskController implements Initializable
         stage.setY(stage.getY() - 20);
 
         CalculationController controller = loader.<CalculationController>getController();
-        controller.passData(LDSTD_DATA);
+        controller.passData(ldstdResult);
       }
       catch(IOException e)
       {
 
       }
-    }
-
-    try
-    {
-      CIS_DATA.calculate();
-    }
-    catch(CISException e)
-    {
-      Alert alert = new Alert(Alert.AlertType.ERROR);
-      alert.setHeaderText(e.getMessage());
-      alert.show();
-      return;
-    }
-
-    try
-    {
-      FXMLLoader loader = new FXMLLoader(getClass().getResource("/de/tichawa/cis/config/Calculation.fxml"));
-      Scene scene = new Scene(loader.load());
-      Stage stage = new Stage();
-      stage.setScene(scene);
-      stage.setTitle(CIS_DATA.cisName + " Calculation");
-      stage.getIcons().add(new Image(getClass().getResourceAsStream("/de/tichawa/cis/config/TiViCC.png")));
-      stage.centerOnScreen();
-      stage.show();
-      CalculationController controller = loader.<CalculationController>getController();
-      controller.passData(CIS_DATA);
-    }
-    catch(IOException e)
+    }, result ->
     {
+      try
+      {
+        FXMLLoader loader = new FXMLLoader(getClass().getResource("/de/tichawa/cis/config/Calculation.fxml"));
+        Scene scene = new Scene(loader.load());
+        Stage stage = new Stage();
+        stage.setScene(scene);
+        stage.setTitle(CIS_DATA.cisName + " Calculation");
+        stage.getIcons().add(new Image(getClass().getResourceAsStream("/de/tichawa/cis/config/TiViCC.png")));
+        stage.centerOnScreen();
+        stage.show();
+        CalculationController controller = loader.<CalculationController>getController();
+        controller.passData(result);
+      }
+      catch(IOException e)
+      {
 
-    }
+      }
+    });
   }
 
   @FXML
   public void handlePartList(ActionEvent event)
   {
-    try
+    calculate(null, result ->
     {
-      CIS_DATA.calculate();
-    }
-    catch(CISException e)
-    {
-      Alert alert = new Alert(Alert.AlertType.ERROR);
-      alert.setHeaderText(e.getMessage());
-      alert.show();
-      return;
-    }
-
-    FileChooser f = new FileChooser();
-    f.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV (*.csv)", "csv"));
-    f.setInitialFileName(CIS_DATA.getTiViKey() + "_partList.csv");
-    File file = f.showSaveDialog(null);
+      FileChooser f = new FileChooser();
+      f.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV (*.csv)", "csv"));
+      f.setInitialFileName(result.getTiViKey() + "_partList.csv");
+      File file = f.showSaveDialog(null);
 
-    if(file != null)
-    {
-      try(BufferedWriter writer = Files.newBufferedWriter(file.toPath(), Charset.forName("UTF-8")))
+      if(file != null)
       {
-        writer.write("Quantity,TiViKey");
-        writer.newLine();
-        writer.write("");
-        writer.newLine();
-        writer.flush();
-
-        for(Map.Entry<Integer, Integer> entry : CIS_DATA.getElectConfig().entrySet())
+        try(BufferedWriter writer = Files.newBufferedWriter(file.toPath(), Charset.forName("UTF-8")))
         {
-          writer.write("\"" + entry.getValue() + "\",\"" + CIS_DATA.getKey(entry.getKey()) + "\",\" \"");
+          writer.write("Quantity,TiViKey");
           writer.newLine();
-          writer.flush();
-        }
-
-        for(Map.Entry<Integer, Integer> entry : CIS_DATA.getMechaConfig().entrySet())
-        {
-          writer.write("\"" + entry.getValue() + "\",\"" + CIS_DATA.getKey(entry.getKey()) + "\",\" \"");
+          writer.write("");
           writer.newLine();
           writer.flush();
-        }
 
-        writer.close();
+          for(Map.Entry<Integer, Integer> entry : result.getElectConfig().entrySet())
+          {
+            writer.write("\"" + entry.getValue() + "\",\"" + result.getKey(entry.getKey()) + "\",\" \"");
+            writer.newLine();
+            writer.flush();
+          }
 
-        new Alert(Alert.AlertType.INFORMATION, ResourceBundle.getBundle("de.tichawa.cis.config.Bundle", CIS_DATA.getLocale()).getString("File saved.")).show();
-      }
-      catch(IOException e)
-      {
-        new Alert(Alert.AlertType.ERROR, ResourceBundle.getBundle("de.tichawa.cis.config.Bundle", CIS_DATA.getLocale()).getString("A fatal error occurred during the save attempt.Please close the target file and try again.")).show();
+          for(Map.Entry<Integer, Integer> entry : result.getMechaConfig().entrySet())
+          {
+            writer.write("\"" + entry.getValue() + "\",\"" + result.getKey(entry.getKey()) + "\",\" \"");
+            writer.newLine();
+            writer.flush();
+          }
+
+          writer.close();
+
+          new Alert(Alert.AlertType.INFORMATION, ResourceBundle.getBundle("de.tichawa.cis.config.Bundle", CIS_DATA.getLocale()).getString("File saved.")).show();
+        }
+        catch(IOException e)
+        {
+          new Alert(Alert.AlertType.ERROR, ResourceBundle.getBundle("de.tichawa.cis.config.Bundle", CIS_DATA.getLocale()).getString("A fatal error occurred during the save attempt.Please close the target file and try again.")).show();
+        }
       }
-    }
+    });
   }
 
   @FXML
   public void handleDataSheet(ActionEvent event)
   {
-    if(CIS_DATA.getSpec("LDSTD") == null && CIS_DATA.getSpec("External Light Source") != null && CIS_DATA.getSpec("External Light Source") > 0)
+    calculate(ldstdResult ->
     {
       try
       {
-        LDSTD_DATA.calculate();
+        FXMLLoader loader = new FXMLLoader(getClass().getResource("/de/tichawa/cis/config/DataSheet.fxml"));
+        Scene scene = new Scene(loader.load());
+        Stage stage = new Stage();
+        stage.setScene(scene);
+        stage.setTitle("LDSTD Datasheet");
+        stage.getIcons().add(new Image(getClass().getResourceAsStream("/de/tichawa/cis/config/TiViCC.png")));
+        stage.centerOnScreen();
+        stage.show();
+        stage.setX(stage.getX() - 20);
+        stage.setY(stage.getY() - 20);
+
+        DataSheetController controller = loader.<DataSheetController>getController();
+        controller.passData(ldstdResult);
+
+        if(((Button) event.getSource()).equals(OEMMode))
+        {
+          controller.getHeader().setEditable(true);
+          controller.getSpecs().setEditable(true);
+          controller.getCLConfig().setEditable(true);
+          controller.getProfilePic().setImage(new Image(getClass().getResourceAsStream("/de/tichawa/cis/config/OEM_Profile.jpg")));
+        }
       }
-      catch(CISException e)
+      catch(IOException e)
       {
-        Alert alert = new Alert(Alert.AlertType.ERROR);
-        alert.setHeaderText(e.getMessage());
-        alert.show();
-        return;
-      }
 
+      }
+    }, result ->
+    {
       try
       {
         FXMLLoader loader = new FXMLLoader(getClass().getResource("/de/tichawa/cis/config/DataSheet.fxml"));
         Scene scene = new Scene(loader.load());
         Stage stage = new Stage();
         stage.setScene(scene);
-        stage.setTitle("LDSTD Datasheet");
+        stage.setTitle(CIS_DATA.cisName + " Datasheet");
         stage.getIcons().add(new Image(getClass().getResourceAsStream("/de/tichawa/cis/config/TiViCC.png")));
         stage.centerOnScreen();
         stage.show();
-        stage.setX(stage.getX() - 20);
-        stage.setY(stage.getY() - 20);
 
         DataSheetController controller = loader.<DataSheetController>getController();
-        controller.passData(LDSTD_DATA);
+        controller.passData(result);
 
         if(((Button) event.getSource()).equals(OEMMode))
         {
@@ -251,58 +262,215 @@ public abstract class MaskController implements Initializable
       }
       catch(IOException e)
       {
+      }
 
+      /*FerixSynchronizer sync = new FerixSynchronizer().setCIS(result);
+      if(sync.insert())
+      {
+        System.out.println("Success");
       }
-    }
+      else
+      {
+        System.out.println("Error");
+      }
+      sync.close();*/
+    });
+  }
 
-    try
+  // Kalkuliert CIS und ggf. LDSTD gleichzeitig im Hintergrund, die Fenster werden danach auf dem FX Thread geöffnet.
+  // Eine noch laufende Kalkulation wird verworfen, sobald die Maske verändert wird (siehe initPreview).
+  protected void calculate(Consumer<CalculationResult> ldstdView, Consumer<CalculationResult> view)
+  {
+    cancelCalculation();
+
+    //Kopien auf dem FX Thread ziehen, die Maske darf währenddessen weiter verändert werden
+    boolean withLdstd = ldstdView != null && CIS_DATA.getSpec("LDSTD") == null && CIS_DATA.getSpec("External Light Source") != null && CIS_DATA.getSpec("External Light Source") > 0;
+    CIS snapshot = CIS_DATA.copy();
+    CIS ldstdSnapshot = withLdstd ? LDSTD_DATA.copy() : null;
+
+    Future<CalculationResult> ldstd = withLdstd ? EXECUTOR.submit(ldstdSnapshot::calculate) : null;
+    Future<CalculationResult> cis = EXECUTOR.submit(snapshot::calculate);
+
+    Task<Void> task = new Task<Void>()
     {
-      CIS_DATA.calculate();
-    }
-    catch(CISException e)
+      @Override
+      protected Void call() throws Exception
+      {
+        //Fehler werden erst auf dem FX Thread ausgewertet
+        for(Future<CalculationResult> future : Arrays.asList(ldstd, cis))
+        {
+          if(future != null)
+          {
+            try
+            {
+              future.get();
+            }
+            catch(ExecutionException ignored)
+            {
+            }
+          }
+        }
+        return null;
+      }
+    };
+    task.setOnSucceeded(e ->
+    {
+      Progress.setVisible(false);
+      if(ldstd != null)
+      {
+        CalculationResult ldstdResult = getResult(ldstd);
+        if(ldstdResult == null)
+        {
+          return;
+        }
+        ldstdView.accept(ldstdResult);
+      }
+
+      CalculationResult result = getResult(cis);
+      if(result != null)
+      {
+        view.accept(result);
+      }
+    });
+    task.setOnCancelled(e ->
+    {
+      Progress.setVisible(false);
+      if(ldstd != null)
+      {
+        ldstd.cancel(true);
+      }
+      cis.cancel(true);
+    });
+    task.setOnFailed(e -> Progress.setVisible(false));
+
+    pending = task;
+    Progress.setVisible(true);
+    EXECUTOR.submit(task);
+  }
+
+  // Am Ende von initialize() aufrufen, damit die Listener der Unterklasse die Spezifikation schon gesetzt haben
+  protected void initPreview()
+  {
+    Stream.of(Color, Resolution, ScanWidth, InternalLightSource, InternalLightColor, ExternalLightSource, ExternalLightColor, Interface, Cooling)
+            .filter(Objects::nonNull)
+            .forEach(box -> box.valueProperty().addListener((observable, oldValue, newValue) -> maskChanged()));
+    SelLineRate.valueProperty().addListener((observable, oldValue, newValue) -> maskChanged());
+    Trigger.selectedProperty().addListener((observable, oldValue, newValue) -> maskChanged());
+
+    previewDelay.setOnFinished(e -> updatePreview());
+    updatePreview();
+  }
+
+  private void maskChanged()
+  {
+    cancelCalculation();
+    limitLineRate();
+    previewDelay.playFromStart();
+  }
+
+  protected void showPixelSize(SensorTiming timing)
+  {
+    PixelSize.setText(timing.getPixelSize() + " mm");
+    DefectSize.setText(timing.getDefectSize() + " mm");
+  }
+
+  // Geschwindigkeiten bei der ausgewählten Zeilenfrequenz
+  protected void showSpeed(SensorTiming timing)
+  {
+    int lineRate = CIS_DATA.getSpec("Selected line rate");
+    Speedmms.setText(timing.getSpeedmms(lineRate) + " mm/s");
+    Speedms.setText(timing.getSpeedms(lineRate) + " m/s");
+    Speedmmin.setText(timing.getSpeedmmin(lineRate) + " m/min");
+    Speedips.setText(timing.getSpeedips(lineRate) + " ips");
+  }
+
+  // Schieberegler nur bis zur Zeilenfrequenz, die Sensor und Interface zulassen (siehe CIS.getFeasibility).
+  // Lässt das Interface gar keine zu (Flash), meldet das die Vorschau.
+  private void limitLineRate()
+  {
+    if(!CIS_DATA.hasFeasibilitySpecs())
     {
-      Alert alert = new Alert(Alert.AlertType.ERROR);
-      alert.setHeaderText(e.getMessage());
-      alert.show();
       return;
     }
 
-    try
+    Feasibility feasibility = CIS_DATA.getFeasibility();
+
+    double maxLineRate = Math.min(SensorTiming.of(CIS_DATA).getMaxLineRateHz(), feasibility.getMaxLineRate());
+    if(feasibility.getMaxLineRate() > 0 && maxLineRate != SelLineRate.getMax())
+    {
+      MaxLineRate.setText(maxLineRate / 1000.0 + " kHz");
+      SelLineRate.setMax(maxLineRate);
+    }
+  }
+
+  private void updatePreview()
+  {
+    CIS snapshot = CIS_DATA.copy();
+    long request = ++previewRequest;
+    PREVIEW_EXECUTOR.submit(() ->
     {
-      FXMLLoader loader = new FXMLLoader(getClass().getResource("/de/tichawa/cis/config/DataSheet.fxml"));
-      Scene scene = new Scene(loader.load());
-      Stage stage = new Stage();
-      stage.setScene(scene);
-      stage.setTitle(CIS_DATA.cisName + " Datasheet");
-      stage.getIcons().add(new Image(getClass().getResourceAsStream("/de/tichawa/cis/config/TiViCC.png")));
-      stage.centerOnScreen();
-      stage.show();
-
-      DataSheetController controller = loader.<DataSheetController>getController();
-      controller.passData(CIS_DATA);
-
-      if(((Button) event.getSource()).equals(OEMMode))
+      String text;
+      try
       {
-        controller.getHeader().setEditable(true);
-        controller.getSpecs().setEditable(true);
-        controller.getCLConfig().setEditable(true);
-        controller.getProfilePic().setImage(new Image(getClass().getResourceAsStream("/de/tichawa/cis/config/OEM_Profile.jpg")));
+        CalculationResult result = preview.update(snapshot);
+        int parts = Stream.concat(result.getElectConfig().values().stream(), result.getMechaConfig().values().stream())
+                .mapToInt(Integer::intValue)
+                .sum();
+        text = String.format(result.getLocale(), "%s: %.2f EUR, %d %s", result.getString("Price/pc"), result.getTotalPrices()[0], parts, result.getString("pcs"));
       }
+      catch(CISException e)
+      {
+        text = e.getMessage();
+      }
+      catch(RuntimeException e)
+      {
+        //Sonst verschluckt der Executor den Fehler
+        e.printStackTrace();
+        text = e.toString();
+      }
+
+      String previewText = text;
+      Platform.runLater(() ->
+      {
+        //Nur das Ergebnis der letzten Änderung anzeigen
+        if(request == previewRequest)
+        {
+          Preview.setText(previewText);
+        }
+      });
+    });
+  }
+
+  protected void cancelCalculation()
+  {
+    if(pending != null)
+    {
+      pending.cancel(true);
+      pending = null;
     }
-    catch(IOException e)
+  }
+
+  private CalculationResult getResult(Future<CalculationResult> future)
+  {
+    try
     {
+      return future.get();
     }
-    
-    /*FerixSynchronizer sync = new FerixSynchronizer().setCIS(CIS_DATA);
-    if(sync.insert())
+    catch(ExecutionException e)
     {
-      System.out.println("Success");
+      if(e.getCause() instanceof CISException)
+      {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setHeaderText(e.getCause().getMessage());
+        alert.show();
+        return null;
+      }
+      throw new IllegalStateException(e.getCause());
     }
-    else
+    catch(InterruptedException e)
     {
-      System.out.println("Error");
+      return null;
     }
-    sync.close();*/
   }
 
   @FXML
@@ -316,7 +484,7 @@ public abstract class MaskController implements Initializable
   {
     try
     {
-      Map<String, Double> prices = Files.lines(Launcher.tableHome.resolve("Prices.csv"))
+      Map<String, Double> prices = Files.lines(Settings.tableHome.resolve("Prices.csv"))
               .skip(1)
               .map(line -> line.split("\t"))
               .filter(line -> isDouble(line[2]))
@@ -334,7 +502,7 @@ public abstract class MaskController implements Initializable
       Scene printScene = new Scene(printPane);
 
       SimpleBooleanProperty pale = new SimpleBooleanProperty(false);
-      Files.lines(Launcher.tableHome.resolve("Equip.csv"))
+      Files.lines(Settings.tableHome.resolve("Equip.csv"))
               .skip(1)
               .map(line -> line.split("\t"))
               .filter(line -> line.length > 3 && Arrays.stream(line[2].split("&"))
@@ -0,0 +1,167 @@
+package de.tichawa.cis.config;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Mechanics.csv: Name, -, Bedingung, Artikelnummern je Scanbreite (NL...), danach die Faktoren
+public class MechanicsTable
+{
+  private final int nlCount;
+  private final List<Row> rows;
+  private final DependencyIndex dependencies;
+
+  public MechanicsTable(Path path) throws IOException
+  {
+    try(Stream<String> lines = Files.lines(path))
+    {
+      Iterator<String[]> it = lines.map(line -> line.split("\t")).iterator();
+      nlCount = it.hasNext() ? (int) Arrays.stream(it.next())
+              .filter(field -> field.startsWith("NL"))
+              .count() : 0;
+
+      Iterable<String[]> remaining = () -> it;
+      rows = Collections.unmodifiableList(StreamSupport.stream(remaining.spliterator(), false)
+              .filter(line -> line[0].length() > 0)
+              .map(Row::new)
+              .collect(Collectors.toList()));
+    }
+    dependencies = DependencyIndex.forMechanics(rows);
+  }
+
+  MechanicsTable(int nlCount, List<Row> rows)
+  {
+    this.nlCount = nlCount;
+    this.rows = Collections.unmodifiableList(rows);
+    dependencies = DependencyIndex.forMechanics(rows);
+  }
+
+  void write(DataOutput out) throws IOException
+  {
+    out.writeInt(nlCount);
+    out.writeInt(rows.size());
+    for(Row row : rows)
+    {
+      TableSnapshot.writeString(out, row.name);
+      row.condition.write(out);
+      out.writeInt(row.values.length);
+      for(int x = 0; x < row.values.length; x++)
+      {
+        TableSnapshot.writeString(out, row.values[x]);
+        out.writeInt(row.itemNos[x]);
+        row.factors[x].write(out);
+      }
+    }
+  }
+
+  static MechanicsTable read(ByteBuffer in)
+  {
+    int nlCount = in.getInt();
+    int size = in.getInt();
+    List<Row> rows = new ArrayList<>(size);
+    for(int i = 0; i < size; i++)
+    {
+      String name = TableSnapshot.readString(in);
+      Condition condition = Condition.read(in);
+      String[] values = new String[in.getInt()];
+      int[] itemNos = new int[values.length];
+      Formula[] factors = new Formula[values.length];
+      for(int x = 0; x < values.length; x++)
+      {
+        values[x] = TableSnapshot.readString(in);
+        itemNos[x] = in.getInt();
+        factors[x] = Formula.read(in);
+      }
+      rows.add(new Row(name, condition, values, itemNos, factors));
+    }
+    return new MechanicsTable(nlCount, rows);
+  }
+
+  public int getNLCount()
+  {
+    return nlCount;
+  }
+
+  public List<Row> getRows()
+  {
+    return rows;
+  }
+
+  public DependencyIndex getDependencies()
+  {
+    return dependencies;
+  }
+
+  public static class Row
+  {
+    private final String name;
+    private final Condition condition;
+    private final String[] values;
+    private final int[] itemNos;
+    private final Formula[] factors;
+
+    Row(String[] line)
+    {
+      name = line[0];
+      condition = Condition.compile(line.length > 2 ? line[2] : "");
+      values = line.length > 3 ? Arrays.copyOfRange(line, 3, line.length) : new String[0];
+      itemNos = Arrays.stream(values)
+              .map(value -> value.replace("X", ""))
+              .mapToInt(value -> CIS.isInteger(value) ? Integer.parseInt(value) : -1)
+              .toArray();
+      factors = Arrays.stream(values)
+              .map(Formula::compile)
+              .toArray(Formula[]::new);
+    }
+
+    private Row(String name, Condition condition, String[] values, int[] itemNos, Formula[] factors)
+    {
+      this.name = name;
+      this.condition = condition;
+      this.values = values;
+      this.itemNos = itemNos;
+      this.factors = factors;
+    }
+
+    public String getName()
+    {
+      return name;
+    }
+
+    public Condition getCondition()
+    {
+      return condition;
+    }
+
+    public boolean hasItem(int swIndex)
+    {
+      return values[swIndex].length() > 0;
+    }
+
+    public int getItemNo(int swIndex)
+    {
+      return itemNos[swIndex];
+    }
+
+    public Formula getFactor(int column)
+    {
+      return factors[column];
+    }
+
+    // Über alle Spalten
+    public int getVariables()
+    {
+      return Arrays.stream(factors).mapToInt(Formula::getVariables).reduce(0, (a, b) -> a | b);
+    }
+  }
+}
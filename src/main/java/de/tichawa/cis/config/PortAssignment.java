@@ -0,0 +1,149 @@
+package de.tichawa.cis.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Camera-Link-Belegung eines CIS (siehe CameraLinkLayout): Taps, LVAL, Stecker und je Kabel die Ports mit Pixelbereich und Farbe.
+// Der Text für das Datenblatt entsteht erst in getCLCalc der jeweiligen Familie.
+public final class PortAssignment
+{
+  public enum Colour
+  {
+    RED("Red"), GREEN("Green"), BLUE("Blue");
+
+    private final String key;
+
+    Colour(String key)
+    {
+      this.key = key;
+    }
+
+    // Schlüssel im Bundle
+    public String getKey()
+    {
+      return key;
+    }
+  }
+
+  private final int taps;
+  private final int lval;
+  private final int nominalPixels;
+  private final int connectors;
+  private final int portCount;
+  private final double dataRate;
+  private final List<Cable> cables;
+
+  PortAssignment(int taps, int lval, int nominalPixels, int connectors, int portCount, double dataRate, List<Cable> cables)
+  {
+    this.taps = taps;
+    this.lval = lval;
+    this.nominalPixels = nominalPixels;
+    this.connectors = connectors;
+    this.portCount = portCount;
+    this.dataRate = dataRate;
+    this.cables = Collections.unmodifiableList(cables);
+  }
+
+  // Taps je Farbe
+  public int getTaps()
+  {
+    return taps;
+  }
+
+  public int getLval()
+  {
+    return lval;
+  }
+
+  public int getNominalPixels()
+  {
+    return nominalPixels;
+  }
+
+  public int getConnectors()
+  {
+    return connectors;
+  }
+
+  public int getPortCount()
+  {
+    return portCount;
+  }
+
+  // MByte/s, auf eine Nachkommastelle gerundet
+  public double getDataRate()
+  {
+    return dataRate;
+  }
+
+  // In der Reihenfolge des Datenblatts, ein Kabel kann auch ohne Ports aufgeführt sein
+  public List<Cable> getCables()
+  {
+    return cables;
+  }
+
+  public static final class Cable
+  {
+    private final int number;
+    private final List<Port> ports = new ArrayList<>();
+
+    Cable(int number)
+    {
+      this.number = number;
+    }
+
+    void add(Port port)
+    {
+      ports.add(port);
+    }
+
+    public int getNumber()
+    {
+      return number;
+    }
+
+    public List<Port> getPorts()
+    {
+      return Collections.unmodifiableList(ports);
+    }
+  }
+
+  public static final class Port
+  {
+    private final int index;
+    private final int first;
+    private final int last;
+    private final Colour colour;
+
+    Port(int index, int first, int last, Colour colour)
+    {
+      this.index = index;
+      this.first = first;
+      this.last = last;
+      this.colour = colour;
+    }
+
+    // 0 = Port A
+    public int getIndex()
+    {
+      return index;
+    }
+
+    public int getFirstPixel()
+    {
+      return first;
+    }
+
+    public int getLastPixel()
+    {
+      return last;
+    }
+
+    // null bei Graustufen
+    public Colour getColour()
+    {
+      return colour;
+    }
+  }
+}
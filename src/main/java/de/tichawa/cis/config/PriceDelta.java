@@ -0,0 +1,56 @@
+package de.tichawa.cis.config;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+// Unterschied zwischen zwei Kalkulationen, siehe DeltaPricer
+public final class PriceDelta
+{
+  private final CalculationResult base;
+  private final CalculationResult result;
+
+  public PriceDelta(CalculationResult base, CalculationResult result)
+  {
+    this.base = base;
+    this.result = result;
+  }
+
+  public CalculationResult getBase()
+  {
+    return base;
+  }
+
+  public CalculationResult getResult()
+  {
+    return result;
+  }
+
+  // Mengenänderung je Artikelnummer (neu - alt), nur geänderte Teile
+  public Map<Integer, Integer> getPartChanges()
+  {
+    Map<Integer, Integer> changes = new TreeMap<>();
+    addParts(changes, result, 1);
+    addParts(changes, base, -1);
+    changes.values().removeIf(amount -> amount == 0);
+    return changes;
+  }
+
+  private static void addParts(Map<Integer, Integer> changes, CalculationResult calculation, int sign)
+  {
+    calculation.getElectConfig().forEach((itemNo, amount) -> changes.merge(itemNo, sign * amount, Integer::sum));
+    calculation.getMechaConfig().forEach((itemNo, amount) -> changes.merge(itemNo, sign * amount, Integer::sum));
+  }
+
+  // Preisänderung für 1, 5, 10 und 25 Stück
+  public Double[] getPriceChanges()
+  {
+    Double[] basePrices = base.getTotalPrices();
+    Double[] prices = result.getTotalPrices();
+    Double[] changes = new Double[prices.length];
+    for(int i = 0; i < prices.length; i++)
+    {
+      changes[i] = prices[i] - basePrices[i];
+    }
+    return changes;
+  }
+}
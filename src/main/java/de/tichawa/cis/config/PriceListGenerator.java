@@ -0,0 +1,336 @@
+package de.tichawa.cis.config;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+// Komplette Preisliste: läuft alle in den Masken erlaubten Kombinationen einer Familie ab und kalkuliert sie parallel.
+// Aufruf: Headless --pricelist <output.csv> [VSCIS VHCIS ...]
+public class PriceListGenerator
+{
+  public static final String[] FAMILIES = {"VSCIS", "VHCIS", "VTCIS", "VDCIS", "MXCIS", "LDSTD"};
+
+  private static final int[] RES_VS = {1200, 1200, 600, 400, 300, 200, 150, 100, 75, 50, 25};
+  private static final int[] RES_VD = {1000, 1000, 500, 250, 125, 100, 50, 25};
+  private static final int[] RES_MX = {600, 400, 300, 200, 150, 100, 75, 50, 25};
+  private static final int[] LED_LINES = {0, 1, 2, 3, 1}; //None, One sided, Two sided, Two sided plus Coax, Coax
+  private static final int[] LED_LINES_MX = {0, 1, 1, 2, 2}; //None, One sided, Coax, Two sided, One sided plus Coax
+  private static final int LIGHT_COLORS = 6;
+
+  private final ForkJoinPool pool;
+  private int priced;
+  private int skipped;
+
+  public PriceListGenerator(ForkJoinPool pool)
+  {
+    this.pool = pool;
+  }
+
+  public static void main(String[] args) throws IOException
+  {
+    if(args.length < 1)
+    {
+      System.err.println("Usage: --pricelist <output.csv> [family...]");
+      return;
+    }
+
+    Settings.loadProperties();
+    String[] families = args.length > 1 ? Arrays.copyOfRange(args, 1, args.length) : FAMILIES;
+    PriceListGenerator generator = new PriceListGenerator(ForkJoinPool.commonPool());
+    generator.write(Paths.get(args[0]), families);
+    System.out.println(generator.priced + " configurations priced, " + generator.skipped + " not feasible");
+  }
+
+  public void write(Path output, String... families) throws IOException
+  {
+    try(BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8))
+    {
+      writer.write("CIS\tTiViKey\tResolution\tScan Width\tColor\tInternal Light Source\tInternal Light Color\tInterface\tCooling\tExternal Trigger\tMaximum line rate\tPrice (1 pc)\tPrice (5 pcs)\tPrice (10 pcs)\tPrice (25 pcs)");
+      writer.newLine();
+
+      for(String family : families)
+      {
+        //One task per resolution and scan width, written in order as they finish
+        List<ForkJoinTask<List<String>>> tasks = new ArrayList<>();
+        for(Map<String, Integer> slice : getSlices(family.toUpperCase()))
+        {
+          tasks.add(pool.submit(new SliceTask(family.toUpperCase(), slice)));
+        }
+
+        for(ForkJoinTask<List<String>> task : tasks)
+        {
+          for(String line : task.join())
+          {
+            writer.write(line);
+            writer.newLine();
+          }
+        }
+      }
+    }
+  }
+
+  public int getPriced()
+  {
+    return priced;
+  }
+
+  public int getSkipped()
+  {
+    return skipped;
+  }
+
+  private synchronized void count(int priced, int skipped)
+  {
+    this.priced += priced;
+    this.skipped += skipped;
+  }
+
+  // Auflösung und Scanbreite wie in den MaskControllern, Scanbreiten absteigend
+  public static List<Map<String, Integer>> getSlices(String family)
+  {
+    List<Map<String, Integer>> slices = new ArrayList<>();
+    int[] widths = ScanWidthSweep.getScanWidths(family);
+    switch(family)
+    {
+      case "VSCIS":
+      case "VHCIS":
+      case "VTCIS":
+      {
+        for(int r = 0; r < RES_VS.length; r++)
+        {
+          for(int x = widths.length - 1; x >= 0; x--)
+          {
+            int res = RES_VS[r];
+            slices.add(slice(r, res, res == 1200 || res == 400 ? 1200 : res == 600 || res == 200 ? 600 : 300,
+                    widths[x], ScanWidthSweep.getSWIndex(family, widths[x])));
+          }
+        }
+        break;
+      }
+      case "VDCIS":
+      {
+        for(int r = 0; r < RES_VD.length; r++)
+        {
+          for(int x = widths.length - 1; x >= 0; x--)
+          {
+            int res = RES_VD[r];
+            slices.add(slice(r, res, res == 1000 ? 1000 : res == 500 || res == 100 ? 500 : 250, widths[x], ScanWidthSweep.getSWIndex(family, widths[x])));
+          }
+        }
+        break;
+      }
+      case "MXCIS":
+      {
+        for(int r = 0; r < RES_MX.length; r++)
+        {
+          for(int sw : widths)
+          {
+            int res = RES_MX[r];
+            slices.add(slice(r, res, res == 600 || res == 400 || res == 200 ? res : 300, sw, ScanWidthSweep.getSWIndex(family, sw)));
+          }
+        }
+        break;
+      }
+      case "LDSTD":
+      {
+        for(int x = widths.length - 1; x >= 0; x--)
+        {
+          Map<String, Integer> slice = new LinkedHashMap<>();
+          slice.put("Scan Width", widths.length - (x + 1));
+          slice.put("sw_cp", widths[x]);
+          slice.put("sw_index", ScanWidthSweep.getSWIndex(family, widths[x]));
+          slices.add(slice);
+        }
+        break;
+      }
+    }
+    return slices;
+  }
+
+  private static Map<String, Integer> slice(int resolution, int res2, int res, int sw, int swIndex)
+  {
+    Map<String, Integer> slice = new LinkedHashMap<>();
+    slice.put("Resolution", resolution);
+    slice.put("res_cp", res);
+    slice.put("res_cp2", res2);
+    slice.put("sw_cp", sw);
+    slice.put("sw_index", swIndex);
+    return slice;
+  }
+
+  private static int[] getColors(String family)
+  {
+    switch(family)
+    {
+      case "VHCIS":
+        return new int[]{1};
+      case "VTCIS":
+        return new int[]{1, 2, 3, 4, 5, 6};
+      case "VDCIS":
+        return new int[]{2, 3, 4, 5, 6, 7};
+      case "MXCIS":
+        return new int[]{1, 4};
+      default:
+        return new int[]{1, 3};
+    }
+  }
+
+  private static int getRGB(String family)
+  {
+    return family.equals("VDCIS") || family.equals("MXCIS") ? 4 : 3;
+  }
+
+  private static int[] getLightSources(String family)
+  {
+    switch(family)
+    {
+      case "VHCIS":
+        return new int[]{0, 1, 2};
+      case "VDCIS":
+        return new int[]{2}; //Two sided only
+      default:
+        return new int[]{0, 1, 2, 3, 4};
+    }
+  }
+
+  // Kombinationen, die die MaskController ablehnen
+  private static boolean isLegal(String family, int color, int light, Map<String, Integer> spec)
+  {
+    switch(family)
+    {
+      case "VTCIS":
+        return !(color == 3 && (light == 0 || spec.get("sw_cp") > 1300)) && !(color >= 4 && spec.get("res_cp2") > 600);
+      case "VDCIS":
+        return !(color >= 4 && spec.get("res_cp2") > 600);
+      case "MXCIS":
+        return !(color == 4 && light != 2 && light != 3) && !((light == 2 || light == 4) && spec.get("sw_cp") > 1820);
+      default:
+        return !(color == 3 && light == 0);
+    }
+  }
+
+  private class SliceTask extends RecursiveTask<List<String>>
+  {
+    private final String family;
+    private final Map<String, Integer> slice;
+
+    private SliceTask(String family, Map<String, Integer> slice)
+    {
+      this.family = family;
+      this.slice = slice;
+    }
+
+    @Override
+    protected List<String> compute()
+    {
+      List<String> lines = new ArrayList<>();
+      int failed = 0;
+      boolean ldstd = family.equals("LDSTD");
+      //Cooling is not part of the VTCIS/VDCIS key and does not change the price
+      int[] coolings = family.equals("VTCIS") || family.equals("VDCIS") || ldstd ? new int[]{1} : new int[]{0, 1, 2, 3, 4};
+      int[] interfaces = family.equals("VDCIS") || ldstd ? new int[]{0} : new int[]{0, 1};
+      int[] triggers = ldstd ? new int[]{0} : new int[]{0, 1};
+      CIS cis = BatchPricer.createCIS(family);
+
+      for(int color : getColors(family))
+      {
+        for(int light : getLightSources(family))
+        {
+          if(!isLegal(family, color, light, slice))
+          {
+            continue;
+          }
+
+          //Light colour only matters for monochrome sensors with internal light
+          int lightColors = light == 0 || color == getRGB(family) ? 1 : LIGHT_COLORS;
+          for(int lightColor = 0; lightColor < lightColors; lightColor++)
+          {
+            for(int iface : interfaces)
+            {
+              for(int cooling : coolings)
+              {
+                for(int trigger : triggers)
+                {
+                  Map<String, Integer> spec = new LinkedHashMap<>(slice);
+                  spec.put("Color", color);
+                  spec.put("Internal Light Source", light);
+                  spec.put("Internal Light Color", lightColor);
+                  spec.put("LEDLines", (family.equals("MXCIS") ? LED_LINES_MX : LED_LINES)[light]);
+                  spec.put("External Light Source", 0);
+                  spec.put("Interface", iface);
+                  spec.put("Cooling", cooling);
+                  spec.put("External Trigger", trigger);
+                  spec.put("CLMode", 0);
+
+                  String line = price(cis, spec);
+                  if(line == null)
+                  {
+                    failed++;
+                  }
+                  else
+                  {
+                    lines.add(line);
+                  }
+                }
+              }
+            }
+          }
+        }
+      }
+
+      count(lines.size(), failed);
+      return lines;
+    }
+
+    // Every option is set on each pass, so one CIS per task can be reused
+    private String price(CIS cis, Map<String, Integer> spec)
+    {
+      try
+      {
+        spec.forEach(cis::setSpec);
+
+        int maxLineRate = SensorTiming.of(cis).getMaxLineRateHz();
+        if(family.equals("MXCIS"))
+        {
+          maxLineRate = Math.max(maxLineRate, 100);
+        }
+        cis.setSpec("Maximum line rate", maxLineRate);
+        cis.setSpec("Selected line rate", maxLineRate);
+
+        //Not feasible, e.g. GigE data rate exceeded: skipped without reading the tables
+        if(!cis.getFeasibility().isFeasible(maxLineRate))
+        {
+          return null;
+        }
+
+        CalculationResult calculation = cis.calculate();
+
+        StringBuilder line = new StringBuilder(family).append("\t").append(calculation.getTiViKey());
+        for(String key : new String[]{"res_cp2", "sw_cp", "Color", "Internal Light Source", "Internal Light Color", "Interface", "Cooling", "External Trigger", "Maximum line rate"})
+        {
+          line.append("\t").append(spec.containsKey(key) || key.equals("Maximum line rate") ? cis.getSpec(key) : "");
+        }
+        for(Double total : calculation.getTotalPrices())
+        {
+          line.append("\t").append(String.format(calculation.getLocale(), "%.2f", total));
+        }
+        return line.toString();
+      }
+      catch(CISException ex)
+      {
+        return null;
+      }
+    }
+  }
+}
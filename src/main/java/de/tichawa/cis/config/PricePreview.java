@@ -0,0 +1,20 @@
+package de.tichawa.cis.config;
+
+// Laufende Preisvorschau für die Maske. Zwischen zwei Aufrufen werden nur die Zeilen neu ausgewertet,
+// deren Bedingung oder Formel von einer geänderten Eingabe abhängt.
+public final class PricePreview
+{
+  private final RowMemo electronics = new RowMemo();
+  private final RowMemo mechanics = new RowMemo();
+
+  public synchronized CalculationResult update(CIS cis)
+  {
+    return cis.calculate(electronics, mechanics);
+  }
+
+  // Anzahl der beim letzten Aufruf neu ausgewerteten Zeilen
+  public synchronized int getEvaluatedRows()
+  {
+    return electronics.getEvaluated() + mechanics.getEvaluated();
+  }
+}
@@ -0,0 +1,203 @@
+package de.tichawa.cis.config;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Prices.csv: Artikelnummer, Key, Preis, Zeit, Strom, Gewicht, Faktor
+// Spaltenweise in double-Arrays, die Artikelnummer wird über eine offene Hashtabelle auf die Zeile abgebildet.
+// Leere oder ungültige Werte stehen als 0.0 in der Spalte und sind in missing markiert.
+public class PriceTable
+{
+  public static final int PRICE = 0;
+  public static final int TIME = 1;
+  public static final int POWER = 2;
+  public static final int WEIGHT = 3;
+  public static final int FACTOR = 4;
+  public static final int COLUMNS = 5;
+
+  private final int[] slotItems;
+  private final int[] slotRows; //Zeile + 1, 0 = frei
+  private final int[] itemNos;
+  private final String[] keys;
+  private final double[][] columns;
+  private final BitSet missing;
+  private final int size;
+
+  public PriceTable(Path path) throws IOException
+  {
+    List<String[]> lines;
+    try(Stream<String> stream = Files.lines(path))
+    {
+      lines = stream.map(line -> line.split("\t"))
+              .filter(line -> CIS.isInteger(line[0]))
+              .collect(Collectors.toList());
+    }
+
+    slotItems = new int[getCapacity(lines.size())];
+    slotRows = new int[slotItems.length];
+    itemNos = new int[lines.size()];
+    keys = new String[lines.size()];
+    columns = new double[COLUMNS][lines.size()];
+    missing = new BitSet();
+
+    int rows = 0;
+    for(String[] line : lines)
+    {
+      int artnum = Integer.parseInt(line[0].replace("X", ""));
+      String key = line[1];
+
+      //Doppelte Artikelnummern: die letzte Zeile gilt
+      int slot = findSlot(artnum);
+      int row;
+      if(slotRows[slot] == 0)
+      {
+        row = rows++;
+        slotItems[slot] = artnum;
+        slotRows[slot] = row + 1;
+      }
+      else
+      {
+        row = slotRows[slot] - 1;
+      }
+
+      itemNos[row] = artnum;
+      keys[row] = key;
+      for(int x = 0; x < COLUMNS; x++)
+      {
+        try
+        {
+          columns[x][row] = Double.parseDouble(line[x + 2]);
+          missing.clear(row * COLUMNS + x);
+        }
+        catch(NumberFormatException | ArrayIndexOutOfBoundsException ex)
+        {
+          columns[x][row] = 0.0;
+          missing.set(row * COLUMNS + x);
+        }
+      }
+    }
+    size = rows;
+  }
+
+  PriceTable(int[] itemNos, String[] keys, double[][] columns, BitSet missing)
+  {
+    slotItems = new int[getCapacity(itemNos.length)];
+    slotRows = new int[slotItems.length];
+    this.itemNos = itemNos;
+    this.keys = keys;
+    this.columns = columns;
+    this.missing = missing;
+    size = itemNos.length;
+
+    for(int row = 0; row < size; row++)
+    {
+      int slot = findSlot(itemNos[row]);
+      slotItems[slot] = itemNos[row];
+      slotRows[slot] = row + 1;
+    }
+  }
+
+  void write(DataOutput out) throws IOException
+  {
+    out.writeInt(size);
+    for(int row = 0; row < size; row++)
+    {
+      out.writeInt(itemNos[row]);
+      TableSnapshot.writeString(out, keys[row]);
+    }
+    for(double[] column : columns)
+    {
+      for(int row = 0; row < size; row++)
+      {
+        out.writeDouble(column[row]);
+      }
+    }
+    byte[] bits = missing.toByteArray();
+    out.writeInt(bits.length);
+    out.write(bits);
+  }
+
+  static PriceTable read(ByteBuffer in)
+  {
+    int size = in.getInt();
+    int[] itemNos = new int[size];
+    String[] keys = new String[size];
+    for(int row = 0; row < size; row++)
+    {
+      itemNos[row] = in.getInt();
+      keys[row] = TableSnapshot.readString(in);
+    }
+    double[][] columns = new double[COLUMNS][size];
+    for(double[] column : columns)
+    {
+      in.asDoubleBuffer().get(column);
+      in.position(in.position() + size * Double.BYTES);
+    }
+    byte[] bits = new byte[in.getInt()];
+    in.get(bits);
+    return new PriceTable(itemNos, keys, columns, BitSet.valueOf(bits));
+  }
+
+  //Zweierpotenz, höchstens halb belegt
+  private static int getCapacity(int rows)
+  {
+    return Integer.highestOneBit(Math.max(rows, 1) * 2 - 1) << 1;
+  }
+
+  private int findSlot(int itemNo)
+  {
+    int mask = slotRows.length - 1;
+    int hash = itemNo * 0x9E3779B9;
+    int slot = (hash ^ hash >>> 16) & mask;
+    while(slotRows[slot] != 0 && slotItems[slot] != itemNo)
+    {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  // Zeile zur Artikelnummer, -1 wenn sie nicht in der Preisliste steht
+  public int indexOf(int itemNo)
+  {
+    return slotRows[findSlot(itemNo)] - 1;
+  }
+
+  public boolean contains(int itemNo)
+  {
+    return indexOf(itemNo) >= 0;
+  }
+
+  public int size()
+  {
+    return size;
+  }
+
+  public int getItemNo(int row)
+  {
+    return itemNos[row];
+  }
+
+  public String getKey(int itemNo)
+  {
+    int row = indexOf(itemNo);
+    return row < 0 ? null : keys[row];
+  }
+
+  public double get(int row, int column)
+  {
+    return columns[column][row];
+  }
+
+  public boolean isMissing(int row, int column)
+  {
+    return missing.get(row * COLUMNS + column);
+  }
+}
@@ -0,0 +1,208 @@
+package de.tichawa.cis.config;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+// Übernimmt die Preise aus dem FERIX-Export (Export/art.csv: Artikelnummer, Preis, Mengeneinheit, Status) in Prices.csv.
+// Beide Dateien werden je einmal zeilenweise gelesen, die Exportpreise liegen in einer offenen Hashtabelle mit primitiven Arrays.
+// Prices.csv wird in eine temporäre Datei geschrieben und dann umbenannt, die alte Fassung landet vorher in backup.
+public final class PriceUpdater
+{
+  private int[] slotItems = new int[1024];
+  private double[] slotPrices = new double[slotItems.length];
+  private boolean[] slotActive = new boolean[slotItems.length];
+  private boolean[] slotUsed = new boolean[slotItems.length];
+  private int size;
+
+  private int changed;
+  private int unchanged;
+  private int[] inactive = new int[16];
+  private int inactiveCount;
+
+  private PriceUpdater()
+  {
+  }
+
+  public static PriceUpdater update(Path export, Path prices, Path backup) throws IOException
+  {
+    PriceUpdater updater = new PriceUpdater();
+    updater.readExport(export);
+
+    if(backup.getParent() != null)
+    {
+      Files.createDirectories(backup.getParent());
+    }
+    Files.copy(prices, backup, StandardCopyOption.REPLACE_EXISTING);
+
+    Path temp = Files.createTempFile(prices.toAbsolutePath().getParent(), "Prices", ".tmp");
+    try
+    {
+      try(BufferedReader in = Files.newBufferedReader(prices);
+          BufferedWriter out = Files.newBufferedWriter(temp))
+      {
+        for(String line = in.readLine(); line != null; line = in.readLine())
+        {
+          String merged = updater.merge(line);
+          if(merged != null)
+          {
+            out.write(merged);
+            out.newLine();
+          }
+        }
+      }
+      Files.move(temp, prices, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    finally
+    {
+      Files.deleteIfExists(temp);
+    }
+    return updater;
+  }
+
+  private void readExport(Path export) throws IOException
+  {
+    try(BufferedReader in = Files.newBufferedReader(export))
+    {
+      for(String line = in.readLine(); line != null; line = in.readLine())
+      {
+        String[] fields = line.split("\t");
+        if(fields.length > 2 && CIS.isInteger(fields[0]) && CIS.isDouble(fields[1]))
+        {
+          double price = Double.parseDouble(fields[1].replace(",", ".")) / CIS.decodeQuantity(fields[2]);
+          if(price > 0)
+          {
+            //Doppelte Artikelnummern: die letzte Zeile gilt
+            put(Integer.parseInt(fields[0]), price, fields.length < 4 || fields[3].equals("A"));
+          }
+        }
+      }
+    }
+  }
+
+  // Zeilen ohne Artikelnummer entfallen, leere Spalten am Zeilenende ebenso (wie bisher)
+  private String merge(String line)
+  {
+    String[] fields = line.split("\t");
+    if(!CIS.isInteger(fields[0]))
+    {
+      return null;
+    }
+
+    int slot = findSlot(Integer.parseInt(fields[0]));
+    if(slotUsed[slot])
+    {
+      String price = Double.toString(slotPrices[slot]);
+      if(fields.length > 2 && CIS.isDouble(fields[2]) && Double.parseDouble(fields[2].replace(",", ".")) == slotPrices[slot])
+      {
+        unchanged++;
+      }
+      else
+      {
+        changed++;
+      }
+      if(fields.length < 3)
+      {
+        //Vorhandene Spalten behalten, nur die fehlenden leer auffüllen
+        int old = fields.length;
+        fields = Arrays.copyOf(fields, 3);
+        Arrays.fill(fields, old, 3, "");
+      }
+      fields[2] = price;
+
+      if(!slotActive[slot])
+      {
+        if(inactiveCount == inactive.length)
+        {
+          inactive = Arrays.copyOf(inactive, inactiveCount * 2);
+        }
+        inactive[inactiveCount++] = slotItems[slot];
+        slotActive[slot] = true; //Nur einmal melden
+      }
+    }
+    return String.join("\t", fields);
+  }
+
+  private void put(int itemNo, double price, boolean active)
+  {
+    if((size + 1) * 2 > slotItems.length)
+    {
+      grow();
+    }
+
+    int slot = findSlot(itemNo);
+    if(!slotUsed[slot])
+    {
+      slotUsed[slot] = true;
+      slotItems[slot] = itemNo;
+      size++;
+    }
+    slotPrices[slot] = price;
+    slotActive[slot] = active;
+  }
+
+  private void grow()
+  {
+    int[] items = slotItems;
+    double[] prices = slotPrices;
+    boolean[] active = slotActive;
+    boolean[] used = slotUsed;
+
+    slotItems = new int[items.length * 2];
+    slotPrices = new double[slotItems.length];
+    slotActive = new boolean[slotItems.length];
+    slotUsed = new boolean[slotItems.length];
+    for(int i = 0; i < items.length; i++)
+    {
+      if(used[i])
+      {
+        int slot = findSlot(items[i]);
+        slotUsed[slot] = true;
+        slotItems[slot] = items[i];
+        slotPrices[slot] = prices[i];
+        slotActive[slot] = active[i];
+      }
+    }
+  }
+
+  private int findSlot(int itemNo)
+  {
+    int mask = slotItems.length - 1;
+    int hash = itemNo * 0x9E3779B9;
+    int slot = (hash ^ hash >>> 16) & mask;
+    while(slotUsed[slot] && slotItems[slot] != itemNo)
+    {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  // Artikel im Export (mit Preis > 0)
+  public int getExported()
+  {
+    return size;
+  }
+
+  // Artikel aus Prices.csv mit neuem bzw. gleichem Preis
+  public int getChanged()
+  {
+    return changed;
+  }
+
+  public int getUnchanged()
+  {
+    return unchanged;
+  }
+
+  // In FERIX nicht mehr aktive Artikel, die noch in Prices.csv stehen, aufsteigend
+  public int[] getInactive()
+  {
+    int[] items = Arrays.copyOf(inactive, inactiveCount);
+    Arrays.sort(items);
+    return items;
+  }
+}
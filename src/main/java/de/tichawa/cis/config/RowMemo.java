@@ -0,0 +1,80 @@
+package de.tichawa.cis.config;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+// Merkt sich pro Zeile einer Tabelle die Eingaben und die Menge der letzten Auswertung.
+// Eine Zeile wird nur neu berechnet, wenn sich ein Merkmal ihrer Bedingung, die Spalte oder eine ihrer Variablen geändert hat.
+// Mit einer Zeilenauswahl aus dem DependencyIndex werden nur diese Zeilen ausgewertet und der gemerkte Stand bleibt erhalten.
+final class RowMemo
+{
+  private List<?> rows;
+  private boolean[] valid;
+  private long[] features;
+  private int[] columns;
+  private double[][] inputs;
+  private int[] amounts;
+  private int evaluated;
+  private BitSet dirty;
+  private boolean stale;
+
+  // Zu Beginn jeder Kalkulation, eine neu eingelesene Tabelle verwirft alle Einträge
+  void prepare(List<?> rows)
+  {
+    prepare(rows, null);
+  }
+
+  void prepare(List<?> rows, BitSet dirty)
+  {
+    this.dirty = dirty;
+    stale = dirty != null && this.rows != rows;
+    if(dirty == null && this.rows != rows)
+    {
+      this.rows = rows;
+      valid = new boolean[rows.size()];
+      features = new long[rows.size()];
+      columns = new int[rows.size()];
+      inputs = new double[rows.size()][Formula.FRAME_SIZE];
+      amounts = new int[rows.size()];
+    }
+    evaluated = 0;
+  }
+
+  int get(int index, long features, int column, double[] frame, int variables, IntSupplier amount)
+  {
+    if(dirty != null)
+    {
+      if(!stale && valid[index] && !dirty.get(index))
+      {
+        return amounts[index];
+      }
+      evaluated++;
+      return amount.getAsInt();
+    }
+
+    double[] input = inputs[index];
+    boolean same = valid[index] && this.features[index] == features && columns[index] == column;
+    for(int i = 0; same && i < Formula.FRAME_SIZE; i++)
+    {
+      same = (variables & (1 << i)) == 0 || input[i] == frame[i];
+    }
+    if(same)
+    {
+      return amounts[index];
+    }
+
+    amounts[index] = amount.getAsInt();
+    this.features[index] = features;
+    columns[index] = column;
+    System.arraycopy(frame, 0, input, 0, Formula.FRAME_SIZE);
+    valid[index] = true;
+    evaluated++;
+    return amounts[index];
+  }
+
+  int getEvaluated()
+  {
+    return evaluated;
+  }
+}
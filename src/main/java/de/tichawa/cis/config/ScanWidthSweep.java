@@ -0,0 +1,119 @@
+package de.tichawa.cis.config;
+
+// Preise, Gewicht, Leistung und FPGAs einer Konfiguration über alle Scanbreiten der Familie (siehe CIS.sweepScanWidths()),
+// für die Kurve Scanbreite/Preis in der Maske und die Breitenstaffel für den Vertrieb. Alle Arrays in der Reihenfolge von getWidths().
+public final class ScanWidthSweep
+{
+  // Scanbreiten (mm) je Familie wie in den MaskControllern, aufsteigend
+  private static final int[] WIDTHS_VS = {260, 520, 780, 1040};
+  private static final int[] WIDTHS_VH = {260, 520, 780};
+  private static final int[] WIDTHS_VT = {260, 520, 780, 1040, 1300, 1560};
+  private static final int[] WIDTHS_VD = {300, 600, 900, 1200}; //> 1200 mm lehnt die Maske ab
+  private static final int[] WIDTHS_LD = {260, 390, 520, 650, 780, 910, 1040, 1300, 1560, 1820, 2080, 2340, 2600, 2860, 3120, 3380, 3640, 3900, 4160};
+
+  private final int[] widths;
+  private final double[][] prices;
+  private final double[] weights;
+  private final double[] power;
+  private final int[] fpgas;
+  private final boolean[] feasible;
+
+  ScanWidthSweep(int[] widths, double[][] prices, double[] weights, double[] power, int[] fpgas, boolean[] feasible)
+  {
+    this.widths = widths;
+    this.prices = prices;
+    this.weights = weights;
+    this.power = power;
+    this.fpgas = fpgas;
+    this.feasible = feasible;
+  }
+
+  public static int[] getScanWidths(String family)
+  {
+    switch(family)
+    {
+      case "VSCIS":
+        return WIDTHS_VS.clone();
+      case "VHCIS":
+        return WIDTHS_VH.clone();
+      case "VTCIS":
+        return WIDTHS_VT.clone();
+      case "VDCIS":
+        return WIDTHS_VD.clone();
+      case "MXCIS":
+      {
+        int[] widths = new int[15];
+        for(int x = 0; x < widths.length; x++)
+        {
+          widths[x] = 520 + x * CIS.BASE_LENGTH;
+        }
+        return widths;
+      }
+      case "LDSTD":
+        return WIDTHS_LD.clone();
+      default:
+        throw new CISException("Unknown CIS family: " + family);
+    }
+  }
+
+  // Spalte in Electronics.csv/Mechanics.csv, wie sw_index in den MaskControllern
+  public static int getSWIndex(String family, int sw)
+  {
+    switch(family)
+    {
+      case "VSCIS":
+        return sw / 130 - 2;
+      case "MXCIS":
+        return sw / CIS.BASE_LENGTH - 2;
+      case "LDSTD":
+      {
+        //Position in der Staffel, wie LDSTD.getSWIndex
+        for(int x = 0; x < WIDTHS_LD.length; x++)
+        {
+          if(WIDTHS_LD[x] == sw)
+          {
+            return x;
+          }
+        }
+        return -1;
+      }
+      default:
+        return sw / CIS.BASE_LENGTH - 1;
+    }
+  }
+
+  // mm
+  public int[] getWidths()
+  {
+    return widths.clone();
+  }
+
+  // EUR je Scanbreite für tier 0..3 (1, 5, 10, 25 Stk.) wie getTotalPrices(), NaN ohne Preis oder wenn das Interface die Zeilenfrequenz nicht schafft
+  public double[] getPrices(int tier)
+  {
+    return prices[tier].clone();
+  }
+
+  // kg, wie im Datenblatt
+  public double[] getWeights()
+  {
+    return weights.clone();
+  }
+
+  // A, wie "Needed power" im Datenblatt
+  public double[] getPower()
+  {
+    return power.clone();
+  }
+
+  public int[] getFPGAs()
+  {
+    return fpgas.clone();
+  }
+
+  // Interface (GigE, Camera Link, Flash) schafft die ausgewählte Zeilenfrequenz
+  public boolean[] getFeasible()
+  {
+    return feasible.clone();
+  }
+}
@@ -0,0 +1,158 @@
+package de.tichawa.cis.config;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+// sensChips.csv, sensBoards.csv, adcBoards.csv aus dem Jar. Wird beim ersten Zugriff einmal je JVM aufgebaut und von allen CIS geteilt.
+// Spalten ohne eigene Methode sind über get(column) erreichbar (Spalte 0 = erster Wert nach dem Namen).
+public final class SensorCatalogue
+{
+  private static volatile SensorCatalogue instance;
+
+  private final Map<String, Chip> chips;
+  private final Map<String, Board> boards;
+  private final Map<String, Adc> adcs;
+
+  private SensorCatalogue()
+  {
+    chips = convert(TableCache.getConfig("/de/tichawa/cis/config/sensChips.csv"), Chip::new);
+    boards = convert(TableCache.getConfig("/de/tichawa/cis/config/sensBoards.csv"), Board::new);
+    adcs = convert(TableCache.getConfig("/de/tichawa/cis/config/adcBoards.csv"), Adc::new);
+  }
+
+  public static SensorCatalogue get()
+  {
+    SensorCatalogue catalogue = instance;
+    if(catalogue == null)
+    {
+      synchronized(SensorCatalogue.class)
+      {
+        catalogue = instance;
+        if(catalogue == null)
+        {
+          catalogue = new SensorCatalogue();
+          instance = catalogue;
+        }
+      }
+    }
+    return catalogue;
+  }
+
+  private static <T> Map<String, T> convert(Map<String, Integer[]> table, Function<int[], T> record)
+  {
+    Map<String, T> records = new HashMap<>();
+    table.forEach((name, values) -> records.put(name, record.apply(Arrays.stream(values).mapToInt(Integer::intValue).toArray())));
+    return Collections.unmodifiableMap(records);
+  }
+
+  // null, wenn es den Namen nicht gibt
+  public Chip getChip(String name)
+  {
+    return chips.get(name);
+  }
+
+  public Board getBoard(String name)
+  {
+    return boards.get(name);
+  }
+
+  public Adc getAdc(String name)
+  {
+    return adcs.get(name);
+  }
+
+  private abstract static class Record
+  {
+    private final int[] values;
+
+    private Record(int[] values)
+    {
+      this.values = values;
+    }
+
+    public int get(int column)
+    {
+      return values[column];
+    }
+  }
+
+  // Sensorchip, z.B. SMARAGD600_VS
+  public static final class Chip extends Record
+  {
+    private Chip(int[] values)
+    {
+      super(values);
+    }
+
+    public int getResolution()
+    {
+      return get(1);
+    }
+
+    // Zusätzliche Takte je Zeile
+    public int getOverhead()
+    {
+      return get(2);
+    }
+
+    public int getPixels()
+    {
+      return get(3);
+    }
+
+    // Maximaler Pixeltakt (kHz)
+    public int getMaxClock()
+    {
+      return get(4);
+    }
+
+    public int getBinning()
+    {
+      return get(6);
+    }
+  }
+
+  // Sensorplatine, z.B. SMARAGD oder SENS_600
+  public static final class Board extends Record
+  {
+    private Board(int[] values)
+    {
+      super(values);
+    }
+
+    public int getChips()
+    {
+      return get(0);
+    }
+
+    // Gleichzeitig ausgelesene Zeilen (SMARDOUB: 2)
+    public int getLines()
+    {
+      return get(2);
+    }
+
+    // Pixel je Platine, die bei 1200 dpi über die Nennbreite hinausgehen
+    public int getExcessPixels()
+    {
+      return get(7);
+    }
+  }
+
+  // ADC-Platine, z.B. VADCFPGA
+  public static final class Adc extends Record
+  {
+    private Adc(int[] values)
+    {
+      super(values);
+    }
+
+    // Pixeltakt (kHz)
+    public int getClock()
+    {
+      return get(2);
+    }
+  }
+}
@@ -0,0 +1,152 @@
+package de.tichawa.cis.config;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Maximale Zeilenfrequenz, Pixelgröße, Fehlergröße und Geschwindigkeiten je Familie, Auflösung und Farbe, für Masken und Stapelläufe.
+// Die maximale Zeilenfrequenz hängt nur vom SensorCatalogue ab (über getMaxLineRate der Familie) und wird je Familie in einer kleinen
+// Tabelle (res_cp, res_cp2, Color) gemerkt. Die Binning von MXCIS folgt aus res_cp2 und ist damit mit abgedeckt.
+public final class SensorTiming
+{
+  // Pixelgröße (mm) je Eintrag "Resolution" der Maske
+  private static final double[] SMARAGD_PIXEL_SIZE = {0.02115, 0.02115, 0.0423, 0.0635, 0.0847, 0.125, 0.167, 0.25, 0.339, 0.5, 1.0};
+  private static final double[] VDCIS_PIXEL_SIZE = {0.0254, 0.0254, 0.0508, 0.1016, 0.2032, 0.254, 0.508, 1.016};
+  private static final double[] MXCIS_PIXEL_SIZE = {0.0423, 0.0635, 0.0847, 0.125, 0.167, 0.25, 0.339, 0.5, 1.0};
+
+  private static final Map<String, double[]> PIXEL_SIZES = new HashMap<>();
+  private static final Map<String, RateTable> MAX_LINE_RATES = new HashMap<>();
+
+  static
+  {
+    PIXEL_SIZES.put("VSCIS", SMARAGD_PIXEL_SIZE);
+    PIXEL_SIZES.put("VHCIS", SMARAGD_PIXEL_SIZE);
+    PIXEL_SIZES.put("VTCIS", SMARAGD_PIXEL_SIZE);
+    PIXEL_SIZES.put("VDCIS", VDCIS_PIXEL_SIZE);
+    PIXEL_SIZES.put("MXCIS", MXCIS_PIXEL_SIZE);
+    for(String family : PIXEL_SIZES.keySet())
+    {
+      MAX_LINE_RATES.put(family, new RateTable(family.equals("MXCIS")));
+    }
+  }
+
+  private final double maxLineRate;
+  private final double pixelSize;
+
+  private SensorTiming(double maxLineRate, double pixelSize)
+  {
+    this.maxLineRate = maxLineRate;
+    this.pixelSize = pixelSize;
+  }
+
+  // Für die aktuelle Spezifikation; ohne "Resolution" ist die Pixelgröße NaN
+  public static SensorTiming of(CIS cis)
+  {
+    String family = cis.getClass().getSimpleName();
+    RateTable rates = MAX_LINE_RATES.get(family);
+    double maxLineRate;
+    if(rates == null)
+    {
+      maxLineRate = cis.getMaxLineRate();
+    }
+    else
+    {
+      long key = ((long) cis.getSpec("res_cp") << 40) | ((long) cis.getSpec("res_cp2") << 16) | cis.getSpec("Color");
+      maxLineRate = rates.get(key, cis);
+    }
+
+    double[] pixelSizes = PIXEL_SIZES.get(family);
+    Integer resolution = cis.getSpec("Resolution");
+    double pixelSize = pixelSizes == null || resolution == null || resolution < 0 || resolution >= pixelSizes.length ? Double.NaN : pixelSizes[resolution];
+    return new SensorTiming(maxLineRate, pixelSize);
+  }
+
+  // kHz, wie CIS.getMaxLineRate()
+  public double getMaxLineRate()
+  {
+    return maxLineRate;
+  }
+
+  // Hz, wie "Maximum line rate"
+  public int getMaxLineRateHz()
+  {
+    return (int) Math.round(maxLineRate * 1000);
+  }
+
+  // mm
+  public double getPixelSize()
+  {
+    return pixelSize;
+  }
+
+  // Kleinste erkennbare Fehlergröße (mm), drei Pixel
+  public double getDefectSize()
+  {
+    return CIS.round(pixelSize * 3, 5);
+  }
+
+  public double getSpeedmms(int lineRate)
+  {
+    return CIS.round(pixelSize * lineRate, 3);
+  }
+
+  public double getSpeedms(int lineRate)
+  {
+    return CIS.round(pixelSize * lineRate / 1000, 3);
+  }
+
+  public double getSpeedmmin(int lineRate)
+  {
+    return CIS.round(pixelSize * lineRate * 0.06, 3);
+  }
+
+  public double getSpeedips(int lineRate)
+  {
+    return CIS.round(pixelSize * lineRate * 0.03937, 3);
+  }
+
+  // Schlüssel -> maximale Zeilenfrequenz, wenige Dutzend Einträge je Familie, daher lineare Suche.
+  // MXCIS setzt in getMaxLineRate die Binning, die wird mit gemerkt und bei einem Treffer ebenso gesetzt (0: keine).
+  private static final class RateTable
+  {
+    private long[] keys = new long[16];
+    private double[] rates = new double[16];
+    private int[] binnings = new int[16];
+    private int size;
+    private final boolean setsBinning;
+
+    private RateTable(boolean setsBinning)
+    {
+      this.setsBinning = setsBinning;
+    }
+
+    private synchronized double get(long key, CIS cis)
+    {
+      for(int i = 0; i < size; i++)
+      {
+        if(keys[i] == key)
+        {
+          if(binnings[i] > 0)
+          {
+            cis.setSpec("Binning", binnings[i]);
+          }
+          return rates[i];
+        }
+      }
+
+      double rate = cis.getMaxLineRate();
+      Integer binning = setsBinning ? cis.getSpec("Binning") : null;
+
+      if(size == keys.length)
+      {
+        keys = Arrays.copyOf(keys, size * 2);
+        rates = Arrays.copyOf(rates, size * 2);
+        binnings = Arrays.copyOf(binnings, size * 2);
+      }
+      keys[size] = key;
+      rates[size] = rate;
+      binnings[size++] = binning == null ? 0 : binning;
+      return rate;
+    }
+  }
+}
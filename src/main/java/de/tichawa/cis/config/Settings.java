@@ -0,0 +1,55 @@
+package de.tichawa.cis.config;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.Properties;
+
+// Einstellungen aus properties.xml und das Laden der Tabellen. Ohne JavaFX, damit die Stapelläufe (siehe Headless) auch ohne Anzeige laufen.
+public final class Settings
+{
+  public static final Properties PROP = new Properties();
+  public static Path tableHome;
+  public static Path ferixHome;
+
+  private Settings()
+  {
+  }
+
+  public static void loadProperties() throws IOException
+  {
+    PROP.loadFromXML(Settings.class.getResourceAsStream("properties.xml"));
+    tableHome = Paths.get(PROP.getProperty("tableHome"));
+    ferixHome = Paths.get(PROP.getProperty("ferixHome"));
+    loadTables();
+  }
+
+  public static void loadTables()
+  {
+    if(PROP.getProperty("tableSource", "csv").equals("database"))
+    {
+      String url = PROP.getProperty("database", DatabaseTableProvider.BUNDLED);
+      try
+      {
+        TableCache.setDatabase(new DatabaseTableProvider(url));
+        return;
+      }
+      catch(SQLException e)
+      {
+        System.err.println("Database " + url + " not available, using " + tableHome + ": " + e.getMessage());
+      }
+    }
+
+    Path snapshot = Paths.get(PROP.getProperty("snapshot", System.getProperty("user.home") + "/.tivicc/tables.snapshot"));
+    try
+    {
+      TableSnapshot.load(snapshot);
+    }
+    catch(IOException | CISException e)
+    {
+      //Ohne Abzug werden die Tabellen wie bisher beim ersten Zugriff eingelesen
+      System.err.println("Table snapshot " + snapshot + " not available: " + e.getMessage());
+    }
+  }
+}
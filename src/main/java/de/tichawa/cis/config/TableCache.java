@@ -0,0 +1,258 @@
+package de.tichawa.cis.config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Gemeinsamer Cache für die Tabellen aus tableHome. Eine Datei wird nur neu eingelesen, wenn sie sich geändert hat.
+// Ist eine Datenbank gesetzt, kommen Preise, Elektronik, Mechanik und Kalkulation stattdessen von dort.
+// Läuft ein TableWatcher, werden geänderte Dateien nur noch von ihm eingelesen und unter der Schreibsperre gemeinsam ausgetauscht.
+public final class TableCache
+{
+  private static final ConcurrentHashMap<Path, Entry> CACHE = new ConcurrentHashMap<>();
+  private static final ConcurrentHashMap<String, Map<String, Integer[]>> CONFIG = new ConcurrentHashMap<>();
+  private static final ReentrantReadWriteLock LOCK = new ReentrantReadWriteLock();
+  private static volatile DatabaseTableProvider database;
+  private static volatile boolean watched;
+
+  private TableCache()
+  {
+  }
+
+  public static PriceTable getPrices() throws IOException
+  {
+    DatabaseTableProvider provider = database;
+    if(provider != null)
+    {
+      return provider.getPrices();
+    }
+    return get(Settings.tableHome.resolve("Prices.csv"), PriceTable::new);
+  }
+
+  public static ElectronicsTable getElectronics(String cisName) throws IOException
+  {
+    DatabaseTableProvider provider = database;
+    if(provider != null)
+    {
+      return provider.getElectronics(cisName);
+    }
+    return get(Settings.tableHome.resolve(cisName + "/Electronics.csv"), ElectronicsTable::new);
+  }
+
+  public static MechanicsTable getMechanics(String cisName) throws IOException
+  {
+    DatabaseTableProvider provider = database;
+    if(provider != null)
+    {
+      return provider.getMechanics(cisName);
+    }
+    return get(Settings.tableHome.resolve(cisName + "/Mechanics.csv"), MechanicsTable::new);
+  }
+
+  public static CalculationTable getCalculation(String cisName) throws IOException
+  {
+    DatabaseTableProvider provider = database;
+    if(provider != null)
+    {
+      return provider.getCalculation(cisName);
+    }
+    return get(Settings.tableHome.resolve(cisName + "/Calculation.csv"), CalculationTable::new);
+  }
+
+  // sensChips.csv, sensBoards.csv, adcBoards.csv aus dem Jar, ändern sich zur Laufzeit nicht
+  public static Map<String, Integer[]> getConfig(String resource)
+  {
+    return CONFIG.computeIfAbsent(resource, CIS::readConfigTable);
+  }
+
+  public static void clear()
+  {
+    CACHE.clear();
+    CONFIG.clear();
+    DatabaseTableProvider provider = database;
+    if(provider != null)
+    {
+      provider.clear();
+    }
+  }
+
+  static boolean hasDatabase()
+  {
+    return database != null;
+  }
+
+  // null schaltet zurück auf die Dateien in tableHome
+  static void setDatabase(DatabaseTableProvider provider)
+  {
+    database = provider;
+  }
+
+  // Eine Kalkulation hält die Lesesperre, damit alle Tabellen aus demselben Stand kommen
+  static Lock readLock()
+  {
+    return LOCK.readLock();
+  }
+
+  // Vom TableWatcher: der Cache prüft die Dateien dann nicht mehr selbst
+  static void setWatched(boolean watched)
+  {
+    TableCache.watched = watched;
+  }
+
+  static Set<Path> getPaths()
+  {
+    return new HashSet<>(CACHE.keySet());
+  }
+
+  static boolean isCurrent(Path path, long lastModified, long size)
+  {
+    Entry entry = CACHE.get(path);
+    return entry == null || entry.matches(lastModified, size);
+  }
+
+  // Liest alle Dateien neu ein und tauscht sie erst danach gemeinsam aus. Ändert sich eine Datei während des Lesens,
+  // wird nichts ausgetauscht (IOException), der Aufrufer versucht es später noch einmal.
+  static void reload(Collection<Path> paths) throws IOException
+  {
+    Map<Path, Entry> entries = new HashMap<>();
+    for(Path path : paths)
+    {
+      BasicFileAttributes before = Files.readAttributes(path, BasicFileAttributes.class);
+      Object table = getParser(path).parse(path);
+      BasicFileAttributes after = Files.readAttributes(path, BasicFileAttributes.class);
+      if(!before.lastModifiedTime().equals(after.lastModifiedTime()) || before.size() != after.size())
+      {
+        throw new IOException(path + " changed while reading");
+      }
+      entries.put(path, new Entry(after.lastModifiedTime().toMillis(), after.size(), table));
+    }
+
+    Lock lock = LOCK.writeLock();
+    lock.lock();
+    try
+    {
+      CACHE.putAll(entries);
+    }
+    finally
+    {
+      lock.unlock();
+    }
+  }
+
+  private static Parser<?> getParser(Path path) throws IOException
+  {
+    switch(path.getFileName().toString())
+    {
+      case "Prices.csv":
+        return PriceTable::new;
+      case "Electronics.csv":
+        return ElectronicsTable::new;
+      case "Mechanics.csv":
+        return MechanicsTable::new;
+      case "Calculation.csv":
+        return CalculationTable::new;
+      default:
+        throw new IOException("Unknown table " + path);
+    }
+  }
+
+  // Vom TableSnapshot, Zeitstempel und Größe wurden vor dem Prüfen der Quelldatei gelesen
+  static void put(Path path, long lastModified, long size, Object table)
+  {
+    CACHE.put(path, new Entry(lastModified, size, table));
+  }
+
+  static void putConfig(String resource, Map<String, Integer[]> table)
+  {
+    CONFIG.put(resource, table);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T get(Path path, Parser<T> parser) throws IOException
+  {
+    if(watched)
+    {
+      Entry entry = CACHE.get(path);
+      if(entry != null)
+      {
+        return (T) entry.table;
+      }
+    }
+
+    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+    long lastModified = attributes.lastModifiedTime().toMillis();
+    long size = attributes.size();
+
+    Entry entry = CACHE.get(path);
+    if(entry == null || !entry.matches(lastModified, size))
+    {
+      try
+      {
+        entry = CACHE.compute(path, (p, old) ->
+        {
+          if(old != null && old.matches(lastModified, size))
+          {
+            return old;
+          }
+
+          try
+          {
+            return new Entry(lastModified, size, parser.parse(p));
+          }
+          catch(IOException ex)
+          {
+            throw new TableException(ex);
+          }
+        });
+      }
+      catch(TableException ex)
+      {
+        throw (IOException) ex.getCause();
+      }
+    }
+
+    return (T) entry.table;
+  }
+
+  @FunctionalInterface
+  private interface Parser<T>
+  {
+    T parse(Path path) throws IOException;
+  }
+
+  private static class Entry
+  {
+    private final long lastModified;
+    private final long size;
+    private final Object table;
+
+    private Entry(long lastModified, long size, Object table)
+    {
+      this.lastModified = lastModified;
+      this.size = size;
+      this.table = table;
+    }
+
+    private boolean matches(long lastModified, long size)
+    {
+      return this.lastModified == lastModified && this.size == size;
+    }
+  }
+
+  private static class TableException extends RuntimeException
+  {
+    private TableException(IOException cause)
+    {
+      super(cause);
+    }
+  }
+}
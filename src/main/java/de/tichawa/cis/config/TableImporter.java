@@ -0,0 +1,516 @@
+package de.tichawa.cis.config;
+
+import de.tichawa.cis.config.model.tables.records.ComponentsRecord;
+import de.tichawa.cis.config.model.tables.records.ConstantsRecord;
+import de.tichawa.cis.config.model.tables.records.ElectronicsRecord;
+import de.tichawa.cis.config.model.tables.records.MechanicsRecord;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Query;
+import org.jooq.Record;
+import org.jooq.SQLDialect;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+
+import static de.tichawa.cis.config.model.Tables.*;
+
+// Überträgt Prices.csv und je CIS Electronics/Mechanics/Calculation.csv aus tableHome in eine configurator.sqlite.
+// Dateien, deren Prüfsumme sich seit dem letzten Import nicht geändert hat (Tabelle Imports), werden übersprungen.
+// Die übrigen werden zeilenweise mit dem Datenbankstand verglichen, geschrieben werden nur neue, geänderte und entfallene
+// Zeilen, alles in einer Transaktion. Jeder Import mit Änderungen bekommt eine neue Versionsnummer.
+// Aufruf: Headless --import [jdbc:sqlite:configurator.sqlite]
+public class TableImporter
+{
+  private static final Table<Record> IMPORTS = DSL.table(DSL.name("Imports"));
+  private static final Field<String> SOURCE = DSL.field(DSL.name("source"), SQLDataType.VARCHAR.nullable(false));
+  private static final Field<String> HASH = DSL.field(DSL.name("hash"), SQLDataType.VARCHAR.nullable(false));
+  private static final Field<Integer> VERSION = DSL.field(DSL.name("version"), SQLDataType.INTEGER.nullable(false));
+  private static final Field<Long> IMPORTED = DSL.field(DSL.name("imported"), SQLDataType.BIGINT.nullable(false));
+
+  private static final String[] CIS_TABLES = {"Electronics.csv", "Mechanics.csv", "Calculation.csv"};
+
+  private final DSLContext db;
+  private int inserted;
+  private int updated;
+  private int deleted;
+
+  public TableImporter(Connection connection)
+  {
+    db = DSL.using(connection, SQLDialect.SQLITE);
+    db.createTableIfNotExists(IMPORTS)
+            .column(SOURCE)
+            .column(HASH)
+            .column(VERSION)
+            .column(IMPORTED)
+            .constraints(DSL.constraint("pk_imports").primaryKey(SOURCE))
+            .execute();
+  }
+
+  public static void main(String[] args) throws IOException
+  {
+    Settings.loadProperties();
+    String url = args.length > 0 ? args[0] : Settings.PROP.getProperty("database");
+    if(url == null || url.equals(DatabaseTableProvider.BUNDLED))
+    {
+      System.err.println("Usage: --import <jdbc:sqlite:file> (or set the database property to a writable file)");
+      return;
+    }
+
+    try(Connection connection = DriverManager.getConnection(url))
+    {
+      TableImporter importer = new TableImporter(connection);
+      int sources = importer.run(Settings.tableHome);
+      System.out.println(sources + " changed tables imported (" + importer.inserted + " inserted, " + importer.updated + " updated, "
+              + importer.deleted + " deleted), version " + importer.getVersion());
+    }
+    catch(SQLException ex)
+    {
+      throw new IOException("Database " + url + " not available", ex);
+    }
+  }
+
+  // Anzahl der eingelesenen Dateien, 0 wenn sich nichts geändert hat
+  public int run(Path tableHome) throws IOException
+  {
+    Map<String, String> imported = db.select(SOURCE, HASH)
+            .from(IMPORTS)
+            .fetchMap(SOURCE, HASH);
+
+    Map<String, Path> sources = getSources(tableHome);
+    Map<String, String> hashes = new LinkedHashMap<>();
+    for(Map.Entry<String, Path> source : sources.entrySet())
+    {
+      String hash = hash(Files.readAllBytes(source.getValue()));
+      if(!hash.equals(imported.get(source.getKey())))
+      {
+        hashes.put(source.getKey(), hash);
+      }
+    }
+    if(hashes.isEmpty())
+    {
+      return 0;
+    }
+
+    //Erst alle Dateien lesen, damit die Transaktion nur aus Datenbankzugriffen besteht
+    Map<String, Map<List<Object>, List<Object>>> tables = new LinkedHashMap<>();
+    for(String name : hashes.keySet())
+    {
+      tables.put(name, read(name, sources.get(name)));
+    }
+
+    int version = getVersion() + 1;
+    long now = System.currentTimeMillis();
+    db.transaction(configuration ->
+    {
+      DSLContext tx = DSL.using(configuration);
+      List<Query> queries = new ArrayList<>();
+      tables.forEach((name, table) -> queries.addAll(diff(tx, name, table)));
+      hashes.forEach((name, hash) ->
+      {
+        queries.add(tx.deleteFrom(IMPORTS).where(SOURCE.eq(name)));
+        queries.add(tx.insertInto(IMPORTS, SOURCE, HASH, VERSION, IMPORTED).values(name, hash, version, now));
+      });
+      tx.batch(queries).execute();
+    });
+    return hashes.size();
+  }
+
+  // Version des letzten Imports, 0 wenn noch nie importiert wurde
+  public int getVersion()
+  {
+    Integer version = db.select(DSL.max(VERSION)).from(IMPORTS).fetchOne(0, Integer.class);
+    return version == null ? 0 : version;
+  }
+
+  private static Map<String, Path> getSources(Path tableHome) throws IOException
+  {
+    Map<String, Path> sources = new LinkedHashMap<>();
+    if(Files.isRegularFile(tableHome.resolve("Prices.csv")))
+    {
+      sources.put("Prices.csv", tableHome.resolve("Prices.csv"));
+    }
+
+    List<Path> directories;
+    try(Stream<Path> list = Files.list(tableHome))
+    {
+      directories = list.filter(Files::isDirectory).sorted().collect(Collectors.toList());
+    }
+    for(Path directory : directories)
+    {
+      for(String table : CIS_TABLES)
+      {
+        if(Files.isRegularFile(directory.resolve(table)))
+        {
+          sources.put(directory.getFileName() + "/" + table, directory.resolve(table));
+        }
+      }
+    }
+    return sources;
+  }
+
+  private static String hash(byte[] content)
+  {
+    try
+    {
+      return String.format("%064x", new BigInteger(1, MessageDigest.getInstance("SHA-256").digest(content)));
+    }
+    catch(NoSuchAlgorithmException e)
+    {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  // Zeilen der Zieltabelle als Primärschlüssel -> übrige Spalten
+  private static Map<List<Object>, List<Object>> read(String name, Path path) throws IOException
+  {
+    if(name.equals("Prices.csv"))
+    {
+      return readPrices(path);
+    }
+
+    String cisName = name.substring(0, name.indexOf('/')).toUpperCase();
+    if(name.endsWith("/Electronics.csv"))
+    {
+      return readElectronics(cisName, path);
+    }
+    else if(name.endsWith("/Mechanics.csv"))
+    {
+      return readMechanics(cisName, path);
+    }
+    return readCalculation(path);
+  }
+
+  private static Map<List<Object>, List<Object>> readPrices(Path path) throws IOException
+  {
+    PriceTable prices = new PriceTable(path);
+    Map<List<Object>, List<Object>> rows = new LinkedHashMap<>();
+    for(int row = 0; row < prices.size(); row++)
+    {
+      int itemNo = prices.getItemNo(row);
+      rows.put(Collections.singletonList(itemNo), Arrays.asList(prices.getKey(itemNo),
+              prices.get(row, PriceTable.PRICE), prices.get(row, PriceTable.TIME),
+              prices.get(row, PriceTable.POWER), prices.get(row, PriceTable.WEIGHT)));
+    }
+    return rows;
+  }
+
+  // Die Datenbank kennt keinen Faktor: Zahlen und L werden in die Menge, Vergleiche wie L==1 in die Bedingung übernommen.
+  // Andere Faktoren liefern in CIS.getElectFactor() -1, solche Zeilen werden nie gezählt und entfallen.
+  private static Map<List<Object>, List<Object>> readElectronics(String cisName, Path path) throws IOException
+  {
+    Map<List<Object>, List<Object>> rows = new LinkedHashMap<>();
+    for(String[] line : readLines(path, 1))
+    {
+      if(line.length < 2 || !CIS.isInteger(line[1]))
+      {
+        continue;
+      }
+
+      String condition = line.length > 2 ? line[2] : "";
+      String factor = line.length > 3 ? line[3] : "";
+      String multiplier = null;
+      if(CIS.isInteger(factor))
+      {
+        multiplier = Integer.parseInt(factor) > 0 ? factor : null;
+      }
+      else if(factor.equals("L"))
+      {
+        multiplier = factor;
+      }
+      else if(factor.matches("L(==|<|>)\\d+"))
+      {
+        multiplier = "1";
+        condition = condition.isEmpty() ? factor : condition + "&" + factor;
+      }
+      if(multiplier == null)
+      {
+        continue;
+      }
+
+      for(int swIndex = 0; swIndex + 4 < line.length; swIndex++)
+      {
+        String amount = line[4 + swIndex];
+        int length = DatabaseTableProvider.getLength(cisName, swIndex);
+        if(length < 0 || amount.trim().isEmpty() || amount.trim().equals("0"))
+        {
+          continue;
+        }
+
+        add(rows, Arrays.asList(DatabaseTableProvider.getFamily(cisName), length, Integer.parseInt(line[1]), condition),
+                multiplier.equals("1") ? amount : multiplier + "*(" + amount + ")");
+      }
+    }
+    return rows;
+  }
+
+  // Eine Zeile je Scanbreite mit Artikel und je Beleuchtung mit Menge, beim LDSTD steht die Menge in der Spalte der Scanbreite
+  private static Map<List<Object>, List<Object>> readMechanics(String cisName, Path path) throws IOException
+  {
+    Iterator<String[]> lines = readLines(path, 0).iterator();
+    int nlCount = lines.hasNext() ? (int) Arrays.stream(lines.next())
+            .filter(field -> field.startsWith("NL"))
+            .count() : 0;
+    int[][] lights = cisName.equals("LDSTD") ? new int[][]{{1, 0}} : DatabaseTableProvider.getLights(cisName);
+
+    Map<List<Object>, List<Object>> rows = new LinkedHashMap<>();
+    while(lines.hasNext())
+    {
+      String[] line = lines.next();
+      String condition = line.length > 2 ? line[2] : "";
+      for(int swIndex = 0; swIndex < nlCount && 3 + swIndex < line.length; swIndex++)
+      {
+        String item = line[3 + swIndex].replace("X", "");
+        int length = DatabaseTableProvider.getLength(cisName, swIndex);
+        if(!CIS.isInteger(item) || length < 0)
+        {
+          continue;
+        }
+
+        for(int x = 0; x < lights.length; x++)
+        {
+          int column = 3 + nlCount + (cisName.equals("LDSTD") ? swIndex : x);
+          String amount = column < line.length ? line[column] : "";
+          if(amount.trim().isEmpty() || amount.trim().equals("0"))
+          {
+            continue;
+          }
+
+          add(rows, Arrays.asList(DatabaseTableProvider.getFamily(cisName), length, Integer.parseInt(item), lights[x][0], lights[x][1], condition), amount);
+        }
+      }
+    }
+    return rows;
+  }
+
+  // Wie CalculationTable: VERSION gilt beim ersten, alle anderen Werte beim letzten Vorkommen
+  private static Map<List<Object>, List<Object>> readCalculation(Path path) throws IOException
+  {
+    Map<List<Object>, List<Object>> rows = new LinkedHashMap<>();
+    for(String[] line : readLines(path, 0))
+    {
+      if(line.length > 1 && !(line[0].equals("VERSION") && rows.containsKey(Collections.singletonList(line[0]))))
+      {
+        rows.put(Collections.singletonList(line[0]), Collections.singletonList(line[1]));
+      }
+    }
+    return rows;
+  }
+
+  private static List<String[]> readLines(Path path, int skip) throws IOException
+  {
+    try(Stream<String> lines = Files.lines(path))
+    {
+      return lines.skip(skip)
+              .map(line -> line.split("\t"))
+              .filter(line -> line[0].length() > 0)
+              .collect(Collectors.toList());
+    }
+  }
+
+  // Mehrere Zeilen mit gleichem Schlüssel werden addiert
+  private static void add(Map<List<Object>, List<Object>> rows, List<Object> key, String amount)
+  {
+    rows.merge(key, Collections.singletonList(amount), (a, b) -> Collections.singletonList("(" + a.get(0) + ")+(" + b.get(0) + ")"));
+  }
+
+  private List<Query> diff(DSLContext tx, String name, Map<List<Object>, List<Object>> rows)
+  {
+    if(name.equals("Prices.csv"))
+    {
+      return diffPrices(tx, rows);
+    }
+
+    String cis = DatabaseTableProvider.getFamily(name.substring(0, name.indexOf('/')).toUpperCase());
+    if(name.endsWith("/Electronics.csv"))
+    {
+      return diffElectronics(tx, cis, rows);
+    }
+    else if(name.endsWith("/Mechanics.csv"))
+    {
+      return diffMechanics(tx, cis, rows);
+    }
+    return diffConstants(tx, cis, rows);
+  }
+
+  private List<Query> diffPrices(DSLContext tx, Map<List<Object>, List<Object>> rows)
+  {
+    Map<List<Object>, List<Object>> current = new HashMap<>();
+    for(ComponentsRecord record : tx.selectFrom(COMPONENTS).fetch())
+    {
+      current.put(Collections.singletonList(record.get(COMPONENTS.ID)), Arrays.asList(record.get(COMPONENTS.FERIX_KEY),
+              getDouble(record.get(COMPONENTS.PRICE)), getDouble(record.get(COMPONENTS.TIME)),
+              getDouble(record.get(COMPONENTS.POWER)), getDouble(record.get(COMPONENTS.WEIGHT))));
+    }
+
+    List<Query> queries = new ArrayList<>();
+    compare(current, rows, (key, values) -> queries.add(tx.insertInto(COMPONENTS,
+            COMPONENTS.ID, COMPONENTS.FERIX_KEY, COMPONENTS.PRICE, COMPONENTS.TIME, COMPONENTS.POWER, COMPONENTS.WEIGHT)
+            .values((Integer) key.get(0), (String) values.get(0), getDecimal(values.get(1)), getDecimal(values.get(2)),
+                    getDecimal(values.get(3)), getDecimal(values.get(4)))),
+            (key, values) -> queries.add(tx.update(COMPONENTS)
+                    .set(COMPONENTS.FERIX_KEY, (String) values.get(0))
+                    .set(COMPONENTS.PRICE, getDecimal(values.get(1)))
+                    .set(COMPONENTS.TIME, getDecimal(values.get(2)))
+                    .set(COMPONENTS.POWER, getDecimal(values.get(3)))
+                    .set(COMPONENTS.WEIGHT, getDecimal(values.get(4)))
+                    .where(COMPONENTS.ID.eq((Integer) key.get(0)))),
+            key -> queries.add(tx.deleteFrom(COMPONENTS).where(COMPONENTS.ID.eq((Integer) key.get(0)))));
+    return queries;
+  }
+
+  private List<Query> diffElectronics(DSLContext tx, String cis, Map<List<Object>, List<Object>> rows)
+  {
+    Map<List<Object>, List<Object>> current = new HashMap<>();
+    for(ElectronicsRecord record : tx.selectFrom(ELECTRONICS).where(ELECTRONICS.CIS.eq(cis)).fetch())
+    {
+      current.put(Arrays.asList(cis, record.get(ELECTRONICS.CIS_LENGTH), record.get(ELECTRONICS.COMPONENT_ID),
+              Objects.toString(record.get(ELECTRONICS.CONDITION), "")), Collections.singletonList(record.get(ELECTRONICS.AMOUNT)));
+    }
+
+    List<Query> queries = new ArrayList<>();
+    compare(current, rows, (key, values) -> queries.add(tx.insertInto(ELECTRONICS,
+            ELECTRONICS.CIS, ELECTRONICS.CIS_LENGTH, ELECTRONICS.COMPONENT_ID, ELECTRONICS.CONDITION, ELECTRONICS.AMOUNT)
+            .values(cis, (Integer) key.get(1), (Integer) key.get(2), getCondition(key.get(3)), (String) values.get(0))),
+            (key, values) -> queries.add(tx.update(ELECTRONICS)
+                    .set(ELECTRONICS.AMOUNT, (String) values.get(0))
+                    .where(ELECTRONICS.CIS.eq(cis))
+                    .and(ELECTRONICS.CIS_LENGTH.eq((Integer) key.get(1)))
+                    .and(ELECTRONICS.COMPONENT_ID.eq((Integer) key.get(2)))
+                    .and(ELECTRONICS.CONDITION.isNotDistinctFrom(getCondition(key.get(3))))),
+            key -> queries.add(tx.deleteFrom(ELECTRONICS)
+                    .where(ELECTRONICS.CIS.eq(cis))
+                    .and(ELECTRONICS.CIS_LENGTH.eq((Integer) key.get(1)))
+                    .and(ELECTRONICS.COMPONENT_ID.eq((Integer) key.get(2)))
+                    .and(ELECTRONICS.CONDITION.isNotDistinctFrom(getCondition(key.get(3))))));
+    return queries;
+  }
+
+  private List<Query> diffMechanics(DSLContext tx, String cis, Map<List<Object>, List<Object>> rows)
+  {
+    Map<List<Object>, List<Object>> current = new HashMap<>();
+    for(MechanicsRecord record : tx.selectFrom(MECHANICS).where(MECHANICS.CIS.eq(cis)).fetch())
+    {
+      current.put(Arrays.asList(cis, record.get(MECHANICS.CIS_LENGTH), record.get(MECHANICS.COMPONENT_ID),
+              record.get(MECHANICS.DIFFUSE_LIGHTS), record.get(MECHANICS.COAX_LIGHTS), Objects.toString(record.get(MECHANICS.CONDITION), "")),
+              Collections.singletonList(record.get(MECHANICS.AMOUNT)));
+    }
+
+    List<Query> queries = new ArrayList<>();
+    compare(current, rows, (key, values) -> queries.add(tx.insertInto(MECHANICS,
+            MECHANICS.CIS, MECHANICS.CIS_LENGTH, MECHANICS.COMPONENT_ID, MECHANICS.DIFFUSE_LIGHTS, MECHANICS.COAX_LIGHTS, MECHANICS.CONDITION, MECHANICS.AMOUNT)
+            .values(cis, (Integer) key.get(1), (Integer) key.get(2), (Integer) key.get(3), (Integer) key.get(4), getCondition(key.get(5)), (String) values.get(0))),
+            (key, values) -> queries.add(tx.update(MECHANICS)
+                    .set(MECHANICS.AMOUNT, (String) values.get(0))
+                    .where(MECHANICS.CIS.eq(cis))
+                    .and(MECHANICS.CIS_LENGTH.eq((Integer) key.get(1)))
+                    .and(MECHANICS.COMPONENT_ID.eq((Integer) key.get(2)))
+                    .and(MECHANICS.DIFFUSE_LIGHTS.eq((Integer) key.get(3)))
+                    .and(MECHANICS.COAX_LIGHTS.eq((Integer) key.get(4)))
+                    .and(MECHANICS.CONDITION.isNotDistinctFrom(getCondition(key.get(5))))),
+            key -> queries.add(tx.deleteFrom(MECHANICS)
+                    .where(MECHANICS.CIS.eq(cis))
+                    .and(MECHANICS.CIS_LENGTH.eq((Integer) key.get(1)))
+                    .and(MECHANICS.COMPONENT_ID.eq((Integer) key.get(2)))
+                    .and(MECHANICS.DIFFUSE_LIGHTS.eq((Integer) key.get(3)))
+                    .and(MECHANICS.COAX_LIGHTS.eq((Integer) key.get(4)))
+                    .and(MECHANICS.CONDITION.isNotDistinctFrom(getCondition(key.get(5))))));
+    return queries;
+  }
+
+  private List<Query> diffConstants(DSLContext tx, String cis, Map<List<Object>, List<Object>> rows)
+  {
+    Map<List<Object>, List<Object>> current = new HashMap<>();
+    for(ConstantsRecord record : tx.selectFrom(CONSTANTS).where(CONSTANTS.CIS.eq(cis)).fetch())
+    {
+      current.put(Collections.singletonList(record.get(CONSTANTS.KEY)), Collections.singletonList(record.get(CONSTANTS.VALUE)));
+    }
+
+    List<Query> queries = new ArrayList<>();
+    compare(current, rows, (key, values) -> queries.add(tx.insertInto(CONSTANTS, CONSTANTS.CIS, CONSTANTS.KEY, CONSTANTS.VALUE)
+            .values(cis, (String) key.get(0), (String) values.get(0))),
+            (key, values) -> queries.add(tx.update(CONSTANTS)
+                    .set(CONSTANTS.VALUE, (String) values.get(0))
+                    .where(CONSTANTS.CIS.eq(cis))
+                    .and(CONSTANTS.KEY.eq((String) key.get(0)))),
+            key -> queries.add(tx.deleteFrom(CONSTANTS)
+                    .where(CONSTANTS.CIS.eq(cis))
+                    .and(CONSTANTS.KEY.eq((String) key.get(0)))));
+    return queries;
+  }
+
+  // Vergleich über Schlüssel und Hash/Inhalt der übrigen Spalten
+  private void compare(Map<List<Object>, List<Object>> current, Map<List<Object>, List<Object>> rows,
+          Change insert, Change update, Removal delete)
+  {
+    rows.forEach((key, values) ->
+    {
+      List<Object> old = current.get(key);
+      if(old == null)
+      {
+        insert.apply(key, values);
+        inserted++;
+      }
+      else if(old.hashCode() != values.hashCode() || !old.equals(values))
+      {
+        update.apply(key, values);
+        updated++;
+      }
+    });
+    current.keySet().stream()
+            .filter(key -> !rows.containsKey(key))
+            .forEach(key ->
+            {
+              delete.apply(key);
+              deleted++;
+            });
+  }
+
+  private static String getCondition(Object condition)
+  {
+    return condition.equals("") ? null : (String) condition;
+  }
+
+  private static double getDouble(BigDecimal value)
+  {
+    return value == null ? 0.0 : value.doubleValue();
+  }
+
+  private static BigDecimal getDecimal(Object value)
+  {
+    return BigDecimal.valueOf((Double) value);
+  }
+
+  @FunctionalInterface
+  private interface Change
+  {
+    void apply(List<Object> key, List<Object> values);
+  }
+
+  @FunctionalInterface
+  private interface Removal
+  {
+    void apply(List<Object> key);
+  }
+}
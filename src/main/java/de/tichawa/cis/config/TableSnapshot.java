@@ -0,0 +1,359 @@
+package de.tichawa.cis.config;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Binärer Abzug aller eingelesenen Tabellen: Prices.csv, je CIS Electronics/Mechanics/Calculation.csv (Formeln und Bedingungen
+// bereits übersetzt) und die Konfigurationstabellen aus dem Jar. Der Launcher blendet die Datei beim Start ein und füllt damit den TableCache.
+// Im Kopf steht die SHA-256-Prüfsumme jeder Quelldatei, weicht eine ab, wird alles neu eingelesen und der Abzug neu geschrieben.
+public final class TableSnapshot
+{
+  private static final int MAGIC = 0x54565342;
+  //Bei Änderungen am Format oder an den Merkmalsbits in Condition erhöhen
+  private static final int VERSION = 2;
+
+  private static final String[] CONFIG_TABLES = {"/de/tichawa/cis/config/sensChips.csv", "/de/tichawa/cis/config/sensBoards.csv", "/de/tichawa/cis/config/adcBoards.csv"};
+  private static final String[] CIS_TABLES = {"Electronics.csv", "Mechanics.csv", "Calculation.csv"};
+
+  private TableSnapshot()
+  {
+  }
+
+  // true, wenn der vorhandene Abzug gepasst hat
+  public static boolean load(Path snapshot) throws IOException
+  {
+    List<Source> sources = getSources();
+    if(Files.isRegularFile(snapshot) && read(snapshot, sources))
+    {
+      return true;
+    }
+
+    write(snapshot, sources);
+    return false;
+  }
+
+  private static List<Source> getSources() throws IOException
+  {
+    List<Source> sources = new ArrayList<>();
+    Path prices = Settings.tableHome.resolve("Prices.csv");
+    if(Files.isRegularFile(prices))
+    {
+      sources.add(new Source("Prices.csv", prices));
+    }
+
+    List<Path> directories;
+    try(Stream<Path> list = Files.list(Settings.tableHome))
+    {
+      directories = list.filter(Files::isDirectory).sorted().collect(Collectors.toList());
+    }
+    for(Path directory : directories)
+    {
+      for(String table : CIS_TABLES)
+      {
+        String name = directory.getFileName() + "/" + table;
+        Path path = Settings.tableHome.resolve(name);
+        if(Files.isRegularFile(path))
+        {
+          sources.add(new Source(name, path));
+        }
+      }
+    }
+
+    for(String resource : CONFIG_TABLES)
+    {
+      sources.add(new Source(resource));
+    }
+    return sources;
+  }
+
+  private static boolean read(Path snapshot, List<Source> sources) throws IOException
+  {
+    try(FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ))
+    {
+      MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if(in.getInt() != MAGIC || in.getInt() != VERSION || in.getInt() != sources.size())
+      {
+        return false;
+      }
+
+      byte[] hash = new byte[32];
+      for(Source source : sources)
+      {
+        in.get(hash);
+        if(!source.name.equals(readString(in)) || !Arrays.equals(hash, source.hash))
+        {
+          return false;
+        }
+      }
+
+      List<Object> tables = new ArrayList<>();
+      for(Source source : sources)
+      {
+        tables.add(source.read(in));
+      }
+      for(int i = 0; i < sources.size(); i++)
+      {
+        sources.get(i).put(tables.get(i));
+      }
+      return true;
+    }
+    catch(BufferUnderflowException | IllegalArgumentException | IllegalStateException | IndexOutOfBoundsException | NegativeArraySizeException e)
+    {
+      //Abgeschnittene oder fremde Datei
+      return false;
+    }
+  }
+
+  private static void write(Path snapshot, List<Source> sources) throws IOException
+  {
+    List<Object> tables = new ArrayList<>();
+    for(Source source : sources)
+    {
+      Object table = source.parse();
+      source.put(table);
+      tables.add(table);
+    }
+
+    if(snapshot.getParent() != null)
+    {
+      Files.createDirectories(snapshot.getParent());
+    }
+    Path temp = Files.createTempFile(snapshot.toAbsolutePath().getParent(), "tables", ".tmp");
+    try
+    {
+      try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp))))
+      {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(sources.size());
+        for(Source source : sources)
+        {
+          out.write(source.hash);
+          writeString(out, source.name);
+        }
+        for(int i = 0; i < sources.size(); i++)
+        {
+          sources.get(i).write(out, tables.get(i));
+        }
+      }
+      Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    finally
+    {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  static void writeString(DataOutput out, String value) throws IOException
+  {
+    if(value == null)
+    {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  static String readString(ByteBuffer in)
+  {
+    int length = in.getInt();
+    if(length < 0)
+    {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void writeConfig(DataOutput out, Map<String, Integer[]> table) throws IOException
+  {
+    out.writeInt(table.size());
+    for(Map.Entry<String, Integer[]> entry : table.entrySet())
+    {
+      writeString(out, entry.getKey());
+      out.writeInt(entry.getValue().length);
+      for(Integer value : entry.getValue())
+      {
+        out.writeInt(value);
+      }
+    }
+  }
+
+  private static Map<String, Integer[]> readConfig(ByteBuffer in)
+  {
+    int size = in.getInt();
+    HashMap<String, Integer[]> table = new HashMap<>();
+    for(int i = 0; i < size; i++)
+    {
+      String key = readString(in);
+      Integer[] values = new Integer[in.getInt()];
+      for(int x = 0; x < values.length; x++)
+      {
+        values[x] = in.getInt();
+      }
+      table.put(key, values);
+    }
+    return Collections.unmodifiableMap(table);
+  }
+
+  // Quelldatei mit Prüfsumme, Zeitstempel und Größe werden vorher gelesen (siehe TableCache.put)
+  private static class Source
+  {
+    private final String name;
+    private final Path path;
+    private final long lastModified;
+    private final long size;
+    private final byte[] hash;
+
+    private Source(String name, Path path) throws IOException
+    {
+      BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+      this.name = name;
+      this.path = path;
+      this.lastModified = attributes.lastModifiedTime().toMillis();
+      this.size = attributes.size();
+      this.hash = hash(Files.readAllBytes(path));
+    }
+
+    private Source(String resource) throws IOException
+    {
+      this.name = resource;
+      this.path = null;
+      this.lastModified = 0;
+      this.size = 0;
+      try(InputStream in = TableSnapshot.class.getResourceAsStream(resource))
+      {
+        if(in == null)
+        {
+          throw new IOException("Missing resource " + resource);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for(int read = in.read(buffer); read > 0; read = in.read(buffer))
+        {
+          bytes.write(buffer, 0, read);
+        }
+        this.hash = hash(bytes.toByteArray());
+      }
+    }
+
+    private static byte[] hash(byte[] content)
+    {
+      try
+      {
+        return MessageDigest.getInstance("SHA-256").digest(content);
+      }
+      catch(NoSuchAlgorithmException e)
+      {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    private Object parse() throws IOException
+    {
+      if(path == null)
+      {
+        return CIS.readConfigTable(name);
+      }
+      else if(name.equals("Prices.csv"))
+      {
+        return new PriceTable(path);
+      }
+      else if(name.endsWith("/Electronics.csv"))
+      {
+        return new ElectronicsTable(path);
+      }
+      else if(name.endsWith("/Mechanics.csv"))
+      {
+        return new MechanicsTable(path);
+      }
+      return new CalculationTable(path);
+    }
+
+    private Object read(ByteBuffer in)
+    {
+      if(path == null)
+      {
+        return readConfig(in);
+      }
+      else if(name.equals("Prices.csv"))
+      {
+        return PriceTable.read(in);
+      }
+      else if(name.endsWith("/Electronics.csv"))
+      {
+        return ElectronicsTable.read(in);
+      }
+      else if(name.endsWith("/Mechanics.csv"))
+      {
+        return MechanicsTable.read(in);
+      }
+      return CalculationTable.read(in);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void write(DataOutput out, Object table) throws IOException
+    {
+      if(path == null)
+      {
+        writeConfig(out, (Map<String, Integer[]>) table);
+      }
+      else if(table instanceof PriceTable)
+      {
+        ((PriceTable) table).write(out);
+      }
+      else if(table instanceof ElectronicsTable)
+      {
+        ((ElectronicsTable) table).write(out);
+      }
+      else if(table instanceof MechanicsTable)
+      {
+        ((MechanicsTable) table).write(out);
+      }
+      else
+      {
+        ((CalculationTable) table).write(out);
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void put(Object table)
+    {
+      if(path == null)
+      {
+        TableCache.putConfig(name, (Map<String, Integer[]>) table);
+      }
+      else
+      {
+        TableCache.put(path, lastModified, size, table);
+      }
+    }
+  }
+}
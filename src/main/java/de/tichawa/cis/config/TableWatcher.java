@@ -0,0 +1,293 @@
+package de.tichawa.cis.config;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Überwacht die Tabellen aus tableHome (soweit schon im TableCache) und den FERIX-Export (Export/art.csv).
+// Der WatchService meldet Änderungen sofort, zusätzlich wird alle interval ms nachgesehen, weil er auf Netzlaufwerken
+// Ereignisse verlieren kann (tableWatch=poll: nur nachsehen). Eine geänderte Datei wird erst eingelesen, wenn Zeitstempel
+// und Größe für QUIET ms gleich geblieben sind, der TableCache tauscht dann alle geänderten Tabellen auf einmal aus.
+// Die Listener bekommen die geänderten Dateien im Hintergrund-Thread.
+public final class TableWatcher implements AutoCloseable
+{
+  private static final long QUIET = 1000;
+  private static final List<Consumer<Set<Path>>> LISTENERS = new CopyOnWriteArrayList<>();
+
+  private final Path tableHome;
+  private final Path export;
+  private final long interval;
+  private final WatchService watchService;
+  private final Thread thread;
+  private final Map<Path, Change> pending = new HashMap<>();
+  private FileState exportState;
+  private volatile boolean running = true;
+
+  private TableWatcher(Path tableHome, Path ferixHome, long interval, boolean poll)
+  {
+    this.tableHome = tableHome;
+    this.export = ferixHome.resolve("Export/art.csv");
+    this.interval = interval;
+    this.exportState = FileState.read(export);
+    this.watchService = poll ? null : register(tableHome, export.getParent());
+
+    thread = new Thread(this::run, "TableWatcher");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  public static TableWatcher start(Path tableHome, Path ferixHome, long interval, boolean poll)
+  {
+    TableCache.setWatched(true);
+    return new TableWatcher(tableHome, ferixHome, interval, poll);
+  }
+
+  public static void addListener(Consumer<Set<Path>> listener)
+  {
+    LISTENERS.add(listener);
+  }
+
+  public static void removeListener(Consumer<Set<Path>> listener)
+  {
+    LISTENERS.remove(listener);
+  }
+
+  // null, wenn kein WatchService verfügbar ist, dann wird nur nachgesehen
+  private static WatchService register(Path tableHome, Path exportHome)
+  {
+    try
+    {
+      WatchService service = FileSystems.getDefault().newWatchService();
+      try
+      {
+        register(service, tableHome);
+        try(DirectoryStream<Path> dirs = Files.newDirectoryStream(tableHome, Files::isDirectory))
+        {
+          for(Path dir : dirs)
+          {
+            register(service, dir);
+          }
+        }
+        if(Files.isDirectory(exportHome))
+        {
+          register(service, exportHome);
+        }
+        return service;
+      }
+      catch(IOException ex)
+      {
+        service.close();
+        throw ex;
+      }
+    }
+    catch(IOException | UnsupportedOperationException ex)
+    {
+      System.err.println("Watching " + tableHome + " not available, polling instead: " + ex.getMessage());
+      return null;
+    }
+  }
+
+  private static void register(WatchService service, Path dir) throws IOException
+  {
+    dir.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+  }
+
+  private void run()
+  {
+    try
+    {
+      while(running)
+      {
+        //Solange etwas aussteht, öfter nachsehen
+        long timeout = pending.isEmpty() ? interval : Math.min(interval, QUIET);
+        if(watchService == null)
+        {
+          Thread.sleep(timeout);
+        }
+        else
+        {
+          WatchKey key = watchService.poll(timeout, TimeUnit.MILLISECONDS);
+          while(key != null)
+          {
+            for(WatchEvent<?> event : key.pollEvents())
+            {
+              //Neues Familienverzeichnis
+              Path dir = ((Path) key.watchable()).resolve(String.valueOf(event.context()));
+              if(event.kind() == StandardWatchEventKinds.ENTRY_CREATE && key.watchable().equals(tableHome) && Files.isDirectory(dir))
+              {
+                try
+                {
+                  register(watchService, dir);
+                }
+                catch(IOException ex)
+                {
+                  System.err.println("Watching " + dir + " not available: " + ex.getMessage());
+                }
+              }
+            }
+            key.reset();
+            key = watchService.poll();
+          }
+        }
+        scan();
+      }
+    }
+    catch(InterruptedException | ClosedWatchServiceException ex)
+    {
+      //close()
+    }
+  }
+
+  private void scan()
+  {
+    long now = System.currentTimeMillis();
+    Map<Path, FileState> tables = new HashMap<>();
+    Set<Path> changed = new HashSet<>();
+
+    for(Path path : TableCache.getPaths())
+    {
+      FileState state = FileState.read(path);
+      if(path.startsWith(tableHome) && state != null && !TableCache.isCurrent(path, state.lastModified, state.size) && isStable(path, state, now))
+      {
+        tables.put(path, state);
+      }
+    }
+
+    FileState state = FileState.read(export);
+    if(state != null && !state.equals(exportState) && isStable(export, state, now))
+    {
+      exportState = state;
+      pending.remove(export);
+      changed.add(export);
+    }
+
+    if(!tables.isEmpty())
+    {
+      try
+      {
+        TableCache.reload(tables.keySet());
+        pending.keySet().removeAll(tables.keySet());
+        changed.addAll(tables.keySet());
+      }
+      catch(IOException | RuntimeException ex)
+      {
+        //Alter Stand bleibt, erneut versucht wird erst nach der nächsten Änderung der Datei
+        System.err.println("Reloading " + tables.keySet() + " failed: " + ex.getMessage());
+        tables.forEach((path, failed) -> pending.put(path, new Change(failed, Long.MAX_VALUE)));
+      }
+    }
+
+    if(!changed.isEmpty())
+    {
+      Set<Path> paths = Collections.unmodifiableSet(changed);
+      for(Consumer<Set<Path>> listener : LISTENERS)
+      {
+        try
+        {
+          listener.accept(paths);
+        }
+        catch(RuntimeException ex)
+        {
+          ex.printStackTrace();
+        }
+      }
+    }
+  }
+
+  // Unverändert seit mindestens QUIET ms, d.h. nicht mehr im Schreiben (since = MAX_VALUE: Stand ließ sich nicht einlesen)
+  private boolean isStable(Path path, FileState state, long now)
+  {
+    Change change = pending.get(path);
+    if(change == null || !change.state.equals(state))
+    {
+      pending.put(path, new Change(state, now));
+      return false;
+    }
+    return change.since != Long.MAX_VALUE && now - change.since >= QUIET;
+  }
+
+  @Override
+  public void close()
+  {
+    running = false;
+    thread.interrupt();
+    TableCache.setWatched(false);
+    if(watchService != null)
+    {
+      try
+      {
+        watchService.close();
+      }
+      catch(IOException ex)
+      {
+      }
+    }
+  }
+
+  private static final class FileState
+  {
+    private final long lastModified;
+    private final long size;
+
+    private FileState(long lastModified, long size)
+    {
+      this.lastModified = lastModified;
+      this.size = size;
+    }
+
+    // null, wenn die Datei (gerade) nicht lesbar ist
+    private static FileState read(Path path)
+    {
+      try
+      {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        return new FileState(attributes.lastModifiedTime().toMillis(), attributes.size());
+      }
+      catch(IOException ex)
+      {
+        return null;
+      }
+    }
+
+    @Override
+    public boolean equals(Object other)
+    {
+      return other instanceof FileState && ((FileState) other).lastModified == lastModified && ((FileState) other).size == size;
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return Long.hashCode(lastModified) * 31 + Long.hashCode(size);
+    }
+  }
+
+  private static final class Change
+  {
+    private final FileState state;
+    private final long since;
+
+    private Change(FileState state, long since)
+    {
+      this.state = state;
+      this.since = since;
+    }
+  }
+}
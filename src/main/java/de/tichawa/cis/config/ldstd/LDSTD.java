@@ -41,7 +41,7 @@ public class LDSTD extends CIS
   }
 
   @Override
-  public String getTiViKey()
+  protected String getTiViKey(String mechaVersion)
   {
     String key = "G_LDSTD";
     key += String.format("_%04d", getSpec("sw_cp"));
@@ -80,7 +80,7 @@ public class LDSTD extends CIS
       key = key.replace(COLOR_CODE[getSpec("Internal Light Color")], "RGB");
     }
 
-    key += getMechaVersion();
+    key += mechaVersion;
     
     if(key.endsWith("_"))
     {
@@ -90,12 +90,24 @@ public class LDSTD extends CIS
     return key;
   }
 
+  @Override
+  public PortAssignment getPortAssignment(int numOfPix)
+  {
+    return null;
+  }
+
   @Override
   public String getCLCalc(int numOfPix)
   {
     return " ";
   }
   
+  @Override
+  public double getMaxLineRate()
+  {
+    return 0.0;
+  }
+
   @Override
   public double getGeometry(boolean coax)
   {
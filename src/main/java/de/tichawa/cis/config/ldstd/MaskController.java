@@ -110,5 +110,7 @@ public class MaskController extends de.tichawa.cis.config.MaskController
     ScanWidth.getSelectionModel().selectFirst();
     InternalLightSource.getSelectionModel().select(1);
     InternalLightColor.getSelectionModel().selectFirst();
+
+    initPreview();
   }
 }
@@ -25,7 +25,7 @@ public class MXCIS extends CIS
   }
 
   @Override
-  public String getTiViKey()
+  protected String getTiViKey(String mechaVersion)
   {
     String key = "G_MXCIS";
     key += String.format("_%04d", getSpec("sw_cp"));
@@ -82,7 +82,7 @@ public class MXCIS extends CIS
       key = key.replace(COLOR_CODE[getSpec("Internal Light Color")], "RGB");
     }
 
-    key += getMechaVersion();
+    key += mechaVersion;
 
     if(getSpec("Interface") == 1)
     {
@@ -126,135 +126,126 @@ public class MXCIS extends CIS
   }
 
   @Override
-  public String getCLCalc(int numOfPix)
+  public PortAssignment getPortAssignment(int numOfPix)
   {
-    HashMap<Integer, Integer> dpiToRate = new HashMap<>();
-    dpiToRate.put(25, 27);
-    dpiToRate.put(50, 27);
-    dpiToRate.put(75, 18);
-    dpiToRate.put(100, 27);
-    dpiToRate.put(150, 18);
-    dpiToRate.put(200, 27);
-    dpiToRate.put(300, 18);
-    dpiToRate.put(400, 13);
-    dpiToRate.put(600, 10);
-
-    double FpgaDataRate;
     int tapsPerFpga;
     int lval;
     int pixPerFpga;
-    int pixPerTap;
-    int sensPerFpga;
-    StringBuilder printOut = new StringBuilder();
+    int sensPerFpga = getSensPerFpga();
+
+    //HALF oder FULL
+    spec.put("MODE", sensPerFpga == 4 ? 4 : 2);
+
+    pixPerFpga = getPixPerFpga(sensPerFpga);
+    tapsPerFpga = getTapsPerFpga(pixPerFpga, getSpec("Selected line rate"));
+    if(getSpec("Color") == 1 && getNumFPGA() > 1 && tapsPerFpga % 2 == 1)
+    {
+      tapsPerFpga++;
+    }
 
+    lval = (int) ((double) pixPerFpga / (double) tapsPerFpga);
+
+    int portCount = getSpec("Color") == 1 ? (int) Math.ceil(numOfPix / (lval * 1.0)) : (int) Math.ceil(3 * Math.ceil(numOfPix / (lval * 1.0)));
+    int connectors = getSpec("Color") == 1 ? (int) Math.ceil(numOfPix / (lval * 2.0)) : (int) Math.ceil(numOfPix / (lval * 1.0));
+
+    return CameraLinkLayout.forMXCIS(tapsPerFpga * getNumFPGA(), lval, numOfPix, getSpec("Color"), connectors, portCount,
+            Math.round(portCount * Math.min(lval, numOfPix) * getSpec("Selected line rate") / 100000.0) / 10.0);
+  }
+
+  private int getSensPerFpga()
+  {
     if(getSpec("res_cp2") > 600)
     {
-      spec.put("MODE", 2);
-      sensPerFpga = 1;
+      return 1;
     }
-    else if((getSpec("Selected line rate") / 1000.0) <= dpiToRate.get(getSpec("res_cp2")) && getSpec("Color") != 4)
+    else if((getSpec("Selected line rate") / 1000.0) <= maxRateForHalfMode.get(getSpec("res_cp2")) && getSpec("Color") != 4)
     {
       //HALF
-      spec.put("MODE", 4);
-      sensPerFpga = 4;
+      return 4;
     }
     else
     {
       //FULL
-      spec.put("MODE", 2);
-      sensPerFpga = 2;
+      return 2;
     }
+  }
 
-    pixPerFpga = sensPerFpga * getBoard(getSpec("res_cp"))[0] * getChip(getSpec("res_cp2"))[3] / getSpec("Binning");
-    FpgaDataRate = pixPerFpga * getSpec("Selected line rate") / 1000.0;
-    tapsPerFpga = (int) Math.ceil(FpgaDataRate / (84 * 1000.0));
-    if(getSpec("Color") == 1 && getNumFPGA() > 1 && tapsPerFpga % 2 == 1)
+  private int getPixPerFpga(int sensPerFpga)
+  {
+    return sensPerFpga * getBoard(getSpec("res_cp")).getChips() * getChip(getSpec("res_cp2")).getPixels() / getSpec("Binning");
+  }
+
+  // Ohne Aufrunden auf gerade Taps
+  private static int getTapsPerFpga(int pixPerFpga, int lineRate)
+  {
+    double FpgaDataRate = pixPerFpga * lineRate / 1000.0;
+    return (int) Math.ceil(FpgaDataRate / (84 * 1000.0));
+  }
+
+  // K1/K2/K3 im TiViKey und Taps je FPGA. Die Taps werden höchstens an mehr Schwellen geteilt als nötig,
+  // das Aufrunden auf gerade Taps fasst CIS.sweepLineRates() wieder zusammen.
+  @Override
+  protected int getLineRateStepEnd()
+  {
+    int lineRate = getSpec("Selected line rate");
+    int end = Integer.MAX_VALUE;
+    if(getSpec("Color") != 4)
     {
-      tapsPerFpga++;
+      double k1 = getSpec("Maximum line rate") * (getSpec("res_cp2") == 600 ? 0.2 : 0.25);
+      double k2 = getSpec("Maximum line rate") * 0.5;
+      if(lineRate <= k1)
+      {
+        end = (int) Math.floor(k1);
+      }
+      else if(lineRate <= k2)
+      {
+        end = (int) Math.floor(k2);
+      }
     }
 
-    pixPerTap = (int) ((double) pixPerFpga / (double) tapsPerFpga);
-    lval = pixPerTap;
+    if(getSpec("Interface") == null || getSpec("Interface") != 0)
+    {
+      return end;
+    }
 
-    int portCount = getSpec("Color") == 1 ? (int) Math.ceil(numOfPix / (lval * 1.0)) : (int) Math.ceil(3 * Math.ceil(numOfPix / (lval * 1.0)));
+    //pixPerFpga * lineRate wird in int gerechnet, darüber gibt es keine sinnvollen Taps mehr (bis zur maximalen Zeilenfrequenz nicht erreicht)
+    int pixPerFpga = getPixPerFpga(getSensPerFpga());
+    int limit = pixPerFpga <= 0 ? Integer.MAX_VALUE : Integer.MAX_VALUE / pixPerFpga;
+    if(lineRate > limit)
+    {
+      return end;
+    }
 
-    printOut.append(getString("datarate")).append(Math.round(portCount * Math.min(lval, numOfPix) * getSpec("Selected line rate") / 100000.0) / 10.0).append(" MByte/s\n");
-    printOut.append(getString("numofpix")).append(numOfPix).append("\n");
-    
-    if(getSpec("Color") == 1)
+    int taps = getTapsPerFpga(pixPerFpga, lineRate);
+    int tapsEnd = (int) Math.min(limit, Math.max(lineRate, (long) (taps * 84 * 1000.0 * 1000.0 / pixPerFpga)));
+    while(tapsEnd < limit && getTapsPerFpga(pixPerFpga, tapsEnd + 1) <= taps)
     {
-      printOut.append(getString("numofcons")).append((int) Math.ceil(numOfPix / (lval * 2.0))).append("\n");
+      tapsEnd++;
     }
-    else
+    while(tapsEnd > lineRate && getTapsPerFpga(pixPerFpga, tapsEnd) > taps)
     {
-      printOut.append(getString("numofcons")).append((int) Math.ceil(numOfPix / (lval * 1.0))).append("\n");
+      tapsEnd--;
     }
-    printOut.append(getString("numofport")).append(portCount).append("\n");
-    printOut.append("Pixel Clock: 85MHz\n\n");
+    return Math.min(end, tapsEnd);
+  }
 
-    switch(getSpec("Color"))
-    {
-      case 4:
-      {
-        for(int x = 0; x < tapsPerFpga * getNumFPGA(); x++)
-        {
-          if(lval > numOfPix)
-          {
-            printOut.append("Camera Link ").append(x + 1).append(":\n");
-            printOut.append("   Port A:   ")
-                    .append(String.format("%05d", x * lval)).append("   - ").append(String.format("%05d", numOfPix - 1)).append("   ")
-                    .append(getString("Red")).append("\n");
-            printOut.append("   Port B:   ")
-                    .append(String.format("%05d", x * lval)).append("   - ").append(String.format("%05d", numOfPix - 1)).append("   ")
-                    .append(getString("Green")).append("\n");
-            printOut.append("   Port C:   ")
-                    .append(String.format("%05d", x * lval)).append("   - ").append(String.format("%05d", numOfPix - 1)).append("   ")
-                    .append(getString("Blue")).append("\n");
-          }
-          else
-          {
-            printOut.append("Camera Link ").append(x + 1).append(":\n");
-            printOut.append("   Port A:   ")
-                    .append(String.format("%05d", x * lval)).append("   - ").append(String.format("%05d", (x + 1) * lval - 1)).append("   ")
-                    .append(getString("Red")).append("\n");
-            printOut.append("   Port B:   ")
-                    .append(String.format("%05d", x * lval)).append("   - ").append(String.format("%05d", (x + 1) * lval - 1)).append("   ")
-                    .append(getString("Green")).append("\n");
-            printOut.append("   Port C:   ")
-                    .append(String.format("%05d", x * lval)).append("   - ").append(String.format("%05d", (x + 1) * lval - 1)).append("   ")
-                    .append(getString("Blue")).append("\n");
-          }
-        }
+  @Override
+  public String getCLCalc(int numOfPix)
+  {
+    PortAssignment assignment = getPortAssignment(numOfPix);
+    StringBuilder printOut = new StringBuilder();
 
-        break;
-      }
-      case 1:
-      {
-        for(int x = 1; (x - 1) * lval < numOfPix; x++)
-        {
-          if(x % 2 == 1)
-          {
-            printOut.append("Camera Link ").append((x + 1) / 2).append(":\n");
-          }
-
-          if(lval > numOfPix)
-          {
-            printOut.append("   Port ").append(getPortName((x + 1) % 2)).append(":   ")
-                    .append(String.format("%05d", (x - 1) * lval)).append("   - ").append(String.format("%05d", numOfPix - 1)).append("\n");
-          }
-          else
-          {
-            printOut.append("   Port ").append(getPortName((x + 1) % 2)).append(":   ")
-                    .append(String.format("%05d", (x - 1) * lval)).append("   - ").append(String.format("%05d", x * lval - 1)).append("\n");
-          }
-        }
-      }
-    }
+    printOut.append(getString("datarate")).append(assignment.getDataRate()).append(" MByte/s\n");
+    printOut.append(getString("numofpix")).append(numOfPix).append("\n");
+    printOut.append(getString("numofcons")).append(assignment.getConnectors()).append("\n");
+    printOut.append(getString("numofport")).append(assignment.getPortCount()).append("\n");
+    printOut.append("Pixel Clock: 85MHz\n\n");
+    printOut.append(renderPorts(assignment));
 
     return printOut.toString();
   }
 
-  public Integer[] getBoard(int res)
+  public SensorCatalogue.Board getBoard(int res)
   {
     while(getSensBoard("SENS_" + res) == null)
     {
@@ -264,7 +255,7 @@ public class MXCIS extends CIS
     return getSensBoard("SENS_" + res);
   }
 
-  public Integer[] getChip(int res)
+  public SensorCatalogue.Chip getChip(int res)
   {
     int z = 1;
     while(resToSens.get(res * z) == null)
@@ -277,6 +268,14 @@ public class MXCIS extends CIS
     return getSensChip(resToSens.get(res * z));
   }
   
+  @Override
+  public double getMaxLineRate()
+  {
+    SensorCatalogue.Board board = getBoard(getSpec("res_cp2"));
+    SensorCatalogue.Chip chip = getChip(getSpec("res_cp2"));
+    return Math.round(1000.0 * board.getLines() / (getSpec("Color") * (chip.getPixels() + 3 + chip.getOverhead()) * 1.0 / Math.min(chip.getMaxClock(), getADC("MODU_ADC(SLOW)").getClock()))) / 1000.0;
+  }
+
   @Override
   public double getGeometry(boolean coax)
   {
@@ -2,6 +2,7 @@ package de.tichawa.cis.config.mxcis;
 
 import de.tichawa.cis.config.ldstd.LDSTD;
 import de.tichawa.cis.config.CIS;
+import de.tichawa.cis.config.SensorTiming;
 import java.net.*;
 import java.util.*;
 import javafx.beans.value.*;
@@ -22,17 +23,6 @@ public class MaskController extends de.tichawa.cis.config.MaskController
   // Initialisiert die graphische Oberfläche
   public void initialize(URL url, ResourceBundle rb)
   {
-    ArrayList<Double> pixelSize = new ArrayList<>();
-    pixelSize.add(0.0423);
-    pixelSize.add(0.0635);
-    pixelSize.add(0.0847);
-    pixelSize.add(0.125);
-    pixelSize.add(0.167);
-    pixelSize.add(0.25);
-    pixelSize.add(0.339);
-    pixelSize.add(0.5);
-    pixelSize.add(1.0);
-
     CIS_DATA.setSpec("Color", 1);
     CIS_DATA.setSpec("Internal Light Source", 1);
     CIS_DATA.setSpec("External Light Source", 0);
@@ -75,9 +65,8 @@ public class MaskController extends de.tichawa.cis.config.MaskController
       InternalLightColor.setDisable(newValue.equals("RGB") || CIS_DATA.getSpec("LEDLines") == 0);
       ExternalLightColor.setDisable(newValue.equals("RGB") || ExternalLightSource.getSelectionModel().getSelectedIndex() == 0);
 
-      Integer[] board = ((MXCIS) CIS_DATA).getBoard(CIS_DATA.getSpec("res_cp2"));
-      Integer[] chip = ((MXCIS) CIS_DATA).getChip(CIS_DATA.getSpec("res_cp2"));
-      double maxLR = Math.round(1000.0 * board[2] / (CIS_DATA.getSpec("Color") * (chip[3] + 3 + chip[2]) * 1.0 / Math.min(chip[4], CIS_DATA.getADC("MODU_ADC(SLOW)")[2]))) / 1000.0;
+      SensorTiming timing = SensorTiming.of(CIS_DATA);
+      double maxLR = timing.getMaxLineRate();
       MaxLineRate.setText(maxLR + " kHz");
       SelLineRate.setMax(maxLR * 1000);
       SelLineRate.setValue(maxLR * 1000);
@@ -130,8 +119,8 @@ public class MaskController extends de.tichawa.cis.config.MaskController
         }
       });
 
-      CIS_DATA.setSpec("Maximum line rate", (int) Math.round(maxLR * 1000));
-      CIS_DATA.setSpec("Speedmms", (int) (pixelSize.get(CIS_DATA.getSpec("Resolution")) * CIS_DATA.getSpec("Selected line rate")) * 1000);
+      CIS_DATA.setSpec("Maximum line rate", timing.getMaxLineRateHz());
+      CIS_DATA.setSpec("Speedmms", (int) (timing.getPixelSize() * CIS_DATA.getSpec("Selected line rate")) * 1000);
     });
     Resolution.valueProperty().addListener((ObservableValue<? extends String> observable, String oldValue, String newValue) ->
     {
@@ -170,9 +159,8 @@ public class MaskController extends de.tichawa.cis.config.MaskController
 
       CIS_DATA.setSpec("res_cp2", res);
 
-      Integer[] board = ((MXCIS) CIS_DATA).getBoard(res);
-      Integer[] chip = ((MXCIS) CIS_DATA).getChip(res);
-      double maxLR = Math.round(1000.0 * board[2] / (CIS_DATA.getSpec("Color") * (chip[3] + 3 + chip[2]) * 1.0 / Math.min(chip[4], CIS_DATA.getADC("MODU_ADC(SLOW)")[2]))) / 1000.0;
+      SensorTiming timing = SensorTiming.of(CIS_DATA);
+      double maxLR = timing.getMaxLineRate();
       MaxLineRate.setText(maxLR + " kHz");
       SelLineRate.setMax(maxLR * 1000);
       SelLineRate.setValue(maxLR * 1000);
@@ -233,15 +221,11 @@ public class MaskController extends de.tichawa.cis.config.MaskController
         }
       });
 
-      CIS_DATA.setSpec("Maximum line rate", (int) Math.round(maxLR * 1000));
-      CIS_DATA.setSpec("Speedmms", (int) (pixelSize.get(CIS_DATA.getSpec("Resolution")) * CIS_DATA.getSpec("Selected line rate")) * 1000);
+      CIS_DATA.setSpec("Maximum line rate", timing.getMaxLineRateHz());
+      CIS_DATA.setSpec("Speedmms", (int) (timing.getPixelSize() * CIS_DATA.getSpec("Selected line rate")) * 1000);
 
-      PixelSize.setText(pixelSize.get(CIS_DATA.getSpec("Resolution")) + " mm");
-      DefectSize.setText(CIS.round(pixelSize.get(CIS_DATA.getSpec("Resolution")) * 3, 5) + " mm");
-      Speedmms.setText(CIS.round(pixelSize.get(CIS_DATA.getSpec("Resolution")) * CIS_DATA.getSpec("Selected line rate"), 3) + " mm/s");
-      Speedms.setText(CIS.round(pixelSize.get(CIS_DATA.getSpec("Resolution")) * CIS_DATA.getSpec("Selected line rate") / 1000, 3) + " m/s");
-      Speedmmin.setText(CIS.round(pixelSize.get(CIS_DATA.getSpec("Resolution")) * CIS_DATA.getSpec("Selected line rate") * 0.06, 3) + " m/min");
-      Speedips.setText(CIS.round(pixelSize.get(CIS_DATA.getSpec("Resolution")) * CIS_DATA.getSpec("Selected line rate") * 0.03937, 3) + " ips");
+      showPixelSize(timing);
+      showSpeed(timing);
     });
     ScanWidth.valueProperty().addListener((ObservableValue<? extends String> observable, String oldValue, String newValue) ->
     {
@@ -271,15 +255,13 @@ public class MaskController extends de.tichawa.cis.config.MaskController
       }
 
       CIS_DATA.setSpec("Selected line rate", newValue.intValue());
-      CIS_DATA.setSpec("Speedmms", (int) (pixelSize.get(CIS_DATA.getSpec("Resolution")) * CIS_DATA.getSpec("Selected line rate")) * 1000);
+      SensorTiming timing = SensorTiming.of(CIS_DATA);
+      CIS_DATA.setSpec("Speedmms", (int) (timing.getPixelSize() * CIS_DATA.getSpec("Selected line rate")) * 1000);
 
       // Maskenfelder updaten
       CurrLineRate.setText(newValue.intValue() / 1000.0 + " kHz");
 
-      Speedmms.setText(CIS.round(pixelSize.get(CIS_DATA.getSpec("Resolution")) * CIS_DATA.getSpec("Selected line rate"), 3) + " mm/s");
-      Speedms.setText(CIS.round(pixelSize.get(CIS_DATA.getSpec("Resolution")) * CIS_DATA.getSpec("Selected line rate") / 1000, 3) + " m/s");
-      Speedmmin.setText(CIS.round(pixelSize.get(CIS_DATA.getSpec("Resolution")) * CIS_DATA.getSpec("Selected line rate") * 0.06, 3) + " m/min");
-      Speedips.setText(CIS.round(pixelSize.get(CIS_DATA.getSpec("Resolution")) * CIS_DATA.getSpec("Selected line rate") * 0.03937, 3) + " ips");
+      showSpeed(timing);
     });
     
     
@@ -382,5 +364,7 @@ public class MaskController extends de.tichawa.cis.config.MaskController
     Interface.getSelectionModel().selectFirst();
     Cooling.getSelectionModel().select(1);
     Trigger.setSelected(false);
+
+    initPreview();
   }
 }
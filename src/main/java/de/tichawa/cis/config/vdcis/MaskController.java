@@ -1,6 +1,7 @@
 package de.tichawa.cis.config.vdcis;
 
 import de.tichawa.cis.config.CIS;
+import de.tichawa.cis.config.SensorTiming;
 import java.net.*;
 import java.util.*;
 import javafx.beans.value.*;
@@ -21,16 +22,6 @@ public class MaskController extends de.tichawa.cis.config.MaskController
   @Override
   public void initialize(URL url, ResourceBundle rb)
   {
-    ArrayList<Double> pixelSize = new ArrayList<>();
-    pixelSize.add(0.0254);
-    pixelSize.add(0.0254);
-    pixelSize.add(0.0508);
-    pixelSize.add(0.1016);
-    pixelSize.add(0.2032);
-    pixelSize.add(0.254);
-    pixelSize.add(0.508);
-    pixelSize.add(1.016);
-
     CIS_DATA.setSpec("Color", 2);
     CIS_DATA.setSpec("Resolution", 0);
     CIS_DATA.setSpec("res_cp", 1000);
@@ -79,13 +70,14 @@ public class MaskController extends de.tichawa.cis.config.MaskController
 
       InternalLightColor.setDisable(newValue.equals("RGB"));
 
-      double maxLR = Math.round(1000 * CIS_DATA.getSensBoard("SMARAGD_INLINE")[2] / (CIS_DATA.getSpec("Color") * (CIS_DATA.getSensChip("SMARAGD" + CIS_DATA.getSpec("res_cp") + "_VD")[3] + 3 + CIS_DATA.getSensChip("SMARAGD" + CIS_DATA.getSpec("res_cp") + "_VD")[2]) * 1.0 / Math.min(CIS_DATA.getSensChip("SMARAGD" + CIS_DATA.getSpec("res_cp") + "_VD")[4], CIS_DATA.getADC("VADCFPGA")[2]))) / 1000.0;
+      SensorTiming timing = SensorTiming.of(CIS_DATA);
+      double maxLR = timing.getMaxLineRate();
       MaxLineRate.setText(maxLR + " kHz");
       SelLineRate.setMax(maxLR * 1000);
       SelLineRate.setValue(maxLR * 1000);
 
-      CIS_DATA.setSpec("Maximum line rate", (int) Math.round(maxLR * 1000));
-      CIS_DATA.setSpec("Speedmms", (int) (pixelSize.get(CIS_DATA.getSpec("Resolution")) * CIS_DATA.getSpec("Selected line rate")) * 1000);
+      CIS_DATA.setSpec("Maximum line rate", timing.getMaxLineRateHz());
+      CIS_DATA.setSpec("Speedmms", (int) (timing.getPixelSize() * CIS_DATA.getSpec("Selected line rate")) * 1000);
     });
     Resolution.valueProperty().addListener((ObservableValue<? extends String> observable, String oldValue, String newValue) ->
     {
@@ -139,28 +131,17 @@ public class MaskController extends de.tichawa.cis.config.MaskController
         return;
       }
 
-      double maxLR = Math.round(1000 *
-          CIS_DATA.getSensBoard("SMARAGD_INLINE")[2] /
-          (CIS_DATA.getSpec("Color")
-              * (CIS_DATA.getSensChip("SMARAGD"
-              + CIS_DATA.getSpec("res_cp") + "_VD")[3] + 3 +
-              CIS_DATA.getSensChip("SMARAGD" + CIS_DATA.getSpec("res_cp") + "_VD")[2]) * 1.0
-              / Math.min(CIS_DATA.getSensChip("SMARAGD" +
-              CIS_DATA.getSpec("res_cp") + "_VD")[4],
-              CIS_DATA.getADC("VADCFPGA")[2]))) / 1000.0;
+      SensorTiming timing = SensorTiming.of(CIS_DATA);
+      double maxLR = timing.getMaxLineRate();
       MaxLineRate.setText(maxLR + " kHz");
       SelLineRate.setMax(maxLR * 1000);
       SelLineRate.setValue(maxLR * 1000);
 
-      CIS_DATA.setSpec("Maximum line rate", (int) Math.round(maxLR * 1000));
-      CIS_DATA.setSpec("Speedmms", (int) (pixelSize.get(CIS_DATA.getSpec("Resolution")) * CIS_DATA.getSpec("Selected line rate")) * 1000);
+      CIS_DATA.setSpec("Maximum line rate", timing.getMaxLineRateHz());
+      CIS_DATA.setSpec("Speedmms", (int) (timing.getPixelSize() * CIS_DATA.getSpec("Selected line rate")) * 1000);
 
-      PixelSize.setText(pixelSize.get(CIS_DATA.getSpec("Resolution")) + " mm");
-      DefectSize.setText(CIS.round(pixelSize.get(CIS_DATA.getSpec("Resolution")) * 3, 5) + " mm");
-      Speedmms.setText(CIS.round(pixelSize.get(CIS_DATA.getSpec("Resolution")) * CIS_DATA.getSpec("Selected line rate"), 3) + " mm/s");
-      Speedms.setText(CIS.round(pixelSize.get(CIS_DATA.getSpec("Resolution")) * CIS_DATA.getSpec("Selected line rate") / 1000, 3) + " m/s");
-      Speedmmin.setText(CIS.round(pixelSize.get(CIS_DATA.getSpec("Resolution")) * CIS_DATA.getSpec("Selected line rate") * 0.06, 3) + " m/min");
-      Speedips.setText(CIS.round(pixelSize.get(CIS_DATA.getSpec("Resolution")) * CIS_DATA.getSpec("Selected line rate") * 0.03937, 3) + " ips");
+      showPixelSize(timing);
+      showSpeed(timing);
     });
     ScanWidth.valueProperty().addListener((ObservableValue<? extends String> observable, String oldValue, String newValue) ->
     {
@@ -182,10 +163,7 @@ public class MaskController extends de.tichawa.cis.config.MaskController
 
       CurrLineRate.setText(newValue.intValue() / 1000.0 + " kHz");
 
-      Speedmms.setText(CIS.round(pixelSize.get(CIS_DATA.getSpec("Resolution")) * CIS_DATA.getSpec("Selected line rate"), 3) + " mm/s");
-      Speedms.setText(CIS.round(pixelSize.get(CIS_DATA.getSpec("Resolution")) * CIS_DATA.getSpec("Selected line rate") / 1000, 3) + " m/s");
-      Speedmmin.setText(CIS.round(pixelSize.get(CIS_DATA.getSpec("Resolution")) * CIS_DATA.getSpec("Selected line rate") * 0.06, 3) + " m/min");
-      Speedips.setText(CIS.round(pixelSize.get(CIS_DATA.getSpec("Resolution")) * CIS_DATA.getSpec("Selected line rate") * 0.03937, 3) + " ips");
+      showSpeed(SensorTiming.of(CIS_DATA));
     });
     InternalLightSource.valueProperty().addListener((ObservableValue<? extends String> observable, String oldValue, String newValue) ->
     {
@@ -236,5 +214,7 @@ public class MaskController extends de.tichawa.cis.config.MaskController
     Cooling.getSelectionModel().select(1);
     Trigger.setSelected(false);
     CameraLinkMode.getSelectionModel().selectLast();
+
+    initPreview();
   }
 }
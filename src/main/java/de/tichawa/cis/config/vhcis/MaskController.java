@@ -17,19 +17,6 @@ public class MaskController extends de.tichawa.cis.config.MaskController
   @Override
   public void initialize(URL url, ResourceBundle rb)
   {
-    ArrayList<Double> pixelSize = new ArrayList<>();
-    pixelSize.add(0.02115);
-    pixelSize.add(0.02115);
-    pixelSize.add(0.0423);
-    pixelSize.add(0.0635);
-    pixelSize.add(0.0847);
-    pixelSize.add(0.125);
-    pixelSize.add(0.167);
-    pixelSize.add(0.25);
-    pixelSize.add(0.339);
-    pixelSize.add(0.5);
-    pixelSize.add(1.0);
-
     CIS_DATA.setSpec("Color", 1);
     CIS_DATA.setSpec("Internal Light Source", 1);
     CIS_DATA.setSpec("External Light Source", 0);
@@ -68,13 +55,14 @@ public class MaskController extends de.tichawa.cis.config.MaskController
               InternalLightColor.setDisable(newValue.equals("RGB") || CIS_DATA.getSpec("LEDLines") == 0);
               ExternalLightColor.setDisable(newValue.equals("RGB") || ExternalLightSource.getSelectionModel().getSelectedIndex() == 0);
 
-              double maxLR = Math.round(1000 * CIS_DATA.getSensBoard("SMARDOUB")[2] / (CIS_DATA.getSpec("Color") * (CIS_DATA.getSensChip("SMARAGD" + CIS_DATA.getSpec("res_cp"))[3] + 3 + CIS_DATA.getSensChip("SMARAGD" + CIS_DATA.getSpec("res_cp"))[2]) * 1.0 / Math.min(CIS_DATA.getSensChip("SMARAGD" + CIS_DATA.getSpec("res_cp"))[4], CIS_DATA.getADC("VADCFPGA")[2]))) / 1000.0;
+              SensorTiming timing = SensorTiming.of(CIS_DATA);
+              double maxLR = timing.getMaxLineRate();
               MaxLineRate.setText(maxLR + " kHz");
               SelLineRate.setMax(maxLR * 1000);
               SelLineRate.setValue(maxLR * 1000);
 
-              CIS_DATA.setSpec("Maximum line rate", (int) Math.round(maxLR * 1000));
-              CIS_DATA.setSpec("Speedmms", (int) (pixelSize.get(CIS_DATA.getSpec("Resolution")) * CIS_DATA.getSpec("Selected line rate")) * 1000);
+              CIS_DATA.setSpec("Maximum line rate", timing.getMaxLineRateHz());
+              CIS_DATA.setSpec("Speedmms", (int) (timing.getPixelSize() * CIS_DATA.getSpec("Selected line rate")) * 1000);
 
               LDSTD_DATA.setSpec("Color", CIS_DATA.getSpec("Color"));
     });
@@ -121,20 +109,17 @@ public class MaskController extends de.tichawa.cis.config.MaskController
                 CIS_DATA.setSpec("res_cp2", Integer.parseInt(res));
               }
 
-              double maxLR = Math.round(1000 * CIS_DATA.getSensBoard("SMARDOUB")[2] / (CIS_DATA.getSpec("Color") * (CIS_DATA.getSensChip("SMARAGD" + CIS_DATA.getSpec("res_cp"))[3] + 3 + CIS_DATA.getSensChip("SMARAGD" + CIS_DATA.getSpec("res_cp"))[2]) * 1.0 / Math.min(CIS_DATA.getSensChip("SMARAGD" + CIS_DATA.getSpec("res_cp"))[4], CIS_DATA.getADC("VADCFPGA")[2]))) / 1000.0;
+              SensorTiming timing = SensorTiming.of(CIS_DATA);
+              double maxLR = timing.getMaxLineRate();
               MaxLineRate.setText(maxLR + " kHz");
               SelLineRate.setMax(maxLR * 1000);
               SelLineRate.setValue(maxLR * 1000);
 
-              CIS_DATA.setSpec("Maximum line rate", (int) Math.round(maxLR * 1000));
-              CIS_DATA.setSpec("Speedmms", (int) (pixelSize.get(CIS_DATA.getSpec("Resolution")) * CIS_DATA.getSpec("Selected line rate")) * 1000);
+              CIS_DATA.setSpec("Maximum line rate", timing.getMaxLineRateHz());
+              CIS_DATA.setSpec("Speedmms", (int) (timing.getPixelSize() * CIS_DATA.getSpec("Selected line rate")) * 1000);
 
-              PixelSize.setText(pixelSize.get(CIS_DATA.getSpec("Resolution")) + " mm");
-              DefectSize.setText(CIS.round(pixelSize.get(CIS_DATA.getSpec("Resolution")) * 3, 5) + " mm");
-              Speedmms.setText(CIS.round(pixelSize.get(CIS_DATA.getSpec("Resolution")) * CIS_DATA.getSpec("Selected line rate"), 3) + " mm/s");
-              Speedms.setText(CIS.round(pixelSize.get(CIS_DATA.getSpec("Resolution")) * CIS_DATA.getSpec("Selected line rate") / 1000, 3) + " m/s");
-              Speedmmin.setText(CIS.round(pixelSize.get(CIS_DATA.getSpec("Resolution")) * CIS_DATA.getSpec("Selected line rate") * 0.06, 3) + " m/min");
-              Speedips.setText(CIS.round(pixelSize.get(CIS_DATA.getSpec("Resolution")) * CIS_DATA.getSpec("Selected line rate") * 0.03937, 3) + " ips");
+              showPixelSize(timing);
+              showSpeed(timing);
     });
     ScanWidth.valueProperty().addListener((ObservableValue<? extends String> observable, String oldValue, String newValue)
             -> 
@@ -156,10 +141,7 @@ public class MaskController extends de.tichawa.cis.config.MaskController
 
               CurrLineRate.setText(newValue.intValue() / 1000.0 + " kHz");
 
-              Speedmms.setText(CIS.round(pixelSize.get(CIS_DATA.getSpec("Resolution")) * CIS_DATA.getSpec("Selected line rate"), 3) + " mm/s");
-              Speedms.setText(CIS.round(pixelSize.get(CIS_DATA.getSpec("Resolution")) * CIS_DATA.getSpec("Selected line rate") / 1000, 3) + " m/s");
-              Speedmmin.setText(CIS.round(pixelSize.get(CIS_DATA.getSpec("Resolution")) * CIS_DATA.getSpec("Selected line rate") * 0.06, 3) + " m/min");
-              Speedips.setText(CIS.round(pixelSize.get(CIS_DATA.getSpec("Resolution")) * CIS_DATA.getSpec("Selected line rate") * 0.03937, 3) + " ips");
+              showSpeed(SensorTiming.of(CIS_DATA));
     });
     InternalLightSource.valueProperty().addListener((ObservableValue<? extends String> observable, String oldValue, String newValue)
             -> 
@@ -255,5 +237,7 @@ public class MaskController extends de.tichawa.cis.config.MaskController
     Interface.getSelectionModel().selectFirst();
     Cooling.getSelectionModel().select(1);
     Trigger.setSelected(false);
+
+    initPreview();
   }
 }
@@ -13,7 +13,7 @@ public class VSCIS extends CIS
   }
 
   @Override
-  public String getTiViKey()
+  protected String getTiViKey(String mechaVersion)
   {
     String key = "G_VSCIS";
     key += String.format("_%04d", getSpec("sw_cp"));
@@ -61,7 +61,7 @@ public class VSCIS extends CIS
       key = key.replace(COLOR_CODE[getSpec("Internal Light Color")], "RGB");
     }
 
-    key += getMechaVersion();
+    key += mechaVersion;
 
     if(getSpec("Interface") == 1)
     {
@@ -105,113 +105,109 @@ public class VSCIS extends CIS
   }
 
   @Override
-  public String getCLCalc(int numOfPix)
+  public PortAssignment getPortAssignment(int numOfPix)
   {
     int numOfPixNominal;
     int taps;
+    int chips;
     int chipsPerTap;
-    double portDataRate;
     int lval;
-    int pixPerTap;
     double ppsbin;
     double binning;
-    StringBuilder printOut = new StringBuilder();
 
-    numOfPixNominal = (int) (numOfPix - ((getSpec("sw_cp") / BASE_LENGTH) * getSensBoard("SMARAGD")[7] / (1200 / getSpec("res_cp2"))));
-    taps = (int) Math.ceil((numOfPix * getSpec("Selected line rate") / 1000000.0) / 85.0);
-    chipsPerTap = (int) Math.ceil((getSensBoard("SMARAGD")[0] * (getSpec("sw_cp") / BASE_LENGTH)) / (double) taps);
-    ppsbin = getSensChip("SMARAGD" + getSpec("res_cp") + "_VS")[3] / ((double) getSpec("res_cp") / (double) getSpec("res_cp2"));
-    pixPerTap = (int) (chipsPerTap * ppsbin);
-    portDataRate = pixPerTap * getSpec("Selected line rate") / 1000000.0;
+    numOfPixNominal = (int) (numOfPix - ((getSpec("sw_cp") / BASE_LENGTH) * getSensBoard("SMARAGD").getExcessPixels() / (1200 / getSpec("res_cp2"))));
+    chips = getChips();
+    ppsbin = getPixelsPerChip();
+    taps = getTaps(numOfPix);
+    chipsPerTap = (int) Math.ceil(chips / (double) taps);
+
+    binning = 1 / (getSensChip("SMARAGD" + getSpec("res_cp") + "_VS").getBinning() * ((double) getSpec("res_cp") / (double) getSpec("res_cp2")));
+    lval = (int) (chipsPerTap * (ppsbin - (getSensBoard("SMARAGD").getExcessPixels() * binning) / getSensBoard("SMARAGD").getChips()));
+    lval -= lval % 8;
 
-    while(portDataRate > 85.0)
+    if(taps > getMaxTaps())
     {
-      taps++;
-      chipsPerTap = (int) Math.ceil((getSensBoard("SMARAGD")[0] * (getSpec("sw_cp") / BASE_LENGTH)) / (double) taps);
-      ppsbin = getSensChip("SMARAGD" + getSpec("res_cp") + "_VS")[3] / ((double) getSpec("res_cp") / (double) getSpec("res_cp2"));
-      pixPerTap = (int) (chipsPerTap * ppsbin);
-      portDataRate = pixPerTap * getSpec("Selected line rate") / 1000000.0;
+      throw new CISException(getTapsError(taps));
     }
-    binning = 1 / (getSensChip("SMARAGD" + getSpec("res_cp") + "_VS")[6] * ((double) getSpec("res_cp") / (double) getSpec("res_cp2")));
-    lval = (int) (chipsPerTap * (ppsbin - (getSensBoard("SMARAGD")[7] * binning) / getSensBoard("SMARAGD")[0]));
-    lval -= lval % 8;
 
-    printOut.append(getString("datarate")).append(Math.round(getSpec("Color") * numOfPix * getSpec("Selected line rate") / 100000.0) / 10.0).append(" MByte\n");
-    printOut.append(getString("numofcons")).append((taps * getSpec("Color") > 3) ? "2" : "1").append("\n");
-    printOut.append(getString("numofport")).append(taps * getSpec("Color")).append("\n");
-    printOut.append("Pixel Clock: 85 MHz").append("\n");
-    printOut.append("Nominal pixel count: ").append(numOfPixNominal).append("\n");
+    return CameraLinkLayout.forVSCIS(taps, lval, getSpec("Color"), numOfPixNominal, Math.round(getSpec("Color") * numOfPix * getSpec("Selected line rate") / 100000.0) / 10.0);
+  }
 
-    switch(getSpec("Color"))
+  @Override
+  protected Feasibility getCameraLinkFeasibility(int numOfPix)
+  {
+    int maxTaps = getMaxTaps();
+    if(maxTaps == Integer.MAX_VALUE)
     {
-      case 3:
-      {
-        if(taps > 3)
-        {
-          System.out.println("Please select a lower line rate. Currently required number of taps (" + taps * getSpec("Color") + ") is too high.");
-          return null;
-        }
-
-        for(int x = 0; x < Math.min(2, taps); x++)
-        {
-          printOut.append("Camera Link ").append(x + 1).append(":\n");
-          printOut.append("   Port ").append(getPortName(x * 3)).append(":   ")
-                  .append(String.format("%05d", x * lval)).append("   - ").append(String.format("%05d", (x + 1) * lval - 1)).append("   ")
-                  .append(getString("Red")).append("\n");
-          printOut.append("   Port ").append(getPortName(x * 3 + 1)).append(":   ")
-                  .append(String.format("%05d", x * lval)).append("   - ").append(String.format("%05d", (x + 1) * lval - 1)).append("   ")
-                  .append(getString("Green")).append("\n");
-          printOut.append("   Port ").append(getPortName(x * 3 + 2)).append(":   ")
-                  .append(String.format("%05d", x * lval)).append("   - ").append(String.format("%05d", (x + 1) * lval - 1)).append("   ")
-                  .append(getString("Blue")).append("\n");
-        }
-
-        if(taps == 3)
-        {
-          printOut.append("   Port ").append(getPortName(3)).append(":   ")
-                  .append(String.format("%05d", 2 * lval)).append("   - ").append(String.format("%05d", 3 * lval - 1)).append("   ")
-                  .append(getString("Red")).append("\n");
-          printOut.append("   Port ").append(getPortName(4)).append(":   ")
-                  .append(String.format("%05d", 2 * lval)).append("   - ").append(String.format("%05d", 3 * lval - 1)).append("   ")
-                  .append(getString("Green")).append("\n");
-          printOut.append("   Port ").append(getPortName(5)).append(":   ")
-                  .append(String.format("%05d", 2 * lval)).append("   - ").append(String.format("%05d", 3 * lval - 1)).append("   ")
-                  .append(getString("Blue")).append("\n");
-        }
+      return Feasibility.UNLIMITED;
+    }
 
-        break;
-      }
-      case 1:
-      {
-        if(taps > 8)
-        {
-          System.out.println("Please select a lower line rate. Currently required number of taps (" + taps * getSpec("Color") + ") is too high.");
-          return null;
-        }
-
-        printOut.append("Camera Link 1:\n");
-        for(int x = 0; x < Math.min(3, taps); x++)
-        {
-          printOut.append("   Port ").append(getPortName(x)).append(":   ")
-                  .append(String.format("%05d", x * lval)).append("   - ").append(String.format("%05d", (x + 1) * lval - 1)).append("\n");
-        }
-
-        if(taps > 3)
-        {
-          printOut.append("Camera Link 2:\n");
-          for(int x = 3; x < taps; x++)
-          {
-            printOut.append("   Port ").append(getPortName(x)).append(":   ")
-                    .append(String.format("%05d", x * lval)).append("   - ").append(String.format("%05d", (x + 1) * lval - 1)).append("\n");
-          }
-        }
-        break;
-      }
+    return new Feasibility(CameraLinkLayout.getMaxLineRate(numOfPix, maxTaps, getChips(), getPixelsPerChip()), Feasibility.Limit.CAMERA_LINK,
+            getTapsError(getTaps(numOfPix)));
+  }
+
+  // Taps steigen nur mit der Zeilenfrequenz, der Abschnitt endet bei der größten mit denselben Taps.
+  // Über der Grenze des Interfaces gibt es keine Belegung mehr.
+  @Override
+  protected int getLineRateStepEnd()
+  {
+    if(getSpec("Interface") == null || getSpec("Interface") != 0)
+    {
+      return Integer.MAX_VALUE;
     }
 
+    int numOfPix = getNumOfPix();
+    int taps = getTaps(numOfPix);
+    return taps > getMaxTaps() ? Integer.MAX_VALUE : CameraLinkLayout.getMaxLineRate(numOfPix, taps, getChips(), getPixelsPerChip());
+  }
+
+  private int getTaps(int numOfPix)
+  {
+    return CameraLinkLayout.getTaps((int) Math.ceil((numOfPix * getSpec("Selected line rate") / 1000000.0) / CameraLinkLayout.MAX_PORT_RATE), getChips(), getPixelsPerChip(), getSpec("Selected line rate"));
+  }
+
+  private int getChips()
+  {
+    return getSensBoard("SMARAGD").getChips() * (getSpec("sw_cp") / BASE_LENGTH);
+  }
+
+  private double getPixelsPerChip()
+  {
+    return getSensChip("SMARAGD" + getSpec("res_cp") + "_VS").getPixels() / ((double) getSpec("res_cp") / (double) getSpec("res_cp2"));
+  }
+
+  // Taps je Farbe, Integer.MAX_VALUE ohne Grenze
+  private int getMaxTaps()
+  {
+    return getSpec("Color") == 3 ? 3 : getSpec("Color") == 1 ? 8 : Integer.MAX_VALUE;
+  }
+
+  private String getTapsError(int taps)
+  {
+    return "Please select a lower line rate. Currently required number of taps (" + taps * getSpec("Color") + ") is too high.";
+  }
+
+  @Override
+  public String getCLCalc(int numOfPix)
+  {
+    PortAssignment assignment = getPortAssignment(numOfPix);
+    StringBuilder printOut = new StringBuilder();
+    printOut.append(getString("datarate")).append(assignment.getDataRate()).append(" MByte\n");
+    printOut.append(getString("numofcons")).append(assignment.getConnectors()).append("\n");
+    printOut.append(getString("numofport")).append(assignment.getPortCount()).append("\n");
+    printOut.append("Pixel Clock: 85 MHz").append("\n");
+    printOut.append("Nominal pixel count: ").append(assignment.getNominalPixels()).append("\n");
+    printOut.append(renderPorts(assignment));
+
     return printOut.toString();
   }
   
+  @Override
+  public double getMaxLineRate()
+  {
+    return Math.round(1000 * getSensBoard("SMARAGD").getLines() / (getSpec("Color") * (getSensChip("SMARAGD" + getSpec("res_cp") + "_VS").getPixels() + 3 + getSensChip("SMARAGD" + getSpec("res_cp") + "_VS").getOverhead()) * 1.0 / Math.min(getSensChip("SMARAGD" + getSpec("res_cp") + "_VS").getMaxClock(), getADC("VARICISC").getClock()))) / 1000.0;
+  }
+
   @Override
   public double getGeometry(boolean coax)
   {
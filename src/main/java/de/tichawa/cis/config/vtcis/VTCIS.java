@@ -2,8 +2,6 @@ package de.tichawa.cis.config.vtcis;
 
 import de.tichawa.cis.config.*;
 
-import java.util.*;
-
 public class VTCIS extends CIS
 {
 
@@ -15,7 +13,7 @@ public class VTCIS extends CIS
   }
 
   @Override
-  public String getTiViKey()
+  protected String getTiViKey(String mechaVersion)
   {
     String key = "G_VTCIS";
     key += String.format("_%04d", getSpec("sw_cp"));
@@ -63,7 +61,7 @@ public class VTCIS extends CIS
       key = key.replace(COLOR_CODE[getSpec("Internal Light Color")], "RGB");
     }
 
-    key += getMechaVersion();
+    key += mechaVersion;
 
 //    if(getSpec("Interface") == 1)
 //    {
@@ -107,52 +105,82 @@ public class VTCIS extends CIS
   }
 
   @Override
-  public String getCLCalc(int numOfPix)
+  public PortAssignment getPortAssignment(int numOfPix)
   {
     int numOfPixNominal;
     int taps;
     int pixPerTap;
     int lval;
-    int tapCount;
-    StringBuilder printOut = new StringBuilder();
 
-    numOfPixNominal = (int) (numOfPix - ((getSpec("sw_cp") / BASE_LENGTH) * getSensBoard("SMARAGD")[7] / (1200 / getSpec("res_cp2"))));
-    taps = (int) Math.ceil(1.01 * ((long) numOfPixNominal * getSpec("Selected line rate") / 1000000) / 85.0);
+    numOfPixNominal = getNominalPixels(numOfPix);
+    taps = CameraLinkLayout.getTaps(numOfPixNominal, getSpec("Selected line rate"));
     pixPerTap = numOfPixNominal / taps;
     lval = pixPerTap - pixPerTap % 8;
 
-    boolean mediumMode = getSpec("CLMode") == 1;
+    int[] tapConfig = CameraLinkLayout.getSlots(getSpec("CLMode") == 1, getSpec("Color"));
+    if(taps > CameraLinkLayout.getMaxTaps(tapConfig))
+    {
+      throw new CISException(getTapsError(taps));
+    }
 
-    printOut.append(getString("datarate")).append(Math.round(getSpec("Color") * numOfPixNominal * getSpec("Selected line rate") / 100000.0) / 10.0).append(" MByte\n");
-    printOut.append(getString("numofcons")).append("%%%%%\n");
-    printOut.append(getString("numofport")).append(taps * getSpec("Color")).append("\n");
-    printOut.append("Pixel Clock: 85 MHz\n");
-    printOut.append(getString("nomPix")).append(numOfPixNominal).append("\n");
-    printOut.append("LVAL (Modulo 8): ").append(lval).append("\n");
-    printOut.append(getString("clMode")).append(mediumMode ? "Base/Medium/Full" : "Full80").append("\n");
-    printOut.append(getString("numPhases")).append(getSpec("Color")).append("\n");
+    return CameraLinkLayout.fromSlots(tapConfig, taps, lval, numOfPixNominal, taps * getSpec("Color"),
+            Math.round(getSpec("Color") * numOfPixNominal * getSpec("Selected line rate") / 100000.0) / 10.0);
+  }
+
+  // Camera Link liest zusätzlich CLMode
+  @Override
+  public boolean hasFeasibilitySpecs()
+  {
+    return super.hasFeasibilitySpecs() && (getSpec("Interface") != 0 || getSpec("CLMode") != null);
+  }
 
-    Map<Integer, List<Integer>> mediumMap = new HashMap<>();
-    mediumMap.put(1, Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 0, 0, 9, 10, 11, 12, 13, 14, 15, 16, 0, 0));
-    mediumMap.put(2, Arrays.asList(1, 1, 0, 2, 2, 0, 0, 0, 0, 0, 3, 3, 0, 4, 4, 0, 0, 0, 0, 0));
-    mediumMap.put(3, Arrays.asList(1, 1, 1, 2, 2, 2, 0, 0, 0, 0, 3, 3, 3, 4, 4, 4, 0, 0, 0, 0));
-    mediumMap.put(4, Arrays.asList(1, 1, 1, 1, 0, 0, 0, 0, 0, 0, 2, 2, 2, 2, 0, 0, 0, 0, 0, 0));
-    mediumMap.put(5, Arrays.asList(1, 1, 1, 1, 1, 0, 0, 0, 0, 0, 2, 2, 2, 2, 2, 0, 0, 0, 0, 0));
-    mediumMap.put(6, Arrays.asList(1, 1, 1, 1, 1, 1, 0, 0, 0, 0, 2, 2, 2, 2, 2, 2, 0, 0, 0, 0));
-
-    Map<Integer, List<Integer>> highMap = new HashMap<>();
-    highMap.put(1, Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20));
-    highMap.put(2, Arrays.asList(1, 1, 0, 2, 2, 0, 3, 3, 0, 0, 4, 4, 0, 5, 5, 0, 6, 6, 0, 0));
-    highMap.put(3, Arrays.asList(1, 1, 1, 2, 2, 2, 3, 3, 3, 0, 4, 4, 4, 5, 5, 5, 6, 6, 6, 0));
-    highMap.put(4, mediumMap.get(4));
-    highMap.put(5, mediumMap.get(5));
-    highMap.put(6, mediumMap.get(6));
-
-    List<Integer> tapConfig = (mediumMode ? mediumMap : highMap).get(getSpec("Color"));
-    if(taps > tapConfig.stream().mapToInt(x -> x).max().orElse(0))
+  @Override
+  protected Feasibility getCameraLinkFeasibility(int numOfPix)
+  {
+    int numOfPixNominal = getNominalPixels(numOfPix);
+    int maxTaps = CameraLinkLayout.getMaxTaps(CameraLinkLayout.getSlots(getSpec("CLMode") == 1, getSpec("Color")));
+    return new Feasibility(CameraLinkLayout.getMaxLineRate(numOfPixNominal, maxTaps), Feasibility.Limit.CAMERA_LINK,
+            getTapsError(CameraLinkLayout.getTaps(numOfPixNominal, getSpec("Selected line rate"))));
+  }
+
+  // Taps steigen nur mit der Zeilenfrequenz, der Abschnitt endet bei der größten mit denselben Taps
+  @Override
+  protected int getLineRateStepEnd()
+  {
+    if(getSpec("Interface") == null || getSpec("Interface") != 0)
     {
-      throw new CISException("Number of required taps (" + taps * getSpec("Color") + ") is too high. Please reduce the data rate.");
+      return Integer.MAX_VALUE;
     }
+
+    int numOfPixNominal = getNominalPixels(getNumOfPix());
+    return CameraLinkLayout.getMaxLineRate(numOfPixNominal, CameraLinkLayout.getTaps(numOfPixNominal, getSpec("Selected line rate")));
+  }
+
+  private int getNominalPixels(int numOfPix)
+  {
+    return (int) (numOfPix - ((getSpec("sw_cp") / BASE_LENGTH) * getSensBoard("SMARAGD").getExcessPixels() / (1200 / getSpec("res_cp2"))));
+  }
+
+  private String getTapsError(int taps)
+  {
+    return "Number of required taps (" + taps * getSpec("Color") + ") is too high. Please reduce the data rate.";
+  }
+
+  @Override
+  public String getCLCalc(int numOfPix)
+  {
+    PortAssignment assignment = getPortAssignment(numOfPix);
+    StringBuilder printOut = new StringBuilder();
+
+    printOut.append(getString("datarate")).append(assignment.getDataRate()).append(" MByte\n");
+    printOut.append(getString("numofcons")).append(assignment.getConnectors()).append("\n");
+    printOut.append(getString("numofport")).append(assignment.getPortCount()).append("\n");
+    printOut.append("Pixel Clock: 85 MHz\n");
+    printOut.append(getString("nomPix")).append(assignment.getNominalPixels()).append("\n");
+    printOut.append("LVAL (Modulo 8): ").append(assignment.getLval()).append("\n");
+    printOut.append(getString("clMode")).append(getSpec("CLMode") == 1 ? "Base/Medium/Full" : "Full80").append("\n");
+    printOut.append(getString("numPhases")).append(getSpec("Color")).append("\n");
+
     //Out Of Flash Memory
     printOut.append("Flash Extension: ");
     if(getSpec("res_cp2") >= 1200 && (numOfPix - 16 * getSpec("sw_cp") / BASE_LENGTH * 6 * 2) * getSpec("Color") * 2 > 327680)
@@ -164,32 +192,18 @@ public class VTCIS extends CIS
       printOut.append("Not required.\n");
     }
 
-    int cableCount = 0;
-    for(tapCount = 0; tapCount < tapConfig.size(); tapCount++)
-    {
-      int currentTap = tapConfig.get(tapCount);
-      if(currentTap > 0 && taps >= currentTap)
-      {
-        if(tapCount % 10 == 0)
-        {
-          printOut.append("Camera Link ").append((tapCount / 10) + 1).append(":\n");
-        }
-        printOut.append("   Port ").append(getPortName(tapCount % 10)).append(":   ")
-            .append(String.format("%05d", (currentTap - 1) * lval)).append("   - ")
-            .append(String.format("%05d", currentTap * lval - 1)).append("\n");
-
-        if(tapCount % 10 == 0 || tapCount % 10 == 3)
-        {
-          cableCount++;
-        }
-      }
-    }
-
+    printOut.append(renderPorts(assignment));
     printOut.append(getString("configOnRequest"));
-    printOut.replace(printOut.indexOf("%%%%%"), printOut.indexOf("%%%%%") + 5, cableCount+ "");
+
     return printOut.toString();
   }
 
+  @Override
+  public double getMaxLineRate()
+  {
+    return Math.round(1000 * getSensBoard("SMARAGD").getLines() / (getSpec("Color") * (getSensChip("SMARAGD" + getSpec("res_cp")).getPixels() + 100) * 1.0 / Math.min(getSensChip("SMARAGD" + getSpec("res_cp")).getMaxClock(), getADC("VADCFPGA").getClock()))) / 1000.0;
+  }
+
   @Override
   public double getGeometry(boolean coax)
   {
@@ -0,0 +1,27 @@
+package de.tichawa.cis.config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class BatchPricerTest
+{
+  @Test
+  public void malformedLinesDoNotStopTheRun() throws IOException
+  {
+    Path dir = Files.createTempDirectory("BatchPricerTest");
+    Path input = dir.resolve("input.jsonl");
+    Path output = dir.resolve("output.csv");
+    Files.write(input, Arrays.asList("not json", "{\"CIS\":\"VS", "{\"CIS\":\"FOO\"}"));
+
+    assertEquals(3, new BatchPricer(2).run(input, output));
+    assertEquals(Arrays.asList("Line\tCIS\tTiViKey\tPrice (1 pc)\tPrice (5 pcs)\tPrice (10 pcs)\tPrice (25 pcs)\tParts",
+            "1\t\tERROR: Expected '{' at 0: not json",
+            "2\t\tERROR: Unexpected end of line: {\"CIS\":\"VS",
+            "3\tFOO\tERROR: Unknown CIS family: FOO"), Files.readAllLines(output));
+  }
+}
@@ -0,0 +1,76 @@
+package de.tichawa.cis.config;
+
+import java.sql.SQLException;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+// Vergleiche mit der Anzahl LED-Zeilen, die VSCIS- und VDCIS-Masken setzen "LEDLines" nicht
+public class ConditionTest
+{
+  private static final String VSCIS = "{\"CIS\":\"VSCIS\",\"sw_cp\":260,\"sw_index\":0,\"res_cp\":600,\"res_cp2\":600,\"Resolution\":2,\"Color\":1,"
+          + "\"Internal Light Source\":1,\"Internal Light Color\":0,\"External Light Source\":0,\"Interface\":0,\"Cooling\":1,"
+          + "\"External Trigger\":0,\"Selected line rate\":5000,\"Maximum line rate\":10000,\"Speedmms\":100,\"CLMode\":0}";
+
+  @Before
+  public void setUp() throws SQLException
+  {
+    TableCache.setDatabase(new DatabaseTableProvider(DatabaseTableProvider.BUNDLED));
+  }
+
+  @After
+  public void tearDown()
+  {
+    TableCache.setDatabase(null);
+  }
+
+  @Test
+  public void missingLEDLinesCountsAsNone()
+  {
+    long features = new CalculationContext(BatchPricer.createCIS(BatchPricer.parseJsonObject(VSCIS))).getFeatures();
+
+    assertTrue(Condition.compile("MONO&L==0").matches(features));
+    assertTrue(Condition.compile("L<1").matches(features));
+    assertFalse(Condition.compile("MONO&L==1").matches(features));
+    assertFalse(Condition.compile("MONO&L==2").matches(features));
+    assertFalse(Condition.compile("MONO&L==3").matches(features));
+    assertFalse(Condition.compile("L>0").matches(features));
+  }
+
+  @Test
+  public void tooManyLEDLinesAreRejected()
+  {
+    try
+    {
+      Condition.ledLines(Condition.MAX_LED_LINES + 1);
+      fail();
+    }
+    catch(CISException e)
+    {
+      assertEquals("Unsupported number of LED lines: " + (Condition.MAX_LED_LINES + 1), e.getMessage());
+    }
+  }
+
+  // 6172, 6173 und 7315 stehen mit MONO&L==1, MONO&L==2 und MONO&L==3 in der mitgelieferten configurator.sqlite
+  @Test
+  public void vscisFromDatabaseWithoutLEDLinesHasNoLEDBoard()
+  {
+    Map<Integer, Integer> parts = BatchPricer.createCIS(BatchPricer.parseJsonObject(VSCIS)).calculate().getElectConfig();
+    assertFalse(parts.containsKey(6172));
+    assertFalse(parts.containsKey(6173));
+    assertFalse(parts.containsKey(7315));
+
+    CIS oneLine = BatchPricer.createCIS(BatchPricer.parseJsonObject(VSCIS));
+    oneLine.setSpec("LEDLines", 1);
+    parts = oneLine.calculate().getElectConfig();
+    assertEquals(Integer.valueOf(1), parts.get(6172));
+    assertFalse(parts.containsKey(6173));
+    assertFalse(parts.containsKey(7315));
+  }
+}
@@ -0,0 +1,86 @@
+package de.tichawa.cis.config;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// Gegen eine lokale SQLite-Datei statt FERIX, nur mit den Spalten, die der Synchronizer schreibt
+public class FerixSynchronizerTest
+{
+  private static final String CONFIG = "{\"CIS\":\"VSCIS\",\"sw_cp\":1040,\"sw_index\":6,\"res_cp\":600,\"res_cp2\":600,\"Resolution\":2,\"Color\":1,"
+          + "\"Internal Light Source\":1,\"Internal Light Color\":0,\"External Light Source\":0,\"LEDLines\":1,\"Interface\":0,\"Cooling\":1,"
+          + "\"External Trigger\":0,\"Selected line rate\":5000,\"Maximum line rate\":10000,\"Speedmms\":100,\"CLMode\":0}";
+
+  @After
+  public void tearDown()
+  {
+    FerixSynchronizer.closeAll();
+    TableCache.setDatabase(null);
+  }
+
+  @Test
+  public void insertsEachTiViKeyOnce() throws Exception
+  {
+    Path file = Files.createTempFile("ferix", ".sqlite");
+    String url = "jdbc:sqlite:" + file;
+    try(Connection connection = DriverManager.getConnection(url);
+        Statement statement = connection.createStatement())
+    {
+      statement.executeUpdate("CREATE TABLE f_art4 (a_artikel TEXT, a_bez1 TEXT, a_bez2 TEXT, a_teileart INTEGER, a_umfakt INTEGER, a_lagst TEXT, "
+              + "a_cre_dat TIMESTAMP, a_mod_dat TIMESTAMP, a_mod_sachb TEXT, a_lagerort TEXT, a_umfakt_vk INTEGER)");
+      statement.executeUpdate("CREATE TABLE f_best (b_artikel TEXT, b_cre_dat TIMESTAMP, b_mod_dat TIMESTAMP, b_mod_sachb TEXT)");
+      statement.executeUpdate("CREATE TABLE Artikel_nt (ant_schl TEXT, ant_text TEXT)");
+      statement.executeUpdate("CREATE TABLE f_art4_lt (artlt_schl TEXT, artlt_txt TEXT)");
+      statement.executeUpdate("INSERT INTO f_art4 (a_artikel, a_bez1) VALUES ('1000', 'OLD'), ('1002', 'OLD2'), ('abc', 'OLD3')");
+    }
+
+    TableCache.setDatabase(new DatabaseTableProvider(DatabaseTableProvider.BUNDLED));
+    CalculationResult result = BatchPricer.createCIS(BatchPricer.parseJsonObject(CONFIG)).calculate();
+    String text = result.createPrntOut();
+
+    Map<String, Integer> created = new FerixSynchronizer(url, "", "").insert(Arrays.asList(result, result));
+    assertEquals(1, created.size());
+    assertEquals(Integer.valueOf(1001), created.get(result.getTiViKey()));
+    //Schon vorhanden
+    assertTrue(new FerixSynchronizer(url, "", "").insert(Arrays.asList(result)).isEmpty());
+
+    try(Connection connection = DriverManager.getConnection(url);
+        Statement statement = connection.createStatement())
+    {
+      assertEquals(FerixSynchronizer.getDescription(text), query(statement, "SELECT a_bez2 FROM f_art4 WHERE a_artikel = '1001'"));
+      assertEquals(FerixSynchronizer.getLongtext(text), query(statement, "SELECT artlt_txt FROM f_art4_lt WHERE artlt_schl = '1001'"));
+      assertEquals("1", query(statement, "SELECT COUNT(*) FROM f_best"));
+      assertEquals("1", query(statement, "SELECT COUNT(*) FROM Artikel_nt"));
+    }
+    Files.delete(file);
+  }
+
+  @Test
+  public void textWithoutLineBreakHasNoLongtext()
+  {
+    assertEquals("VSCIS", FerixSynchronizer.getDescription("VSCIS"));
+    assertEquals("", FerixSynchronizer.getLongtext("VSCIS"));
+    assertEquals("VSCIS", FerixSynchronizer.getDescription("VSCIS\nScan width\n1040 mm"));
+    assertEquals("Scan width\n1040 mm", FerixSynchronizer.getLongtext("VSCIS\nScan width\n1040 mm"));
+  }
+
+  private static String query(Statement statement, String sql) throws SQLException
+  {
+    try(ResultSet result = statement.executeQuery(sql))
+    {
+      assertTrue(result.next());
+      return result.getString(1);
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package de.tichawa.cis.config;
+
+import de.tichawa.cis.config.vtcis.VTCIS;
+import de.tichawa.util.MathEval;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+// Übersetzte Formeln gegen den alten Weg über MathEval, mit den Formeln aus der mitgelieferten configurator.sqlite
+public class FormulaTest
+{
+  @Test
+  public void compiledFormulasMatchMathEval() throws SQLException
+  {
+    List<String> formulas = readFormulas();
+    assertFalse(formulas.isEmpty());
+
+    CIS cis = new VTCIS();
+    for(int ledLines = 0; ledLines <= 3; ledLines++)
+    {
+      for(int sw = CIS.BASE_LENGTH; sw <= 4160; sw += CIS.BASE_LENGTH)
+      {
+        for(int numFPGA = 1; numFPGA <= 8; numFPGA++)
+        {
+          cis.setSpec("LEDLines", ledLines);
+          cis.setSpec("sw_cp", sw);
+          double[] frame = cis.createFrame();
+          frame[Formula.FPGAS] = numFPGA;
+
+          for(String text : formulas)
+          {
+            //Wie bisher in calculate()
+            String substituted = text.replace(" ", "")
+                    .replace("L", "" + ledLines)
+                    .replace("F", "" + numFPGA)
+                    .replace("S", "" + sw / CIS.BASE_LENGTH)
+                    .replace("N", "" + sw);
+            Formula formula = Formula.compile(text);
+            assertEquals(text + " (L=" + ledLines + ", F=" + numFPGA + ", N=" + sw + ")",
+                    evaluate(() -> MathEval.evaluate(substituted)), evaluate(() -> formula.evaluate(frame)));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void missingLEDLinesCountsAsNone()
+  {
+    CIS cis = new VTCIS();
+    cis.setSpec("sw_cp", 520);
+    double[] frame = cis.createFrame();
+
+    assertEquals(0.0, frame[Formula.LED_LINES], 0.0);
+    assertEquals(2.0, Formula.compile("L+S").evaluate(frame), 0.0);
+  }
+
+  // Ergebnis oder Art des Fehlers, beide Wege müssen an denselben Formeln scheitern
+  private static Object evaluate(DoubleSupplier supplier)
+  {
+    try
+    {
+      return supplier.getAsDouble();
+    }
+    catch(RuntimeException e)
+    {
+      return e.getClass();
+    }
+  }
+
+  private static List<String> readFormulas() throws SQLException
+  {
+    List<String> formulas = new ArrayList<>();
+    try(Connection connection = DriverManager.getConnection(DatabaseTableProvider.BUNDLED);
+        Statement statement = connection.createStatement();
+        ResultSet result = statement.executeQuery("SELECT amount FROM Electronics UNION SELECT amount FROM Mechanics"))
+    {
+      while(result.next())
+      {
+        formulas.add(result.getString(1));
+      }
+    }
+    return formulas;
+  }
+}
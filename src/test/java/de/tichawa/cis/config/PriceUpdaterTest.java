@@ -0,0 +1,32 @@
+package de.tichawa.cis.config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class PriceUpdaterTest
+{
+  @Test
+  public void shortRowsKeepTheirColumns() throws IOException
+  {
+    Path dir = Files.createTempDirectory("PriceUpdaterTest");
+    Path export = dir.resolve("art.csv");
+    Path prices = dir.resolve("Prices.csv");
+    Files.write(export, Arrays.asList("100\t12,5\tStk\tA", "200\t3\tStk\tI"));
+    Files.write(prices, Arrays.asList("ArtNo\tName\tPrice", "100\tSensor", "200\tLED\t3.0\tx", "300\tKabel"));
+
+    PriceUpdater updater = PriceUpdater.update(export, prices, dir.resolve("backup/Prices.csv"));
+
+    List<String> lines = Files.readAllLines(prices);
+    assertEquals(Arrays.asList("100\tSensor\t12.5", "200\tLED\t3.0\tx", "300\tKabel"), lines);
+    assertEquals(1, updater.getChanged());
+    assertEquals(1, updater.getUnchanged());
+    assertArrayEquals(new int[]{200}, updater.getInactive());
+  }
+}